@@ -1,3 +1,7 @@
+import groovy.json.JsonSlurper
+import java.io.DataOutputStream
+import java.time.LocalDate
+
 plugins {
     alias(libs.plugins.android.application)
 }
@@ -16,6 +20,8 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        // Microbenchmarks run inside the debuggable app test APK
+        testInstrumentationRunnerArguments["androidx.benchmark.suppressErrors"] = "DEBUGGABLE,EMULATOR"
     }
 
     buildTypes {
@@ -42,8 +48,62 @@ dependencies {
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
+    androidTestImplementation(libs.benchmark.junit4)
     implementation("androidx.cardview:cardview:1.0.0")
 
     // Volley for network requests
     implementation("com.android.volley:volley:1.2.1")
+    // HTTP stack under Volley, for the shared keep-alive connection pool
+    implementation(libs.okhttp)
+}
+
+// Prebuilt catalogue in the APK assets, imported on first launch before any download
+val catalogueSnapshot = tasks.register<CatalogueSnapshotTask>("buildCatalogueSnapshot") {
+    seed.set(layout.projectDirectory.file("src/seed/hotels.json"))
+}
+
+androidComponents {
+    onVariants { variant ->
+        variant.sources.assets?.addGeneratedSourceDirectory(catalogueSnapshot, CatalogueSnapshotTask::outputDir)
+    }
+}
+
+/**
+ * Packs a hotel list in the JSON shape of the /hotels endpoint into the binary snapshot
+ * read by CatalogueSnapshot. Keep both sides of the format in step.
+ */
+abstract class CatalogueSnapshotTask : DefaultTask() {
+
+    @get:InputFile
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val seed: RegularFileProperty
+
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+
+    @TaskAction
+    fun pack() {
+        @Suppress("UNCHECKED_CAST")
+        val hotels = JsonSlurper().parse(seed.get().asFile) as List<Map<String, Any?>>
+        val snapshot = outputDir.get().file("catalogue.bin").asFile
+        DataOutputStream(snapshot.outputStream().buffered()).use { out ->
+            out.writeInt(0x48424353) // "HBCS"
+            out.writeInt(1) // Format version
+            out.writeInt(hotels.size)
+            for (hotel in hotels) {
+                // Same defaults as the app applies to server JSON
+                val checkIn = hotel["check_in_date"] as String?
+                out.writeInt((hotel["id"] as Number?)?.toInt() ?: 0)
+                out.writeUTF(hotel["name"] as String)
+                out.writeUTF(hotel["location"] as String)
+                out.writeInt((hotel["rating"] as Number?)?.toInt() ?: 3)
+                out.writeDouble((hotel["price"] as Number).toDouble())
+                out.writeInt(if (checkIn.isNullOrEmpty()) Int.MIN_VALUE else LocalDate.parse(checkIn).toEpochDay().toInt())
+                out.writeBoolean(hotel["available"] as Boolean? ?: true)
+                out.writeUTF(hotel["room_type"] as String? ?: "Standard")
+                out.writeUTF(hotel["image_url"] as String? ?: "")
+            }
+        }
+        logger.lifecycle("Packed ${hotels.size} hotels into ${snapshot.name} (${snapshot.length()} bytes)")
+    }
 }
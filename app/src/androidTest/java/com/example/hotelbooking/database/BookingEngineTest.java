@@ -0,0 +1,314 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.HotelSummary;
+import com.example.hotelbooking.model.Reservation;
+import com.example.hotelbooking.model.Room;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that rooms are never double-booked, also when many guests try at once, that
+ * free-room lookups stay fast once a hotel's reservations are loaded, and that
+ * booked-out hotels are left out of availability listings.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BookingEngineTest {
+
+    private static final String DB_NAME = "HotelBookingReservationTest.db";
+    private static final int HOTEL_ID = 1;
+    private static final int ROOMS = 20;
+    private static final int DAY = 19723; // 2024-01-01
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+    private BookingEngine engine;
+    private final List<Integer> roomIds = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+        engine = dbHelper.getBookingEngine();
+        dbHelper.addHotel(new Hotel(HOTEL_ID, "Lakeside Inn", "Kigali", 4, 120, DAY, true, "Suite"));
+        for (int i = 0; i < ROOMS; i++) {
+            roomIds.add((int) dbHelper.addRoom(new Room(HOTEL_ID, String.valueOf(101 + i), "Suite", 2, true, 0)));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void rejectsOverlappingStaysAndAllowsBackToBackOnes() {
+        int room = roomIds.get(0);
+        assertNotNull(engine.book(room, DAY + 2, DAY + 5, "A"));
+
+        assertNull(engine.book(room, DAY + 4, DAY + 6, "Overlaps the end"));
+        assertNull(engine.book(room, DAY, DAY + 3, "Overlaps the start"));
+        assertNull(engine.book(room, DAY + 3, DAY + 4, "Inside"));
+        assertNull(engine.book(room, DAY, DAY + 10, "Around"));
+        assertNull(engine.book(room, DAY + 6, DAY + 6, "No nights"));
+
+        assertNotNull(engine.book(room, DAY, DAY + 2, "Leaves on arrival day"));
+        assertNotNull(engine.book(room, DAY + 5, DAY + 7, "Arrives on departure day"));
+        assertEquals(3, engine.getReservations(room).size());
+    }
+
+    @Test
+    public void freeRoomsExcludeBookedOnesAndSurviveReload() {
+        engine.book(roomIds.get(0), DAY, DAY + 3, "A");
+        engine.book(roomIds.get(1), DAY + 2, DAY + 4, "B");
+
+        assertEquals(ROOMS - 2, engine.getFreeRoomIds(HOTEL_ID, DAY + 1, DAY + 3).length);
+        assertEquals(ROOMS - 1, engine.getFreeRoomIds(HOTEL_ID, DAY + 3, DAY + 4).length);
+
+        // A second helper on the same file starts with an empty in-memory index
+        DatabaseHelper reopened = new DatabaseHelper(context, DB_NAME);
+        try {
+            int[] free = reopened.getBookingEngine().getFreeRoomIds(HOTEL_ID, DAY + 1, DAY + 3);
+            assertEquals(ROOMS - 2, free.length);
+            assertNull(reopened.getBookingEngine().book(roomIds.get(0), DAY + 1, DAY + 2, "C"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void replacingTheCatalogueKeepsBookingsOfRoomsThatStay() {
+        int room = roomIds.get(0);
+        assertNotNull(engine.book(room, DAY, DAY + 3, "A"));
+
+        Hotel hotel = dbHelper.getHotel(HOTEL_ID);
+        assertTrue(dbHelper.replaceAllHotels(Collections.singletonList(hotel), dbHelper.getRoomsByHotelId(HOTEL_ID)));
+
+        assertEquals(1, engine.getReservations(room).size());
+        assertFalse(engine.isRoomFree(room, DAY + 1, DAY + 2));
+        // The room's booking columns survived too, not only the reservation rows
+        DatabaseHelper reopened = new DatabaseHelper(context, DB_NAME);
+        try {
+            assertNull(reopened.getBookingEngine().book(room, DAY + 1, DAY + 2, "B"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void cancelledNightsCanBeBookedAgain() {
+        int room = roomIds.get(0);
+        Reservation first = engine.book(room, DAY, DAY + 3, "A");
+        assertTrue(engine.cancel(first));
+        assertFalse(engine.cancel(first));
+        assertNotNull(engine.book(room, DAY + 1, DAY + 2, "B"));
+    }
+
+    @Test
+    public void removingTheRoomsDropsTheirReservations() {
+        int room = roomIds.get(0);
+        assertNotNull(engine.book(room, DAY, DAY + 3, "A"));
+
+        assertTrue(dbHelper.replaceAllHotels(new ArrayList<>(), new ArrayList<>()));
+
+        assertTrue(engine.getReservations(room).isEmpty());
+        assertNull(engine.book(room, DAY, DAY + 3, "Room is gone"));
+        assertEquals(0, engine.getFreeRoomIds(HOTEL_ID, DAY, DAY + 3).length);
+    }
+
+    @Test
+    public void simultaneousBookingsOfOneRoomNeverOverlap() throws Exception {
+        int room = roomIds.get(0);
+        int threads = 16;
+        int attemptsPerThread = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> wins = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            wins.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                int won = 0;
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    int checkIn = DAY + random.nextInt(60);
+                    if (engine.book(room, checkIn, checkIn + 1 + random.nextInt(4), "Guest") != null) {
+                        won++;
+                    }
+                }
+                return won;
+            }));
+        }
+        start.countDown();
+        int totalWins = 0;
+        for (Future<Integer> win : wins) {
+            totalWins += win.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertTrue(totalWins > 0);
+        // Check what was committed, not just the in-memory index
+        DatabaseHelper reopened = new DatabaseHelper(context, DB_NAME);
+        try {
+            List<Reservation> stays = reopened.getBookingEngine().getReservations(room);
+            assertEquals(totalWins, stays.size());
+            for (int i = 1; i < stays.size(); i++) {
+                assertTrue(stays.get(i) + " overlaps " + stays.get(i - 1),
+                        stays.get(i - 1).getCheckOutDay() <= stays.get(i).getCheckInDay());
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void sameStayRequestedByManyGuestsHasOneWinner() throws Exception {
+        int room = roomIds.get(0);
+        int guests = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(guests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Reservation>> attempts = new ArrayList<>();
+        for (int g = 0; g < guests; g++) {
+            String guest = "Guest " + g;
+            attempts.add(pool.submit(() -> {
+                start.await();
+                return engine.book(room, DAY, DAY + 2, guest);
+            }));
+        }
+        start.countDown();
+        int winners = 0;
+        for (Future<Reservation> attempt : attempts) {
+            if (attempt.get(30, TimeUnit.SECONDS) != null) {
+                winners++;
+            }
+        }
+        pool.shutdown();
+        assertEquals(1, winners);
+    }
+
+    @Test
+    public void warmFreeRoomLookupTakesUnderAMillisecond() {
+        for (int i = 0; i < ROOMS; i++) {
+            for (int stay = 0; stay < 50; stay++) {
+                engine.book(roomIds.get(i), DAY + stay * 4, DAY + stay * 4 + 2, "Guest");
+            }
+        }
+        engine.getFreeRoomIds(HOTEL_ID, DAY, DAY + 1); // Loads the index
+
+        int lookups = 1000;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            int checkIn = DAY + i % 200;
+            engine.getFreeRoomIds(HOTEL_ID, checkIn, checkIn + 2);
+        }
+        long averageNanos = (System.nanoTime() - start) / lookups;
+        assertTrue("Average lookup took " + averageNanos + " ns", averageNanos < TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    public void hotelSearchUsesCapacityAndBookedNights() {
+        int today = DateUtils.today();
+        dbHelper.addHotel(new Hotel(2, "Hilltop Inn", "Kigali", 3, 90, DAY, true, "Family"));
+        int familyRoom = (int) dbHelper.addRoom(new Room(2, "1", "Family", 4, false, 0));
+        for (int room : roomIds) {
+            assertNotNull(engine.book(room, today, today + 3, "Group"));
+        }
+
+        assertArrayEquals(new int[]{2}, engine.getHotelIdsWithFreeRoom(today, today + 1, 1));
+        assertArrayEquals(new int[]{1, 2}, engine.getHotelIdsWithFreeRoom(today + 3, today + 4, 2));
+        assertArrayEquals(new int[]{2}, engine.getHotelIdsWithFreeRoom(today + 3, today + 4, 3));
+
+        assertNotNull(engine.book(familyRoom, today + 2, today + 5, "Family"));
+        assertArrayEquals(new int[0], engine.getHotelIdsWithFreeRoom(today + 2, today + 3, 1));
+        assertTrue(engine.isFullyBooked(HOTEL_ID, today, today + 1));
+        assertFalse(engine.isFullyBooked(HOTEL_ID, today + 3, today + 4));
+    }
+
+    @Test
+    public void bookedOutHotelsDoNotUseUpTheLimit() {
+        int today = DateUtils.today();
+        for (int hotelId = 2; hotelId <= 5; hotelId++) {
+            dbHelper.addHotel(new Hotel(hotelId, "Hotel " + hotelId, "Kigali", 3, 90, DAY, true, "Double"));
+            int room = (int) dbHelper.addRoom(new Room(hotelId, "1", "Double", 2, false, 0));
+            if (hotelId == 2) {
+                assertNotNull(engine.book(room, today, today + 2, "Guest"));
+            }
+        }
+        for (int room : roomIds) {
+            assertNotNull(engine.book(room, today, today + 2, "Group"));
+        }
+
+        // The first two candidates in check-in order are booked out
+        List<HotelSummary> available = dbHelper.getHotelSummariesAvailableFrom(today, 2, 2);
+        assertEquals(2, available.size());
+        assertEquals(3, available.get(0).getId());
+        assertEquals(4, available.get(1).getId());
+    }
+
+    @Test
+    public void bookedNightsAreSavedWithTheRoomAndRebuiltWhenMissing() {
+        int today = DateUtils.today();
+        for (int room : roomIds) {
+            assertNotNull(engine.book(room, today + 1, today + 3, "Guest"));
+        }
+
+        DatabaseHelper reopened = new DatabaseHelper(context, DB_NAME);
+        try {
+            assertArrayEquals(new int[0], reopened.getBookingEngine().getHotelIdsWithFreeRoom(today + 1, today + 2, 1));
+        } finally {
+            reopened.close();
+        }
+
+        // Rows rewritten by a catalogue sync lose their bitmap; their reservations still count
+        dbHelper.getWritableDatabase().execSQL("UPDATE " + DatabaseHelper.TABLE_ROOM + " SET "
+                + DatabaseHelper.ROOM_BOOKED_FROM_DAY + " = NULL, " + DatabaseHelper.ROOM_BOOKED_DAYS + " = NULL");
+        reopened = new DatabaseHelper(context, DB_NAME);
+        try {
+            BookingEngine rebuilt = reopened.getBookingEngine();
+            assertArrayEquals(new int[0], rebuilt.getHotelIdsWithFreeRoom(today + 1, today + 2, 1));
+            assertArrayEquals(new int[]{HOTEL_ID}, rebuilt.getHotelIdsWithFreeRoom(today + 3, today + 4, 1));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void staysBeyondTheBitmapWindowUseTheSchedules() {
+        int later = DateUtils.today() + 400;
+        for (int room : roomIds) {
+            assertNotNull(engine.book(room, later, later + 2, "Guest"));
+        }
+        assertArrayEquals(new int[0], engine.getHotelIdsWithFreeRoom(later, later + 1, 1));
+        assertArrayEquals(new int[]{HOTEL_ID}, engine.getHotelIdsWithFreeRoom(later + 2, later + 3, 1));
+        assertTrue(engine.isFullyBooked(HOTEL_ID, later + 1, later + 2));
+    }
+
+    @Test
+    public void missingDatesAreRejected() {
+        assertNull(engine.book(roomIds.get(0), DateUtils.NO_DATE, DAY, "A"));
+        assertEquals(Collections.emptyList(), engine.getReservations(-1));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Hammers getAllHotels() from several threads while full catalogue swaps run, and checks
+ * that every read returns one complete snapshot, never a mix or a half-filled table.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CatalogueSwapConcurrencyTest {
+
+    private static final String DB_NAME = "HotelBookingSwapTest.db";
+    private static final int CATALOGUE_SIZE = 500;
+    private static final int READERS = 4;
+    private static final int SWAPS = 20;
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+        assertTrue(dbHelper.replaceAllHotels(catalogue(0), new ArrayList<>()));
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void readersOnlyEverSeeCompleteSnapshots() throws Exception {
+        AtomicBoolean writerDone = new AtomicBoolean(false);
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch readersDone = new CountDownLatch(READERS);
+
+        for (int r = 0; r < READERS; r++) {
+            new Thread(() -> {
+                try {
+                    while (!writerDone.get() && failure.get() == null) {
+                        String problem = checkSnapshot(dbHelper.getAllHotels());
+                        if (problem != null) {
+                            failure.compareAndSet(null, problem);
+                        }
+                        reads.incrementAndGet();
+                    }
+                } finally {
+                    readersDone.countDown();
+                }
+            }).start();
+        }
+
+        for (int generation = 1; generation <= SWAPS; generation++) {
+            assertTrue(dbHelper.replaceAllHotels(catalogue(generation), new ArrayList<>()));
+        }
+        writerDone.set(true);
+        readersDone.await();
+
+        assertNull(failure.get(), failure.get());
+        assertTrue("Readers never ran", reads.get() > 0);
+        assertNull(checkSnapshot(dbHelper.getAllHotels()));
+    }
+
+    private static List<Hotel> catalogue(int generation) {
+        List<Hotel> hotels = new ArrayList<>(CATALOGUE_SIZE);
+        for (int i = 1; i <= CATALOGUE_SIZE; i++) {
+            hotels.add(new Hotel(i, "gen" + generation, "Kigali", 4, 100 + i, DateUtils.NO_DATE, true, "Suite"));
+        }
+        return hotels;
+    }
+
+    // Returns a description of what is wrong with the snapshot, or null if it is complete
+    private static String checkSnapshot(List<Hotel> hotels) {
+        if (hotels.size() != CATALOGUE_SIZE) {
+            return "Read " + hotels.size() + " hotels, expected " + CATALOGUE_SIZE;
+        }
+        String generation = hotels.get(0).getName();
+        for (Hotel hotel : hotels) {
+            if (!generation.equals(hotel.getName())) {
+                return "Mixed snapshot: " + generation + " and " + hotel.getName();
+            }
+        }
+        return null;
+    }
+}
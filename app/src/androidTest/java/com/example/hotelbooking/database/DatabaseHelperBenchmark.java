@@ -0,0 +1,212 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.HotelSummary;
+import com.example.hotelbooking.model.Room;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Database micro-benchmarks. Results are written to logcat under the "DbBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseHelperBenchmark {
+
+    private static final String TAG = "DbBenchmark";
+    private static final String DB_NAME = "HotelBookingBenchmark.db";
+    private static final int OPERATIONS = 10_000;
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void insertsAndPointReads_sharedVsReopened() {
+        double reopenedInserts = runInserts(true);
+        double sharedInserts = runInserts(false);
+        double reopenedReads = runPointReads(true);
+        double sharedReads = runPointReads(false);
+
+        Log.i(TAG, String.format("inserts/sec: reopened=%.0f shared=%.0f", reopenedInserts, sharedInserts));
+        Log.i(TAG, String.format("point reads/sec: reopened=%.0f shared=%.0f", reopenedReads, sharedReads));
+
+        assertEquals(2 * OPERATIONS, dbHelper.getHotelCount());
+    }
+
+    private double runInserts(boolean reopenEachCall) {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            dbHelper.addHotel(new Hotel("Hotel " + i, "Kigali", 4, 100 + i, DateUtils.NO_DATE, true, "Suite"));
+            if (reopenEachCall) {
+                // Reproduces the old behaviour of closing the database after every call
+                dbHelper.close();
+            }
+        }
+        return opsPerSecond(start);
+    }
+
+    private double runPointReads(boolean reopenEachCall) {
+        long start = System.nanoTime();
+        for (int i = 1; i <= OPERATIONS; i++) {
+            assertNotNull(dbHelper.getHotel(i));
+            if (reopenEachCall) {
+                dbHelper.close();
+            }
+        }
+        return opsPerSecond(start);
+    }
+
+    @Test
+    public void summaryProjectionVsFullRows() {
+        for (int rows : new int[]{5_000, 50_000}) {
+            List<Hotel> hotels = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                hotels.add(new Hotel("Hotel " + i, "Singapore", 1 + i % 5, 80 + i % 400,
+                        DateUtils.toEpochDay(2024, Calendar.JANUARY, 1), i % 2 == 0, "Double Room"));
+            }
+            assertTrue(dbHelper.replaceAllHotels(hotels, new ArrayList<>()));
+            hotels = null;
+
+            long heapBefore = usedHeap();
+            long start = System.nanoTime();
+            List<Hotel> fullRows = dbHelper.getAllHotels();
+            long fullMillis = (System.nanoTime() - start) / 1_000_000;
+            long fullHeap = usedHeap() - heapBefore;
+            assertEquals(rows, fullRows.size());
+            fullRows = null;
+
+            heapBefore = usedHeap();
+            start = System.nanoTime();
+            List<HotelSummary> summaries = dbHelper.getHotelSummaries();
+            long summaryMillis = (System.nanoTime() - start) / 1_000_000;
+            long summaryHeap = usedHeap() - heapBefore;
+            assertEquals(rows, summaries.size());
+
+            Log.i(TAG, String.format("%d rows: getAllHotels %d ms / %d KB, getHotelSummaries %d ms / %d KB",
+                    rows, fullMillis, fullHeap / 1024, summaryMillis, summaryHeap / 1024));
+        }
+    }
+
+    @Test
+    public void freeRoomSearch_bitmapsVsSqlJoin() {
+        int hotelCount = 10_000;
+        int roomsPerHotel = 20;
+        List<Hotel> hotels = new ArrayList<>(hotelCount);
+        List<Room> rooms = new ArrayList<>(hotelCount * roomsPerHotel);
+        for (int h = 1; h <= hotelCount; h++) {
+            hotels.add(new Hotel(h, "Hotel " + h, "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite"));
+            for (int r = 0; r < roomsPerHotel; r++) {
+                rooms.add(new Room(h, String.valueOf(100 + r), "Suite", 1 + r % 4, false, 0));
+            }
+        }
+        assertTrue(dbHelper.replaceAllHotels(hotels, rooms));
+
+        // Roughly half the rooms taken on random nights of the coming months, and every
+        // room of each tenth hotel taken for the nights the query asks about
+        int tomorrow = DateUtils.today() + 1;
+        Random random = new Random(42);
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + DatabaseHelper.TABLE_RESERVATION + " ("
+                + DatabaseHelper.RESERVATION_ROOM_ID + ", " + DatabaseHelper.RESERVATION_CHECK_IN_DAY + ", "
+                + DatabaseHelper.RESERVATION_CHECK_OUT_DAY + ") VALUES (?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int roomId = 1; roomId <= hotelCount * roomsPerHotel; roomId++) {
+                int hotelId = (roomId - 1) / roomsPerHotel + 1;
+                int checkIn = hotelId % 10 == 0 ? tomorrow : tomorrow + random.nextInt(90) - 2;
+                if (hotelId % 10 == 0 || random.nextBoolean()) {
+                    insert.bindLong(1, roomId);
+                    insert.bindLong(2, checkIn);
+                    insert.bindLong(3, checkIn + 1 + random.nextInt(5));
+                    insert.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+
+        BookingEngine engine = dbHelper.getBookingEngine();
+        long start = System.nanoTime();
+        int[] fromBitmaps = engine.getHotelIdsWithFreeRoom(tomorrow, tomorrow + 3, 2);
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+
+        int queries = 100;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            fromBitmaps = engine.getHotelIdsWithFreeRoom(tomorrow, tomorrow + 3, 2);
+        }
+        double bitmapMillis = (System.nanoTime() - start) / 1_000_000.0 / queries;
+
+        String join = "SELECT DISTINCT r." + DatabaseHelper.ROOM_HOTEL_ID + " FROM " + DatabaseHelper.TABLE_ROOM
+                + " r WHERE r." + DatabaseHelper.ROOM_CAPACITY + " >= ? AND NOT EXISTS (SELECT 1 FROM "
+                + DatabaseHelper.TABLE_RESERVATION + " s WHERE s." + DatabaseHelper.RESERVATION_ROOM_ID
+                + " = r." + DatabaseHelper.ROOM_ID + " AND s." + DatabaseHelper.RESERVATION_CHECK_IN_DAY
+                + " < ? AND s." + DatabaseHelper.RESERVATION_CHECK_OUT_DAY + " > ?) ORDER BY 1";
+        String[] args = {"2", String.valueOf(tomorrow + 3), String.valueOf(tomorrow)};
+        int joinQueries = 5;
+        List<Integer> fromJoin = new ArrayList<>();
+        start = System.nanoTime();
+        for (int i = 0; i < joinQueries; i++) {
+            fromJoin.clear();
+            try (Cursor cursor = db.rawQuery(join, args)) {
+                while (cursor.moveToNext()) {
+                    fromJoin.add(cursor.getInt(0));
+                }
+            }
+        }
+        double joinMillis = (System.nanoTime() - start) / 1_000_000.0 / joinQueries;
+
+        assertEquals(fromJoin.size(), fromBitmaps.length);
+        for (int i = 0; i < fromBitmaps.length; i++) {
+            assertEquals(fromJoin.get(i).intValue(), fromBitmaps[i]);
+        }
+        Log.i(TAG, String.format("%d hotels x %d rooms, %d with a free room: index load %d ms, "
+                        + "bitmap query %.2f ms, SQL join %.1f ms",
+                hotelCount, roomsPerHotel, fromBitmaps.length, loadMillis, bitmapMillis, joinMillis));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double opsPerSecond(long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return OPERATIONS / seconds;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the LRU order, byte budget and invalidation of the single-hotel cache.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HotelCacheTest {
+
+    private static final String DB_NAME = "HotelBookingCacheTest.db";
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOnceOverBudget() {
+        HotelCache cache = new HotelCache(2500);
+        cache.put(hotel(1, 1000), cache.generation());
+        cache.put(hotel(2, 1000), cache.generation());
+        assertNotNull(cache.get(1)); // 2 is now the least recently used
+
+        cache.put(hotel(3, 1000), cache.generation());
+
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(3));
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.getSizeBytes() <= 2500);
+    }
+
+    @Test
+    public void skipsEntriesLargerThanTheBudget() {
+        HotelCache cache = new HotelCache(2500);
+        cache.put(hotel(1, 4000), cache.generation());
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    public void dropsReadsThatRacedAnInvalidation() {
+        HotelCache cache = new HotelCache(2500);
+        long readGeneration = cache.generation();
+        cache.invalidate(HotelChange.updated(1));
+
+        cache.put(hotel(1, 10), readGeneration);
+
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    public void getHotelHitsCacheUntilTheRowChanges() {
+        dbHelper.addHotel(new Hotel(1, "Lakeside Inn", "Kigali", 4, 120, DateUtils.NO_DATE, true, "Suite"));
+        HotelCache cache = dbHelper.getHotelCache();
+
+        assertEquals("Lakeside Inn", dbHelper.getHotel(1).getName());
+        assertEquals("Lakeside Inn", dbHelper.getHotel(1).getName());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        dbHelper.updateHotel(new Hotel(1, "Hilltop Inn", "Kigali", 4, 120, DateUtils.NO_DATE, true, "Suite"));
+        assertEquals("Hilltop Inn", dbHelper.getHotel(1).getName());
+
+        dbHelper.deleteHotel(1);
+        assertNull(dbHelper.getHotel(1));
+    }
+
+    @Test
+    public void callersCannotModifyCachedRows() {
+        dbHelper.addHotel(new Hotel(1, "Lakeside Inn", "Kigali", 4, 120, DateUtils.NO_DATE, true, "Suite"));
+        dbHelper.getHotel(1).setName("Changed by caller");
+        assertEquals("Lakeside Inn", dbHelper.getHotel(1).getName());
+    }
+
+    private static Hotel hotel(int id, int imageBytes) {
+        Hotel hotel = new Hotel(id, "Hotel " + id, "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite");
+        hotel.setImage(new byte[imageBytes]);
+        return hotel;
+    }
+}
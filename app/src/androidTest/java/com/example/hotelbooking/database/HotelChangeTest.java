@@ -0,0 +1,110 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that writes publish the ids they touched, so screens can update just those rows.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HotelChangeTest {
+
+    private static final String DB_NAME = "HotelBookingChangeTest.db";
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+    private final LinkedBlockingQueue<HotelChange> changes = new LinkedBlockingQueue<>();
+    private final DatabaseHelper.OnHotelsChangedListener listener = changes::add;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+        for (int id = 1; id <= 10; id++) {
+            dbHelper.addHotel(hotel(id, "Hotel " + id));
+        }
+        dbHelper.addOnHotelsChangedListener(listener);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.removeOnHotelsChangedListener(listener);
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void singleRowWritesPublishTheirId() throws Exception {
+        dbHelper.addHotel(hotel(11, "New"));
+        assertArrayEquals(new int[]{11}, nextChange().getInsertedIds());
+
+        dbHelper.updateHotel(hotel(3, "Renamed"));
+        assertArrayEquals(new int[]{3}, nextChange().getUpdatedIds());
+
+        dbHelper.deleteHotel(4);
+        assertArrayEquals(new int[]{4}, nextChange().getDeletedIds());
+    }
+
+    @Test
+    public void deltaSyncPublishesChangedIdsOnly() throws Exception {
+        List<Hotel> server = new ArrayList<>();
+        for (int id = 1; id <= 9; id++) {
+            server.add(hotel(id, id == 2 ? "Changed" : "Hotel " + id));
+        }
+        server.add(hotel(12, "Added"));
+
+        assertNotNull(dbHelper.syncHotels(server));
+
+        HotelChange change = nextChange();
+        assertFalse(change.isReset());
+        assertArrayEquals(new int[]{12}, change.getInsertedIds());
+        assertArrayEquals(new int[]{2}, change.getUpdatedIds());
+        assertArrayEquals(new int[]{10}, change.getDeletedIds());
+    }
+
+    @Test
+    public void syncWithoutChangesPublishesNothing() throws Exception {
+        List<Hotel> server = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) {
+            server.add(hotel(id, "Hotel " + id));
+        }
+
+        assertNotNull(dbHelper.syncHotels(server));
+        assertNull(changes.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void bulkWritesPublishReset() throws Exception {
+        dbHelper.replaceAllHotels(Arrays.asList(hotel(1, "Only")), new ArrayList<>());
+        assertTrue(nextChange().isReset());
+    }
+
+    private HotelChange nextChange() throws InterruptedException {
+        HotelChange change = changes.poll(5, TimeUnit.SECONDS);
+        assertNotNull("No change was published", change);
+        return change;
+    }
+
+    private static Hotel hotel(int id, String name) {
+        return new Hotel(id, name, "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite");
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.HotelSummary;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Walks every sort order forwards and then backwards by keyset, the way a bounded list
+ * reloads the pages it dropped, and checks both walks see the same rows in the same order.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HotelPagingTest {
+
+    private static final String DB_NAME = "HotelBookingPagingTest.db";
+    private static final int HOTELS = 40;
+    private static final int PAGE_SIZE = 7;
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+
+        List<Hotel> hotels = new ArrayList<>();
+        for (int id = 1; id <= HOTELS; id++) {
+            // Few distinct prices and ratings, so pages often break inside a run of ties
+            hotels.add(new Hotel(id, "Hotel " + id, "Kigali", 1 + id % 3, 100 + 10 * (id % 4),
+                    DateUtils.NO_DATE, true, "Suite"));
+        }
+        assertTrue(dbHelper.replaceAllHotels(hotels, new ArrayList<>()));
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void pagesBeforeMatchPagesAfter() {
+        for (HotelSortKey sortKey : HotelSortKey.values()) {
+            List<HotelSummary> forward = new ArrayList<>();
+            List<HotelSummary> page = dbHelper.getHotelSummaryPage(sortKey, null, PAGE_SIZE);
+            while (!page.isEmpty()) {
+                forward.addAll(page);
+                page = dbHelper.getHotelSummaryPage(sortKey, page.get(page.size() - 1), PAGE_SIZE);
+            }
+            assertEquals(sortKey.name(), HOTELS, forward.size());
+
+            List<HotelSummary> backward = new ArrayList<>();
+            backward.add(forward.get(forward.size() - 1));
+            page = dbHelper.getHotelSummaryPageBefore(sortKey, backward.get(0), PAGE_SIZE);
+            while (!page.isEmpty()) {
+                assertTrue(sortKey.name(), page.size() <= PAGE_SIZE);
+                backward.addAll(0, page);
+                page = dbHelper.getHotelSummaryPageBefore(sortKey, page.get(0), PAGE_SIZE);
+            }
+
+            assertEquals(sortKey.name(), ids(forward), ids(backward));
+        }
+    }
+
+    private static List<Integer> ids(List<HotelSummary> summaries) {
+        List<Integer> ids = new ArrayList<>(summaries.size());
+        for (HotelSummary summary : summaries) {
+            ids.add(summary.getId());
+        }
+        return ids;
+    }
+}
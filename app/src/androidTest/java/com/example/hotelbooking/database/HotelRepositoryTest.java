@@ -0,0 +1,123 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.Room;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that repository work runs off the main thread and results come back on it,
+ * failures included.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HotelRepositoryTest {
+
+    private static final String DB_NAME = "HotelBookingRepositoryTest.db";
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+    private HotelRepository repository;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+        repository = new HotelRepository(dbHelper);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void callbacksRunOnMainThread() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean onMain = new AtomicBoolean();
+        repository.getHotelCount(count -> {
+            onMain.set(Looper.myLooper() == Looper.getMainLooper());
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(onMain.get());
+    }
+
+    @Test
+    public void readSubmittedFromWriteCallbackSeesTheWrite() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Hotel> saved = new AtomicReference<>();
+        Room room = new Room(0, "101", "Suite", 2, true, 0.0);
+        Hotel hotel = new Hotel("Lakeside Inn", "Kigali", 4, 120, DateUtils.NO_DATE, true, "Suite");
+
+        repository.addHotel(hotel, Collections.singletonList(room), hotelId ->
+                repository.getHotel(hotelId.intValue(), result -> {
+                    saved.set(result);
+                    done.countDown();
+                }));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNotNull(saved.get());
+        assertEquals("Lakeside Inn", saved.get().getName());
+        assertEquals(1, dbHelper.getRoomsByHotelId(saved.get().getId()).size());
+    }
+
+    @Test
+    public void writesApplyInSubmissionOrder() throws Exception {
+        repository.addHotel(new Hotel(1, "First", "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite"), null, null);
+        repository.updateHotel(new Hotel(1, "Second", "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite"), null);
+        repository.deleteHotel(1, null);
+        long id = repository.addHotel(new Hotel(2, "Third", "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite"), null, null)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, id);
+        assertNull(dbHelper.getHotel(1));
+        assertEquals(1, dbHelper.getHotelCount());
+    }
+
+    @Test
+    public void failedTaskStillCallsBack() throws Exception {
+        HotelRepository failing = new HotelRepository(new DatabaseHelper(context, DB_NAME) {
+            @Override
+            public int getHotelCount() {
+                throw new IllegalStateException("Broken database");
+            }
+        });
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Integer> delivered = new AtomicReference<>(-1);
+        Future<Integer> future = failing.getHotelCount(count -> {
+            delivered.set(count);
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNull(delivered.get());
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Future succeeded");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.HotelSummary;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the full-text index follows every write path and ranks name matches first.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HotelSearchTest {
+
+    private static final String TAG = "HotelSearchTest";
+    private static final String DB_NAME = "HotelBookingSearchTest.db";
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void matchQueryDropsOperatorsAndPunctuation() {
+        assertEquals("grand* hotel*", HotelSearchIndex.toMatchQuery("  Grand \"Hotel\"  "));
+        assertEquals("kigali* or* rubavu*", HotelSearchIndex.toMatchQuery("Kigali OR Rubavu-"));
+        assertNull(HotelSearchIndex.toMatchQuery("*()\" "));
+    }
+
+    @Test
+    public void prefixMatchesRankNameAboveLocation() {
+        dbHelper.addHotel(new Hotel(1, "Lakeside Inn", "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite"));
+        dbHelper.addHotel(new Hotel(2, "Kigali Grand", "Musanze", 5, 200, DateUtils.NO_DATE, true, "Suite"));
+        dbHelper.addHotel(new Hotel(3, "Hill View", "Huye", 3, 80, DateUtils.NO_DATE, true, "Single"));
+
+        assertEquals(Arrays.asList(2, 1), ids(dbHelper.searchHotelSummaries("kig", 10)));
+        assertEquals(Arrays.asList(2), ids(dbHelper.searchHotelSummaries("gran kig", 10)));
+        assertTrue(dbHelper.searchHotelSummaries("nowhere", 10).isEmpty());
+    }
+
+    @Test
+    public void indexFollowsUpdatesDeletesAndSync() {
+        dbHelper.addHotel(new Hotel(1, "Lakeside Inn", "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite"));
+        dbHelper.addHotel(new Hotel(2, "Hill View", "Huye", 3, 80, DateUtils.NO_DATE, true, "Single"));
+
+        dbHelper.updateHotel(new Hotel(1, "Riverside Inn", "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite"));
+        assertTrue(dbHelper.searchHotelSummaries("lakeside", 10).isEmpty());
+        assertEquals(Arrays.asList(1), ids(dbHelper.searchHotelSummaries("river", 10)));
+
+        dbHelper.deleteHotel(2);
+        assertTrue(dbHelper.searchHotelSummaries("hill", 10).isEmpty());
+
+        List<Hotel> server = new ArrayList<>();
+        server.add(new Hotel(5, "Sunset Lodge", "Rubavu", 4, 150, DateUtils.NO_DATE, true, "Double"));
+        assertNotNull(dbHelper.syncHotels(server));
+        assertTrue(dbHelper.searchHotelSummaries("river", 10).isEmpty());
+        assertEquals(Arrays.asList(5), ids(dbHelper.searchHotelSummaries("sun rub", 10)));
+    }
+
+    @Test
+    public void searchStaysFastOnLargeCatalogue() {
+        List<Hotel> hotels = new ArrayList<>();
+        for (int i = 1; i <= 30_000; i++) {
+            hotels.add(new Hotel(i, "Hotel " + i, i % 10 == 0 ? "Singapore" : "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite"));
+        }
+        assertTrue(dbHelper.replaceAllHotels(hotels, new ArrayList<>()));
+
+        long start = System.nanoTime();
+        List<HotelSummary> results = dbHelper.searchHotelSummaries("singa", 200);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        Log.i(TAG, "Searched 30000 hotels in " + millis + " ms");
+
+        assertEquals(200, results.size());
+        assertEquals("Singapore", results.get(0).getLocation());
+    }
+
+    private static List<Integer> ids(List<HotelSummary> summaries) {
+        List<Integer> ids = new ArrayList<>();
+        for (HotelSummary summary : summaries) {
+            ids.add(summary.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a sync fed in batches ends in the same state as a one-shot sync, and
+ * that a failed batch or an incomplete list never leads to deletions.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HotelSyncSessionTest {
+
+    private static final String DB_NAME = "HotelBookingSyncSessionTest.db";
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+    private HotelRepository repository;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+        repository = new HotelRepository(dbHelper);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void batchedSyncAppliesInsertsUpdatesAndDeletes() throws Exception {
+        List<Hotel> local = new ArrayList<>();
+        for (int id = 1; id <= 300; id++) {
+            local.add(hotel(id, 100));
+        }
+        assertTrue(dbHelper.replaceAllHotels(local, new ArrayList<>()));
+
+        // 1..250 stay, every tenth of them with a new price; 251..300 go; 401..450 are new
+        List<Hotel> server = new ArrayList<>();
+        for (int id = 1; id <= 250; id++) {
+            server.add(hotel(id, id % 10 == 0 ? 120 : 100));
+        }
+        for (int id = 401; id <= 450; id++) {
+            server.add(hotel(id, 90));
+        }
+
+        SyncResult result = syncInBatches(server, 64);
+        assertNotNull(result);
+        assertEquals(50, result.getInserted());
+        assertEquals(25, result.getUpdated());
+        assertEquals(50, result.getDeleted());
+        assertEquals(225, result.getUnchanged());
+
+        assertEquals(300, dbHelper.getHotelCount());
+        assertEquals(120, dbHelper.getHotel(10).getPrice(), 0);
+        assertNull(dbHelper.getHotel(251));
+        assertNotNull(dbHelper.getHotel(450));
+
+        // The same list again changes nothing
+        SyncResult again = syncInBatches(server, 64);
+        assertFalse(again.hasChanges());
+    }
+
+    @Test
+    public void firstOccurrenceOfADuplicateIdWins() throws Exception {
+        SyncResult result = syncInBatches(Arrays.asList(hotel(1, 100), hotel(2, 100), hotel(1, 500)), 2);
+        assertEquals(2, result.getInserted());
+        assertEquals(100, dbHelper.getHotel(1).getPrice(), 0);
+    }
+
+    @Test
+    public void failedBatchDeletesNothing() throws Exception {
+        assertTrue(dbHelper.replaceAllHotels(Collections.singletonList(hotel(7, 100)), new ArrayList<>()));
+
+        HotelSyncSession session = repository.beginSync();
+        repository.applySyncBatch(session, Collections.singletonList(hotel(1, 100)));
+        // NOT NULL on the name rolls this batch back
+        Hotel broken = new Hotel(2, null, "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite");
+        repository.applySyncBatch(session, Collections.singletonList(broken));
+        repository.applySyncBatch(session, Collections.singletonList(hotel(3, 100)));
+
+        assertNull(repository.finishSync(session, null).get(5, TimeUnit.SECONDS));
+        // The first batch committed; nothing after the failure was written or deleted
+        assertNotNull(dbHelper.getHotel(1));
+        assertNull(dbHelper.getHotel(3));
+        assertNotNull(dbHelper.getHotel(7));
+    }
+
+    @Test
+    public void incompleteListDeletesNothing() throws Exception {
+        assertTrue(dbHelper.replaceAllHotels(Arrays.asList(hotel(1, 100), hotel(2, 100)), new ArrayList<>()));
+
+        HotelSyncSession session = repository.beginSync();
+        repository.applySyncBatch(session, Arrays.asList(hotel(1, 120), hotel(3, 100)));
+        SyncResult result = repository.finishSync(session, false, null).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(0, result.getDeleted());
+        // Possibly just skipped by a shifting page, so it stays until a complete sync
+        assertNotNull(dbHelper.getHotel(2));
+    }
+
+    private SyncResult syncInBatches(List<Hotel> server, int batchSize) throws Exception {
+        HotelSyncSession session = repository.beginSync();
+        for (int from = 0; from < server.size(); from += batchSize) {
+            List<Hotel> batch = new ArrayList<>(server.subList(from, Math.min(server.size(), from + batchSize)));
+            repository.applySyncBatch(session, batch);
+        }
+        return repository.finishSync(session, null).get(5, TimeUnit.SECONDS);
+    }
+
+    private static Hotel hotel(int id, double price) {
+        return new Hotel(id, "Hotel " + id, "Kigali", 4, price, DateUtils.NO_DATE, true, "Suite");
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.LocationStats;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the maintained per-location stats always equal an aggregate computed
+ * from the hotels table, whichever write path changed the rows.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocationStatsTest {
+
+    private static final String DB_NAME = "HotelBookingStatsTest.db";
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void singleRowWritesKeepStatsCurrent() {
+        dbHelper.addHotel(hotel(1, "Kigali", 120, true));
+        dbHelper.addHotel(hotel(2, "Kigali", 80, false));
+        dbHelper.addHotel(hotel(3, "Singapore", 200, true));
+        assertStats(new LocationStats("Kigali", 2, 1, 80), new LocationStats("Singapore", 1, 1, 200));
+
+        // Removing the cheapest hotel looks the lowest price up again
+        dbHelper.deleteHotel(2);
+        assertStats(new LocationStats("Kigali", 1, 1, 120), new LocationStats("Singapore", 1, 1, 200));
+
+        // Moving a hotel updates both locations; the emptied one disappears
+        dbHelper.updateHotel(hotel(3, "Kigali", 150, false));
+        assertStats(new LocationStats("Kigali", 2, 1, 120));
+        assertStatsMatchHotels();
+
+        dbHelper.deleteAllHotels();
+        assertTrue(dbHelper.getLocationStats().isEmpty());
+    }
+
+    @Test
+    public void bulkWritesAndSyncKeepStatsCurrent() {
+        List<Hotel> catalogue = new ArrayList<>();
+        for (int id = 1; id <= 200; id++) {
+            catalogue.add(hotel(id, id % 3 == 0 ? "Singapore" : "Kigali", 50 + id, id % 2 == 0));
+        }
+        assertTrue(dbHelper.replaceAllHotels(catalogue, new ArrayList<>()));
+        assertStatsMatchHotels();
+
+        List<Hotel> server = new ArrayList<>();
+        for (int id = 1; id <= 180; id++) {
+            // Prices drop in one city and availability flips in the other
+            server.add(id % 3 == 0
+                    ? hotel(id, "Singapore", 10 + id, id % 2 == 0)
+                    : hotel(id, "Kigali", 50 + id, id % 2 != 0));
+        }
+        server.add(hotel(500, "Nairobi", 70, true));
+        assertNotNull(dbHelper.syncHotels(server));
+        assertStatsMatchHotels();
+
+        assertTrue(dbHelper.upsertHotels(catalogue, new ArrayList<>()));
+        assertStatsMatchHotels();
+    }
+
+    private void assertStats(LocationStats... expected) {
+        List<LocationStats> actual = dbHelper.getLocationStats();
+        assertEquals(actual.toString(), expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].toString(), actual.get(i).toString());
+        }
+    }
+
+    private void assertStatsMatchHotels() {
+        List<String> expected = new ArrayList<>();
+        try (Cursor cursor = dbHelper.getReadableDatabase().rawQuery("SELECT location, COUNT(*),"
+                + " SUM(available = 1), MIN(price) FROM hotels GROUP BY location"
+                + " ORDER BY COUNT(*) DESC, location", null)) {
+            while (cursor.moveToNext()) {
+                expected.add(new LocationStats(cursor.getString(0), cursor.getInt(1),
+                        cursor.getInt(2), cursor.getDouble(3)).toString());
+            }
+        }
+        List<String> actual = new ArrayList<>();
+        for (LocationStats stats : dbHelper.getLocationStats()) {
+            actual.add(stats.toString());
+        }
+        assertEquals(expected, actual);
+    }
+
+    private static Hotel hotel(int id, String location, double price, boolean available) {
+        return new Hotel(id, "Hotel " + id, location, 4, price, DateUtils.NO_DATE, available, "Suite");
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.hotelbooking.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.LocationStats;
+import com.example.hotelbooking.model.Room;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Creates a database with each historical schema, fills it, and checks that opening it
+ * with the current DatabaseHelper keeps every hotel and room.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String DB_NAME = "HotelBookingMigrationTest.db";
+    private static final int FIRST_VERSION = SchemaMigrations.OLDEST_MIGRATABLE_VERSION;
+    private static final int LAST_HISTORICAL_VERSION = 12;
+
+    // Older versions stored "Mon 01 Jan 2024" as text
+    private static final int CHECK_IN_DAY = DateUtils.toEpochDay(2024, Calendar.JANUARY, 1);
+
+    private static final byte[] IMAGE = new byte[700 * 1024]; // Larger than one read chunk
+
+    static {
+        for (int i = 0; i < IMAGE.length; i++) {
+            IMAGE[i] = (byte) (i * 31);
+        }
+    }
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        if (dbHelper != null) {
+            dbHelper.close();
+        }
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void everyHistoricalVersionMigratesWithoutDataLoss() {
+        for (int version = FIRST_VERSION; version <= LAST_HISTORICAL_VERSION; version++) {
+            context.deleteDatabase(DB_NAME);
+            createHistoricalDatabase(version);
+
+            dbHelper = new DatabaseHelper(context, DB_NAME);
+            String from = "from version " + version;
+
+            Hotel hotel = dbHelper.getHotel(7);
+            assertNotNull(from, hotel);
+            assertEquals(from, "Lakeside Inn", hotel.getName());
+            assertEquals(from, "Kigali", hotel.getLocation());
+            assertEquals(from, 120.0, hotel.getPrice(), 0);
+            assertTrue(from, hotel.isAvailable());
+            assertEquals(from, CHECK_IN_DAY, hotel.getCheckInDay());
+            if (version <= 5) {
+                assertArrayEquals(from, IMAGE, hotel.getImage());
+            }
+
+            List<Room> rooms = dbHelper.getRoomsByHotelId(7);
+            assertEquals(from, 1, rooms.size());
+            assertEquals(from, "101", rooms.get(0).getRoomNumber());
+
+            assertEquals(from, 1, dbHelper.searchHotelSummaries("lake", 10).size());
+            List<LocationStats> stats = dbHelper.getLocationStats();
+            assertEquals(from, 1, stats.size());
+            assertEquals(from, "Kigali", stats.get(0).getLocation());
+            assertEquals(from, 1, stats.get(0).getHotelCount());
+            assertEquals(from, 120.0, stats.get(0).getMinPrice(), 0);
+            assertEquals(from, 1, dbHelper.getHotelSummariesAvailableFrom(CHECK_IN_DAY, 1, 10).size());
+            assertEquals(from, 0, dbHelper.getHotelSummariesAvailableFrom(CHECK_IN_DAY - 1, 1, 10).size());
+
+            // Reservations made before the upgrade count against the new room bitmaps
+            int today = DateUtils.today();
+            assertEquals(from, version >= 10 ? 0 : 1,
+                    dbHelper.getBookingEngine().getHotelIdsWithFreeRoom(today, today + 1, 1).length);
+            assertEquals(from, 1, dbHelper.getBookingEngine().getHotelIdsWithFreeRoom(today + 2, today + 3, 1).length);
+
+            // Booking the only room takes the hotel out of the results for those nights
+            assertNotNull(from, dbHelper.getBookingEngine()
+                    .book(rooms.get(0).getId(), CHECK_IN_DAY, CHECK_IN_DAY + 2, "Guest"));
+            assertEquals(from, 0, dbHelper.getHotelSummariesAvailableFrom(CHECK_IN_DAY, 1, 10).size());
+
+            assertTrue(from, hasIndex(DatabaseHelper.INDEX_RESERVATIONS_DAYS));
+
+            // Content hashes must be valid, or the next sync would rewrite every row
+            SyncResult result = dbHelper.syncHotels(Collections.singletonList(serverCopy(version)));
+            assertNotNull(from, result);
+            assertEquals(from, 1, result.getUnchanged());
+            assertFalse(from, result.hasChanges());
+
+            dbHelper.close();
+            dbHelper = null;
+        }
+    }
+
+    @Test
+    public void searchIndexFollowsEditsAfterTableRebuild() {
+        createHistoricalDatabase(8);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+
+        // The 8 -> 9 rebuild drops the search triggers with the old table
+        Hotel hotel = dbHelper.getHotel(7);
+        hotel.setName("Hilltop Inn");
+        assertEquals(1, dbHelper.updateHotel(hotel));
+
+        assertEquals(0, dbHelper.searchHotelSummaries("lake", 10).size());
+        assertEquals(1, dbHelper.searchHotelSummaries("hilltop", 10).size());
+    }
+
+    @Test
+    public void unknownOldVersionIsRecreatedEmpty() {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(DB_NAME), null);
+        db.execSQL("CREATE TABLE hotels (id INTEGER PRIMARY KEY, name TEXT)");
+        db.execSQL("INSERT INTO hotels VALUES (1, 'Legacy')");
+        db.setVersion(FIRST_VERSION - 1);
+        db.close();
+
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+        assertEquals(0, dbHelper.getHotelCount());
+        assertTrue(dbHelper.addHotel(new Hotel("New", "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite")) > 0);
+    }
+
+    // Builds the tables exactly as the given released version created them
+    private void createHistoricalDatabase(int version) {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(DB_NAME), null);
+        db.execSQL("CREATE TABLE hotels(id INTEGER PRIMARY KEY AUTOINCREMENT,name TEXT NOT NULL,"
+                + "location TEXT NOT NULL,rating INTEGER,price REAL,"
+                + (version <= 8 ? "check_in_date TEXT" : "check_in_day INTEGER") + ",available INTEGER,"
+                + "room_type TEXT,"
+                + (version <= 5 ? "image BLOB" : "image_key TEXT")
+                + (version >= 4 ? ",image_url TEXT" : "")
+                + (version >= 5 ? ",content_hash INTEGER" : "")
+                + ")");
+        db.execSQL("CREATE TABLE rooms(id INTEGER PRIMARY KEY AUTOINCREMENT,hotel_id INTEGER,"
+                + "room_number TEXT NOT NULL,room_type TEXT,capacity INTEGER,has_balcony INTEGER,"
+                + "additional_price REAL,"
+                + (version >= 11 ? "booked_from_day INTEGER,booked_days BLOB," : "")
+                + "FOREIGN KEY(hotel_id) REFERENCES hotels(id) ON DELETE CASCADE)");
+        if (version >= 7) {
+            db.execSQL("CREATE INDEX idx_rooms_hotel_id ON rooms(hotel_id)");
+            db.execSQL("CREATE INDEX idx_hotels_location ON hotels(location, price)");
+            db.execSQL("CREATE INDEX idx_hotels_price ON hotels(price)");
+            db.execSQL("CREATE INDEX idx_hotels_rating ON hotels(rating DESC)");
+        }
+        if (version >= 9) {
+            db.execSQL("CREATE INDEX idx_hotels_check_in ON hotels(available, check_in_day)");
+        }
+        if (version >= 10) {
+            db.execSQL("CREATE TABLE reservations(id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + "room_id INTEGER NOT NULL,check_in_day INTEGER NOT NULL,check_out_day INTEGER NOT NULL,"
+                    + "guest_name TEXT,FOREIGN KEY(room_id) REFERENCES rooms(id) ON DELETE CASCADE)");
+            db.execSQL("CREATE TRIGGER rooms_reservations_ad AFTER DELETE ON rooms"
+                    + " BEGIN DELETE FROM reservations WHERE room_id = old.id; END");
+            db.execSQL("CREATE INDEX idx_reservations_room ON reservations(room_id, check_in_day)");
+        }
+        if (version >= 12) {
+            db.execSQL("CREATE TABLE location_stats(location TEXT PRIMARY KEY,hotel_count INTEGER NOT NULL,"
+                    + "available_count INTEGER NOT NULL,min_price REAL)");
+            db.execSQL("CREATE TRIGGER location_stats_ai AFTER INSERT ON hotels BEGIN"
+                    + " INSERT OR IGNORE INTO location_stats(location, hotel_count, available_count)"
+                    + " VALUES(new.location, 0, 0); UPDATE location_stats SET hotel_count = hotel_count + 1,"
+                    + " available_count = available_count + (new.available IS 1), min_price = CASE WHEN"
+                    + " min_price IS NULL OR new.price < min_price THEN new.price ELSE min_price END"
+                    + " WHERE location = new.location; END");
+            db.execSQL("CREATE TRIGGER location_stats_ad AFTER DELETE ON hotels BEGIN"
+                    + " UPDATE location_stats SET hotel_count = hotel_count - 1,"
+                    + " available_count = available_count - (old.available IS 1), min_price = CASE WHEN"
+                    + " old.price > min_price THEN min_price ELSE (SELECT MIN(price) FROM hotels"
+                    + " WHERE location = old.location) END WHERE location = old.location;"
+                    + " DELETE FROM location_stats WHERE location = old.location AND hotel_count <= 0; END");
+            db.execSQL("CREATE TRIGGER location_stats_au AFTER UPDATE OF location, price, available ON hotels BEGIN"
+                    + " UPDATE location_stats SET hotel_count = hotel_count - 1,"
+                    + " available_count = available_count - (old.available IS 1), min_price = CASE WHEN"
+                    + " old.price > min_price THEN min_price ELSE (SELECT MIN(price) FROM hotels"
+                    + " WHERE location = old.location) END WHERE location = old.location;"
+                    + " DELETE FROM location_stats WHERE location = old.location AND hotel_count <= 0;"
+                    + " INSERT OR IGNORE INTO location_stats(location, hotel_count, available_count)"
+                    + " VALUES(new.location, 0, 0); UPDATE location_stats SET hotel_count = hotel_count + 1,"
+                    + " available_count = available_count + (new.available IS 1), min_price = CASE WHEN"
+                    + " min_price IS NULL OR new.price < min_price THEN new.price ELSE min_price END"
+                    + " WHERE location = new.location; END");
+        }
+        if (version >= 8) {
+            db.execSQL("CREATE VIRTUAL TABLE hotels_fts USING fts4(name, location, content=\"hotels\")");
+            db.execSQL("CREATE TRIGGER hotels_fts_ai AFTER INSERT ON hotels BEGIN INSERT INTO"
+                    + " hotels_fts(docid, name, location) VALUES(new.id, new.name, new.location); END");
+            db.execSQL("CREATE TRIGGER hotels_fts_bd BEFORE DELETE ON hotels BEGIN INSERT INTO"
+                    + " hotels_fts(hotels_fts, docid, name, location)"
+                    + " VALUES('delete', old.id, old.name, old.location); END");
+            db.execSQL("CREATE TRIGGER hotels_fts_bu BEFORE UPDATE OF name, location, id ON hotels"
+                    + " BEGIN INSERT INTO hotels_fts(hotels_fts, docid, name, location)"
+                    + " VALUES('delete', old.id, old.name, old.location); END");
+            db.execSQL("CREATE TRIGGER hotels_fts_au AFTER UPDATE OF name, location, id ON hotels"
+                    + " BEGIN INSERT INTO hotels_fts(docid, name, location)"
+                    + " VALUES(new.id, new.name, new.location); END");
+        }
+
+        ContentValues hotel = new ContentValues();
+        hotel.put("id", 7);
+        hotel.put("name", "Lakeside Inn");
+        hotel.put("location", "Kigali");
+        hotel.put("rating", 4);
+        hotel.put("price", 120.0);
+        if (version <= 8) {
+            hotel.put("check_in_date", "Mon 01 Jan 2024");
+        } else {
+            hotel.put("check_in_day", CHECK_IN_DAY);
+        }
+        hotel.put("available", 1);
+        hotel.put("room_type", "Suite");
+        if (version <= 5) {
+            hotel.put("image", IMAGE);
+        }
+        if (version == 5) {
+            hotel.put("content_hash", 12345L); // Computed by the old hash function
+        } else if (version >= 6) {
+            hotel.put("content_hash", HotelSyncEngine.contentHash(serverCopy(version)));
+        }
+        db.insertOrThrow("hotels", null, hotel);
+
+        ContentValues room = new ContentValues();
+        room.put("hotel_id", 7);
+        room.put("room_number", "101");
+        room.put("room_type", "Suite");
+        room.put("capacity", 2);
+        room.put("has_balcony", 1);
+        room.put("additional_price", 20.0);
+        long roomId = db.insertOrThrow("rooms", null, room);
+
+        if (version >= 10) {
+            ContentValues reservation = new ContentValues();
+            reservation.put("room_id", roomId);
+            reservation.put("check_in_day", DateUtils.today());
+            reservation.put("check_out_day", DateUtils.today() + 2);
+            reservation.put("guest_name", "Guest");
+            db.insertOrThrow("reservations", null, reservation);
+        }
+
+        db.setVersion(version);
+        db.close();
+    }
+
+    private boolean hasIndex(String name) {
+        try (Cursor cursor = dbHelper.getReadableDatabase().rawQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'index' AND name = ?", new String[]{name})) {
+            return cursor.moveToFirst();
+        }
+    }
+
+    // The same hotel as the server would send it after the upgrade
+    private static Hotel serverCopy(int version) {
+        Hotel hotel = new Hotel(7, "Lakeside Inn", "Kigali", 4, 120.0, CHECK_IN_DAY, true, "Suite");
+        if (version <= 5) {
+            hotel.setImage(Arrays.copyOf(IMAGE, IMAGE.length));
+        }
+        return hotel;
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.HotelSummary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+import static org.junit.Assert.*;
+
+/**
+ * Runs EXPLAIN QUERY PLAN over every DAO query, built from the same SQL_ constants and
+ * *Sql builders the DAO code runs, and fails when one of them falls back to a full table
+ * scan or a temporary sort. A SQL_ constant or builder without a case below fails the
+ * test as well, so a new query cannot skip its plan check.
+ * <p>
+ * Queries that read the whole table on purpose (full listings, the sync hash load) are
+ * only checked for sorting, and so are the ones that walk the primary key with a LIMIT:
+ * SQLite reports those as a plain SCAN even though they stop after a few rows.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+
+    private static final String DB_NAME = "HotelBookingPlanTest.db";
+
+    // Where the DAO queries live; each SQL_ constant and *Sql builder in them needs a case
+    private static final Class<?>[] DAO_CLASSES = {DatabaseHelper.class, HotelStatements.class,
+            HotelSyncEngine.class, HotelSearchIndex.class, LocationStatsTable.class, BookingEngine.class,
+            AvailabilityIndex.class};
+
+    // Older SQLite versions print "SCAN TABLE hotels", newer ones "SCAN hotels"
+    private static final Pattern FULL_SCAN =
+            Pattern.compile("^SCAN (TABLE )?(" + TABLE_HOTEL + "|" + TABLE_ROOM + "|" + TABLE_RESERVATION
+                    + ")\\b(?!.*USING)");
+    // An FTS table walked without its full-text index reports index number 0
+    private static final Pattern FTS_FULL_SCAN = Pattern.compile("VIRTUAL TABLE INDEX 0:");
+    private static final Pattern TEMP_SORT = Pattern.compile("USE TEMP B-TREE");
+
+    private static final HotelSummary LAST_ROW =
+            new HotelSummary(42, "Hotel", "Kigali", 4, 120.0, null, null);
+    private static final String[] THREE_IDS = {"1", "2", "3"};
+
+    private static final Map<String, PlanCase> SEEKS = new LinkedHashMap<>();
+    private static final Map<String, PlanCase> FULL_READS = new LinkedHashMap<>();
+    private static final Map<String, PlanCase> SMALL_TABLE_READS = new LinkedHashMap<>();
+
+    static {
+        seek("SQL_HOTEL_BY_ID", SQL_HOTEL_BY_ID, null, "1");
+        seek("SQL_SUMMARIES_BY_IDS", String.format(SQL_SUMMARIES_BY_IDS, placeholders(3)), null, THREE_IDS);
+        seek("SQL_ROOMS_BY_HOTEL_ID", SQL_ROOMS_BY_HOTEL_ID, INDEX_ROOMS_HOTEL_ID, "1");
+        seek("SQL_ROOMS_BY_HOTEL_IDS", String.format(SQL_ROOMS_BY_HOTEL_IDS, placeholders(3)),
+                INDEX_ROOMS_HOTEL_ID, THREE_IDS);
+        seek("SQL_ROOM_STATS", String.format(SQL_ROOM_STATS, placeholders(3)), INDEX_ROOMS_HOTEL_ID, THREE_IDS);
+        seek("SQL_AVAILABLE_FROM", SQL_AVAILABLE_FROM, INDEX_HOTELS_CHECK_IN, "19723");
+        seek("SQL_INSERT_ROOM", SQL_INSERT_ROOM, null);
+        seek("SQL_UPDATE_ROOM", SQL_UPDATE_ROOM, null);
+        seek("SQL_DELETE_ROOM", SQL_DELETE_ROOM, null, "1");
+        seek("SQL_INSERT_HOTEL", HotelStatements.SQL_INSERT_HOTEL, null);
+        seek("SQL_UPDATE_HOTEL", HotelStatements.SQL_UPDATE_HOTEL, null);
+        seek("SQL_DELETE_HOTEL", HotelStatements.SQL_DELETE_HOTEL, null, "1");
+        seek("SQL_DELETE_ROOMS_BY_HOTEL_ID", HotelStatements.SQL_DELETE_ROOMS_BY_HOTEL_ID, INDEX_ROOMS_HOTEL_ID, "1");
+
+        // BookingEngine and AvailabilityIndex
+        seek("SQL_ROOM_HOTEL_ID", SQL_ROOM_HOTEL_ID, null, "1");
+        seek("SQL_ROOM_IDS_BY_HOTEL_ID", SQL_ROOM_IDS_BY_HOTEL_ID, null, "1");
+        seek("SQL_RESERVATIONS_BY_ROOM_ID", SQL_RESERVATIONS_BY_ROOM_ID, INDEX_RESERVATIONS_ROOM, "1");
+        seek("SQL_RESERVATIONS_BY_HOTEL_ID", SQL_RESERVATIONS_BY_HOTEL_ID, null, "1");
+        seek("SQL_INSERT_RESERVATION", SQL_INSERT_RESERVATION, null);
+        seek("SQL_UPDATE_ROOM_AVAILABILITY", SQL_UPDATE_ROOM_AVAILABILITY, null);
+        // Stays that end after today and start before the availability window ends
+        seek("SQL_RESERVATIONS_IN_RANGE", SQL_RESERVATIONS_IN_RANGE, INDEX_RESERVATIONS_DAYS, "19723", "19903");
+
+        // The full-text lookup of searchHotelSummaries; the rows are then read by SQL_SUMMARIES_BY_IDS
+        seek("SQL_SEARCH", HotelSearchIndex.SQL_SEARCH, null, "lake*");
+        // Run by the stats triggers when a location's cheapest hotel goes away
+        seek("SQL_MIN_PRICE_AT_LOCATION", String.format(LocationStatsTable.SQL_MIN_PRICE_AT_LOCATION, "?"),
+                INDEX_HOTELS_LOCATION, "Kigali");
+
+        fullRead("SQL_ALL_HOTELS", SQL_ALL_HOTELS);
+        // In rowid order, so without sorting
+        fullRead("SQL_ALL_SUMMARIES", SQL_ALL_SUMMARIES);
+        fullRead("SQL_LAST_ADDED_HOTEL", SQL_LAST_ADDED_HOTEL);
+        fullRead("SQL_HOTEL_COUNT", SQL_HOTEL_COUNT);
+        fullRead("SQL_ALL_ROOM_IDS", SQL_ALL_ROOM_IDS);
+        fullRead("SQL_IMAGE_KEYS", SQL_IMAGE_KEYS);
+        fullRead("SQL_CONTENT_HASHES", HotelSyncEngine.SQL_CONTENT_HASHES);
+        // Grouped by hotel through the hotel id index, not by a sort
+        fullRead("SQL_ROOM_AVAILABILITY", SQL_ROOM_AVAILABILITY);
+
+        // One row per location; sorting a handful of rows is cheaper than an index on them
+        SMALL_TABLE_READS.put("SQL_ALL_LOCATION_STATS",
+                new PlanCase(LocationStatsTable.SQL_ALL_LOCATION_STATS, null));
+    }
+
+    // Builders checked by keysetPagesSeekInsteadOfScanning
+    private static final String[] BUILDERS_WITH_PLAN_CASES = {"summaryPageSql", "summaryPageBeforeSql"};
+
+    private static final class PlanCase {
+        final String sql;
+        final String index; // Index the plan must name, or null
+        final String[] args;
+
+        PlanCase(String sql, String index, String... args) {
+            this.sql = sql;
+            this.index = index;
+            this.args = args;
+        }
+    }
+
+    private static void seek(String name, String sql, String index, String... args) {
+        SEEKS.put(name, new PlanCase(sql, index, args));
+    }
+
+    private static void fullRead(String name, String sql) {
+        FULL_READS.put(name, new PlanCase(sql, null));
+    }
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void everyDaoQueryHasAPlanCase() throws Exception {
+        Set<String> covered = new HashSet<>(SEEKS.keySet());
+        covered.addAll(FULL_READS.keySet());
+        covered.addAll(SMALL_TABLE_READS.keySet());
+        Set<String> builders = new HashSet<>();
+        for (String builder : BUILDERS_WITH_PLAN_CASES) {
+            builders.add(builder);
+        }
+
+        Set<String> found = new HashSet<>();
+        for (Class<?> dao : DAO_CLASSES) {
+            for (Field field : dao.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class
+                        && field.getName().startsWith("SQL_")) {
+                    assertTrue(dao.getSimpleName() + "." + field.getName() + " has no plan case",
+                            covered.contains(field.getName()));
+                    found.add(field.getName());
+                }
+            }
+            for (Method method : dao.getDeclaredMethods()) {
+                if (Modifier.isStatic(method.getModifiers()) && method.getReturnType() == String.class
+                        && method.getName().endsWith("Sql")) {
+                    assertTrue(dao.getSimpleName() + "." + method.getName() + "() has no plan case",
+                            builders.contains(method.getName()));
+                }
+            }
+        }
+        // A case whose constant was renamed or removed would check nothing
+        covered.removeAll(found);
+        assertTrue("Plan cases without a query: " + covered, covered.isEmpty());
+    }
+
+    @Test
+    public void lookupsSeekInsteadOfScanning() {
+        for (Map.Entry<String, PlanCase> entry : SEEKS.entrySet()) {
+            PlanCase planCase = entry.getValue();
+            List<String> plan = explain(planCase.sql, planCase.args);
+            assertNoScan(entry.getKey(), plan);
+            if (planCase.index != null) {
+                assertTrue(entry.getKey() + ": " + plan, plan.toString().contains(planCase.index));
+            }
+        }
+    }
+
+    @Test
+    public void fullReadsDoNotSort() {
+        for (Map.Entry<String, PlanCase> entry : FULL_READS.entrySet()) {
+            assertNoSort(entry.getKey(), explain(entry.getValue().sql));
+        }
+        for (PlanCase planCase : SMALL_TABLE_READS.values()) {
+            // Only has to be valid SQL against the current schema
+            explain(planCase.sql);
+        }
+    }
+
+    @Test
+    public void keysetPagesSeekInsteadOfScanning() {
+        for (HotelSortKey sortKey : HotelSortKey.values()) {
+            String after = summaryPageSql(sortKey, true, HotelPagedSource.DEFAULT_PAGE_SIZE);
+            assertNoScan(after, explain(after, sortKey.afterArgs(LAST_ROW)));
+            // Scrolling back to rows a bounded list dropped walks the same index backwards
+            String before = summaryPageBeforeSql(sortKey, HotelPagedSource.DEFAULT_PAGE_SIZE);
+            assertNoScan(before, explain(before, sortKey.afterArgs(LAST_ROW)));
+            String first = summaryPageSql(sortKey, false, HotelPagedSource.DEFAULT_PAGE_SIZE);
+            if (sortKey == HotelSortKey.ID) {
+                // The first ID page walks the primary key from the start, which is fine
+                assertNoSort(first, explain(first));
+            } else {
+                assertNoScan(first, explain(first));
+            }
+        }
+    }
+
+    private static void assertNoScan(String query, List<String> plan) {
+        for (String detail : plan) {
+            assertFalse("Full scan in " + query + ": " + plan, FULL_SCAN.matcher(detail).find());
+            assertFalse("Full-text scan in " + query + ": " + plan, FTS_FULL_SCAN.matcher(detail).find());
+        }
+        assertNoSort(query, plan);
+    }
+
+    private static void assertNoSort(String query, List<String> plan) {
+        for (String detail : plan) {
+            assertFalse("Temporary sort in " + query + ": " + plan, TEMP_SORT.matcher(detail).find());
+        }
+    }
+
+    private List<String> explain(String sql, String... args) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        List<String> details = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args.length == 0 ? null : args)) {
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detailIndex));
+            }
+        }
+        return details;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+import android.util.SparseArray;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.Room;
+import com.example.hotelbooking.model.RoomStats;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the batched room lookups across several id chunks against per-hotel reads.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RoomBatchLoadingTest {
+
+    private static final String DB_NAME = "HotelBookingRoomBatchTest.db";
+    // Spans three chunks of MAX_IDS_PER_QUERY ids
+    private static final int HOTELS = 2 * DatabaseHelper.MAX_IDS_PER_QUERY + 100;
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+
+        List<Hotel> hotels = new ArrayList<>();
+        List<Room> rooms = new ArrayList<>();
+        for (int id = 1; id <= HOTELS; id++) {
+            hotels.add(new Hotel(id, "Hotel " + id, "Kigali", 4, 100, DateUtils.NO_DATE, true, "Suite"));
+            // Hotel n has n % 4 rooms, so some hotels have none
+            for (int r = 1; r <= id % 4; r++) {
+                rooms.add(new Room(id, id + "-" + r, "Double", r, r % 2 == 0, 10.0 * r));
+            }
+        }
+        assertTrue(dbHelper.replaceAllHotels(hotels, rooms));
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void batchedRoomsMatchPerHotelReads() {
+        List<Integer> ids = allIds();
+        SparseArray<List<Room>> roomsByHotel = dbHelper.getRoomsByHotelIds(ids);
+
+        assertEquals(HOTELS, roomsByHotel.size());
+        for (int id : ids) {
+            assertEquals("hotel " + id, dbHelper.getRoomsByHotelId(id).size(), roomsByHotel.get(id).size());
+        }
+    }
+
+    @Test
+    public void roomStatsAggregatePerHotel() {
+        SparseArray<RoomStats> stats = dbHelper.getRoomStatsByHotelIds(allIds());
+
+        for (int id = 1; id <= HOTELS; id++) {
+            int roomCount = id % 4;
+            if (roomCount == 0) {
+                assertNull("hotel " + id, stats.get(id));
+                continue;
+            }
+            RoomStats hotelStats = stats.get(id);
+            assertEquals(roomCount, hotelStats.getRoomCount());
+            assertEquals(1, hotelStats.getMinCapacity());
+            assertEquals(10.0 * roomCount, hotelStats.getMaxAdditionalPrice(), 0);
+        }
+    }
+
+    private static List<Integer> allIds() {
+        List<Integer> ids = new ArrayList<>(HOTELS);
+        for (int id = 1; id <= HOTELS; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
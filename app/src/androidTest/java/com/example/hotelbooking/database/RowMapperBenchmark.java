@@ -0,0 +1,89 @@
+package com.example.hotelbooking.database;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.hotelbooking.model.Hotel;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * Measures mapping 100k hotel rows with the cached-index HotelRowMapper against the
+ * previous per-row getColumnIndexOrThrow() lookups. The rows live in a MatrixCursor,
+ * so only the mapping cost is measured, not SQLite paging.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RowMapperBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final String[] COLUMNS = {
+            HOTEL_ID, HOTEL_NAME, HOTEL_LOCATION, HOTEL_RATING, HOTEL_PRICE, HOTEL_CHECK_IN_DAY,
+            HOTEL_AVAILABLE, HOTEL_ROOM_TYPE, HOTEL_IMAGE_KEY, HOTEL_IMAGE_URL, HOTEL_CONTENT_HASH
+    };
+
+    private static MatrixCursor cursor;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @BeforeClass
+    public static void createRows() {
+        cursor = new MatrixCursor(COLUMNS, ROWS);
+        for (int i = 1; i <= ROWS; i++) {
+            cursor.addRow(new Object[]{i, "Hotel " + i, "Kigali", 1 + i % 5, 50.0 + i % 300,
+                    19723 /* 2024-01-01 */, i % 2, "Suite", null, "http://example.com/" + i, (long) i});
+        }
+    }
+
+    @Test
+    public void mapHotels_cachedIndexes() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            cursor.moveToPosition(-1);
+            HotelRowMapper mapper = new HotelRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                mapper.map(cursor);
+            }
+        }
+    }
+
+    @Test
+    public void mapHotels_lookupPerRow() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            cursor.moveToPosition(-1);
+            while (cursor.moveToNext()) {
+                mapWithLookups(cursor);
+            }
+        }
+    }
+
+    // The mapping code DatabaseHelper used before HotelRowMapper existed
+    private static Hotel mapWithLookups(Cursor cursor) {
+        Hotel hotel = new Hotel(
+                cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_ID)),
+                cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_NAME)),
+                cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_LOCATION)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_RATING)),
+                cursor.getDouble(cursor.getColumnIndexOrThrow(HOTEL_PRICE)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_CHECK_IN_DAY)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_AVAILABLE)) == 1,
+                cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_ROOM_TYPE))
+        );
+        hotel.setImageKey(cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_IMAGE_KEY)));
+        int urlIndex = cursor.getColumnIndex(HOTEL_IMAGE_URL);
+        if (urlIndex != -1) {
+            hotel.setImageUrl(cursor.getString(urlIndex));
+        }
+        return hotel;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.HotelSummary;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Time from an empty database to the first page of the hotel list on a fresh install.
+ * The snapshot path is what the app now does; the JSON path is the work the first
+ * download used to do before anything showed, without the network time itself.
+ * Results are written to logcat under the "DbBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String TAG = "DbBenchmark";
+    private static final String DB_NAME = "HotelBookingStartupBenchmark.db";
+    private static final int HOTELS = 10_000;
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new DatabaseHelper(context, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void bundledSnapshotFillsTheFirstPage() throws Exception {
+        long start = System.nanoTime();
+        List<Hotel> hotels;
+        try (InputStream in = context.getAssets().open(CatalogueSnapshot.ASSET_NAME)) {
+            hotels = CatalogueSnapshot.read(in);
+        }
+        assertFalse(hotels.isEmpty());
+        assertTrue(dbHelper.replaceAllHotels(hotels, new ArrayList<>()));
+        List<HotelSummary> firstPage = firstPage();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(Math.min(hotels.size(), HotelPagedSource.DEFAULT_PAGE_SIZE), firstPage.size());
+        Log.i(TAG, String.format("bundled snapshot (%d hotels): first list after %d ms", hotels.size(), millis));
+    }
+
+    @Test
+    public void timeToFirstList_snapshotVsJson() throws Exception {
+        List<Hotel> catalogue = new ArrayList<>(HOTELS);
+        JSONArray json = new JSONArray();
+        for (int id = 1; id <= HOTELS; id++) {
+            Hotel hotel = new Hotel(id, "Hotel " + id, id % 2 == 0 ? "Kigali" : "Singapore", 1 + id % 5,
+                    80 + id % 400, DateUtils.toEpochDay(2024, 0, 1), true, "Double Room");
+            hotel.setImageUrl("http://example.com/images/" + id + ".jpg");
+            catalogue.add(hotel);
+            json.put(new JSONObject()
+                    .put("id", id)
+                    .put("name", hotel.getName())
+                    .put("location", hotel.getLocation())
+                    .put("rating", hotel.getRating())
+                    .put("price", hotel.getPrice())
+                    .put("check_in_date", DateUtils.formatIso(hotel.getCheckInDay()))
+                    .put("available", true)
+                    .put("room_type", hotel.getRoomType())
+                    .put("image_url", hotel.getImageUrl()));
+        }
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        CatalogueSnapshot.write(catalogue, snapshot);
+        byte[] snapshotBytes = snapshot.toByteArray();
+        String jsonText = json.toString();
+
+        long start = System.nanoTime();
+        List<Hotel> fromSnapshot = CatalogueSnapshot.read(new ByteArrayInputStream(snapshotBytes));
+        assertTrue(dbHelper.replaceAllHotels(fromSnapshot, new ArrayList<>()));
+        assertEquals(HotelPagedSource.DEFAULT_PAGE_SIZE, firstPage().size());
+        long snapshotMillis = (System.nanoTime() - start) / 1_000_000;
+
+        dbHelper.deleteAllHotels();
+        start = System.nanoTime();
+        List<Hotel> fromJson = parseLikeActivity3(new JSONArray(jsonText));
+        assertNotNull(dbHelper.syncHotels(fromJson));
+        assertEquals(HotelPagedSource.DEFAULT_PAGE_SIZE, firstPage().size());
+        long jsonMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // The sync after a snapshot import only has to confirm the rows
+        SyncResult result = dbHelper.syncHotels(fromSnapshot);
+        assertNotNull(result);
+        assertFalse(result.hasChanges());
+
+        Log.i(TAG, String.format("%d hotels: snapshot %d KB -> first list %d ms, JSON %d KB -> first list %d ms",
+                HOTELS, snapshotBytes.length / 1024, snapshotMillis, jsonText.length() / 1024, jsonMillis));
+    }
+
+    private List<HotelSummary> firstPage() {
+        return dbHelper.getHotelSummaryPage(HotelSortKey.ID, null, HotelPagedSource.DEFAULT_PAGE_SIZE);
+    }
+
+    // Same field handling as Activity3.fetchHotelsFromServer
+    private static List<Hotel> parseLikeActivity3(JSONArray response) throws Exception {
+        List<Hotel> hotels = new ArrayList<>(response.length());
+        for (int i = 0; i < response.length(); i++) {
+            JSONObject hotelJson = response.getJSONObject(i);
+            Hotel hotel = new Hotel(
+                    hotelJson.optInt("id", 0),
+                    hotelJson.getString("name"),
+                    hotelJson.getString("location"),
+                    hotelJson.optInt("rating", 3),
+                    hotelJson.getDouble("price"),
+                    DateUtils.parse(hotelJson.optString("check_in_date")),
+                    hotelJson.optBoolean("available", true),
+                    hotelJson.optString("room_type", "Standard")
+            );
+            hotel.setImageUrl(hotelJson.optString("image_url"));
+            hotels.add(hotel);
+        }
+        return hotels;
+    }
+}
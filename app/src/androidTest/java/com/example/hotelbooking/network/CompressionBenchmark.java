@@ -0,0 +1,175 @@
+package com.example.hotelbooking.network;
+
+import android.util.Base64;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.NoCache;
+import com.android.volley.toolbox.RequestFuture;
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.*;
+
+/**
+ * Bytes on the wire and latency of a hotel list sync and a hotel upload, plain and
+ * gzipped, against a local server throttled to a mobile-like link. The sync is timed
+ * from the request to the last parsed batch; the database writes that follow do not
+ * depend on the encoding. Images are random bytes, like real JPEGs they do not compress,
+ * so only their base64 text and the JSON around them shrink.
+ * Results are written to logcat under the "NetBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CompressionBenchmark {
+
+    private static final String TAG = "NetBenchmark";
+    private static final int HOTELS = 500;
+    private static final int THUMBNAIL_BYTES = 1024;
+    private static final int UPLOAD_IMAGE_BYTES = 32 * 1024;
+    // About 4 Mbit/s
+    private static final int BYTES_PER_SECOND = 500_000;
+
+    private final OkHttpClient httpClient = new OkHttpClient();
+    private LocalHttpServer server;
+    private RequestQueue queue;
+    private String hotelList;
+
+    @Before
+    public void setUp() throws Exception {
+        hotelList = hotelList().toString();
+        server = new LocalHttpServer(request -> "POST".equals(request.method)
+                ? LocalHttpServer.Reply.json("{\"success\":true,\"received\":" + request.body.length + "}")
+                : LocalHttpServer.Reply.json(hotelList));
+        server.setBandwidth(BYTES_PER_SECOND);
+        queue = new RequestQueue(new NoCache(), new BasicNetwork(new OkHttpStack(httpClient)), 1);
+        queue.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.stop();
+        server.close();
+    }
+
+    @Test
+    public void hotelListSync_plainVsGzip() throws Exception {
+        sync(); // Warm-up: connection, class loading, JIT
+
+        server.setGzipResponses(false);
+        long bytesBefore = server.getBytesServed();
+        long start = System.nanoTime();
+        assertEquals(HOTELS, sync());
+        long plainMillis = (System.nanoTime() - start) / 1_000_000;
+        long plainBytes = server.getBytesServed() - bytesBefore;
+
+        server.setGzipResponses(true);
+        bytesBefore = server.getBytesServed();
+        start = System.nanoTime();
+        assertEquals(HOTELS, sync());
+        long gzipMillis = (System.nanoTime() - start) / 1_000_000;
+        long gzipBytes = server.getBytesServed() - bytesBefore;
+
+        // OkHttp asked for gzip by itself
+        String acceptEncoding = server.getRequests().get(server.getRequests().size() - 1).headers.get("accept-encoding");
+        assertNotNull(acceptEncoding);
+        assertTrue(acceptEncoding.contains("gzip"));
+        assertTrue(gzipBytes + " vs " + plainBytes, gzipBytes < plainBytes);
+        Log.i(TAG, String.format("sync of %d hotels: plain %d KB in %d ms, gzip %d KB in %d ms",
+                HOTELS, plainBytes / 1024, plainMillis, gzipBytes / 1024, gzipMillis));
+    }
+
+    @Test
+    public void hotelUpload_plainVsGzip() throws Exception {
+        Hotel hotel = new Hotel(0, "Serena Hotel", "Kigali", 5, 250, DateUtils.toEpochDay(2026, 5, 1),
+                true, "Suite");
+        byte[] image = new byte[UPLOAD_IMAGE_BYTES];
+        new Random(7).nextBytes(image);
+        hotel.setImage(image);
+        JSONObject body = hotel.toJSONObject();
+        upload(body, false); // Warm-up
+
+        long bytesBefore = server.getBytesReceived();
+        long start = System.nanoTime();
+        JSONObject plainReply = upload(body, false);
+        long plainMillis = (System.nanoTime() - start) / 1_000_000;
+        long plainBytes = server.getBytesReceived() - bytesBefore;
+
+        bytesBefore = server.getBytesReceived();
+        start = System.nanoTime();
+        JSONObject gzipReply = upload(body, true);
+        long gzipMillis = (System.nanoTime() - start) / 1_000_000;
+        long gzipBytes = server.getBytesReceived() - bytesBefore;
+
+        // The server read the same JSON both times
+        assertEquals(plainReply.getInt("received"), gzipReply.getInt("received"));
+        assertEquals("gzip", server.getRequests().get(server.getRequests().size() - 1).headers.get("content-encoding"));
+        assertTrue(gzipBytes + " vs " + plainBytes, gzipBytes < plainBytes);
+        // Loopback uploads are not throttled, so the time is mostly the compression itself
+        Log.i(TAG, String.format("upload of a %d KB image: plain %d KB in %d ms, gzip %d KB in %d ms",
+                UPLOAD_IMAGE_BYTES / 1024, plainBytes / 1024, plainMillis, gzipBytes / 1024, gzipMillis));
+    }
+
+    private int sync() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger hotels = new AtomicInteger();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        new HotelStreamRequest(server.url("/api/hotels"), null, batch -> hotels.addAndGet(batch.size()),
+                result -> done.countDown(),
+                e -> {
+                    error.set(e);
+                    done.countDown();
+                })
+                .start(httpClient);
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return hotels.get();
+    }
+
+    private JSONObject upload(JSONObject body, boolean gzip) throws Exception {
+        RequestFuture<JSONObject> future = RequestFuture.newFuture();
+        queue.add(new GzipJsonObjectRequest(Request.Method.POST, server.url("/api/hotels"), body, gzip,
+                future, future));
+        return future.get(30, TimeUnit.SECONDS);
+    }
+
+    private static JSONArray hotelList() throws Exception {
+        Random random = new Random(42);
+        byte[] thumbnail = new byte[THUMBNAIL_BYTES];
+        JSONArray hotels = new JSONArray();
+        for (int id = 1; id <= HOTELS; id++) {
+            random.nextBytes(thumbnail);
+            hotels.put(new JSONObject()
+                    .put("id", id)
+                    .put("name", "Hotel " + id)
+                    .put("location", id % 2 == 0 ? "Kigali" : "Singapore")
+                    .put("rating", 1 + id % 5)
+                    .put("price", 80 + id % 400)
+                    .put("check_in_date", "2026-01-01")
+                    .put("available", true)
+                    .put("room_type", "Double Room")
+                    .put("image", Base64.encodeToString(thumbnail, Base64.NO_WRAP)));
+        }
+        return hotels;
+    }
+}
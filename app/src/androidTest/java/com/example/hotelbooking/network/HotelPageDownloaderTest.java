@@ -0,0 +1,212 @@
+package com.example.hotelbooking.network;
+
+import android.net.Uri;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.*;
+
+/**
+ * Downloads paginated and unpaginated hotel lists from a local server, checking that
+ * every hotel arrives once, that the pages in flight stay bounded, that a list
+ * changing mid-download fails it, and that pages without a list version never count
+ * as the complete list.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HotelPageDownloaderTest {
+
+    private static final int HOTELS = 1050;
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_IN_FLIGHT = 3;
+
+    private final OkHttpClient httpClient = new OkHttpClient();
+    private final AtomicInteger serving = new AtomicInteger();
+    private final AtomicInteger maxServing = new AtomicInteger();
+    private LocalHttpServer server;
+    private volatile boolean paginate = true;
+    private volatile int total = HOTELS;
+    private volatile int totalAfterFirstPage = HOTELS;
+    private volatile String version = "7";
+    private volatile String versionAfterFirstPage = "7";
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalHttpServer(request -> {
+            int now = serving.incrementAndGet();
+            maxServing.accumulateAndGet(now, Math::max);
+            try {
+                Uri uri = Uri.parse(request.path);
+                if (!paginate) {
+                    return LocalHttpServer.Reply.json(hotels(0, HOTELS).toString());
+                }
+                int offset = Integer.parseInt(uri.getQueryParameter("offset"));
+                int limit = Integer.parseInt(uri.getQueryParameter("limit"));
+                int listed = offset == 0 ? total : totalAfterFirstPage;
+                String listVersion = offset == 0 ? version : versionAfterFirstPage;
+                // Slow enough for the pages to overlap
+                Thread.sleep(20);
+                JSONObject page = new JSONObject()
+                        .put("records", hotels(offset, Math.min(listed, offset + limit)))
+                        .put("total", listed);
+                if (listVersion != null) {
+                    page.put("version", listVersion);
+                }
+                return LocalHttpServer.Reply.json(page.toString());
+            } catch (Exception e) {
+                throw new IOException(e);
+            } finally {
+                serving.decrementAndGet();
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void everyPageIsDeliveredWithBoundedConcurrency() throws Exception {
+        List<Hotel> hotels = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> progress = new ArrayList<>();
+        HotelStreamRequest.Result result = download(hotels, progress);
+
+        assertFalse(result.isNotModified());
+        assertEquals(HOTELS, result.getHotelCount());
+        assertEquals(HOTELS, result.getTotal());
+        assertEquals("7", result.getVersion());
+        assertTrue(result.isComplete());
+        // Validators of one page do not describe the whole list
+        assertTrue(result.getValidators().isEmpty());
+
+        Set<Integer> ids = new HashSet<>();
+        for (Hotel hotel : hotels) {
+            assertTrue("Duplicate " + hotel.getId(), ids.add(hotel.getId()));
+        }
+        assertEquals(HOTELS, ids.size());
+
+        assertEquals(11, server.getRequests().size());
+        assertTrue(server.getRequests().get(0).path.contains("offset=0&limit=" + PAGE_SIZE));
+        assertTrue("Max in flight " + maxServing.get(), maxServing.get() <= MAX_IN_FLIGHT);
+        assertTrue("Pages never overlapped", maxServing.get() > 1);
+        assertEquals(Integer.valueOf(HOTELS), progress.get(progress.size() - 1));
+    }
+
+    @Test
+    public void unpaginatedListIsASingleDownload() throws Exception {
+        paginate = false;
+        List<Hotel> hotels = Collections.synchronizedList(new ArrayList<>());
+        HotelStreamRequest.Result result = download(hotels, new ArrayList<>());
+
+        assertEquals(HOTELS, result.getHotelCount());
+        assertEquals(-1, result.getTotal());
+        assertTrue(result.isComplete());
+        assertEquals(HOTELS, hotels.size());
+        assertEquals(1, server.getRequests().size());
+    }
+
+    @Test
+    public void listChangingDuringTheDownloadIsAnError() throws Exception {
+        totalAfterFirstPage = HOTELS - 1;
+        try {
+            download(Collections.synchronizedList(new ArrayList<>()), new ArrayList<>());
+            fail("Download succeeded");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("changed"));
+        }
+    }
+
+    @Test
+    public void versionChangingDuringTheDownloadIsAnError() throws Exception {
+        // Same total, e.g. one hotel removed and another added between two pages
+        versionAfterFirstPage = "8";
+        try {
+            download(Collections.synchronizedList(new ArrayList<>()), new ArrayList<>());
+            fail("Download succeeded");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("changed"));
+        }
+    }
+
+    @Test
+    public void pagesWithoutAVersionAreNotTheCompleteList() throws Exception {
+        version = null;
+        versionAfterFirstPage = null;
+        HotelStreamRequest.Result result = download(Collections.synchronizedList(new ArrayList<>()),
+                new ArrayList<>());
+
+        assertEquals(HOTELS, result.getHotelCount());
+        assertFalse(result.isComplete());
+    }
+
+    @Test
+    public void singleUnversionedPageIsTheCompleteList() throws Exception {
+        version = null;
+        total = PAGE_SIZE / 2;
+        HotelStreamRequest.Result result = download(Collections.synchronizedList(new ArrayList<>()),
+                new ArrayList<>());
+
+        assertEquals(PAGE_SIZE / 2, result.getHotelCount());
+        assertTrue(result.isComplete());
+        assertEquals(1, server.getRequests().size());
+    }
+
+    private HotelStreamRequest.Result download(List<Hotel> hotels, List<Integer> progress) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<HotelStreamRequest.Result> result = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        HotelPageDownloader downloader = new HotelPageDownloader(null, hotels::addAll,
+                (hotelsRead, listed) -> progress.add(hotelsRead),
+                r -> {
+                    result.set(r);
+                    done.countDown();
+                },
+                e -> {
+                    error.set(e);
+                    done.countDown();
+                })
+                .setBaseUrl(server.url("/api/hotels"), PAGE_SIZE, MAX_IN_FLIGHT);
+        // Listeners run on the main thread, so it starts there too
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> downloader.start(httpClient));
+        assertTrue(done.await(20, TimeUnit.SECONDS));
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return result.get();
+    }
+
+    private static JSONArray hotels(int from, int to) throws Exception {
+        JSONArray hotels = new JSONArray();
+        for (int id = from + 1; id <= to; id++) {
+            hotels.put(new JSONObject()
+                    .put("id", id)
+                    .put("name", "Hotel " + id)
+                    .put("location", "Kigali")
+                    .put("price", 100));
+        }
+        return hotels;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.hotelbooking.network;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.*;
+
+/**
+ * Streams hotel lists from a local server: both payload shapes, batching, and the
+ * conditional GET that skips an unchanged list.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HotelStreamRequestTest {
+
+    private static final String LAST_MODIFIED = "Tue, 01 Sep 2026 10:00:00 GMT";
+    private static final int HOTELS = 250;
+
+    private final OkHttpClient httpClient = new OkHttpClient();
+    private LocalHttpServer server;
+    private ValidatorStore validatorStore;
+    private String url;
+    private volatile String payload;
+    private volatile String etag = "\"v1\"";
+
+    @Before
+    public void setUp() throws Exception {
+        payload = hotelArray().toString();
+        server = new LocalHttpServer(request -> {
+            String ifNoneMatch = request.headers.get("if-none-match");
+            String ifModifiedSince = request.headers.get("if-modified-since");
+            if (etag != null ? etag.equals(ifNoneMatch) : LAST_MODIFIED.equals(ifModifiedSince)) {
+                return new LocalHttpServer.Reply(304, new byte[0]);
+            }
+            LocalHttpServer.Reply reply = LocalHttpServer.Reply.json(payload)
+                    .header("Last-Modified", LAST_MODIFIED);
+            return etag != null ? reply.header("ETag", etag) : reply;
+        });
+        url = server.url("/api/hotels");
+
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        validatorStore = new ValidatorStore(context);
+        validatorStore.remove(url);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        validatorStore.remove(url);
+        server.close();
+    }
+
+    @Test
+    public void arrayIsHandedOverInBatches() throws Exception {
+        List<List<Hotel>> batches = new ArrayList<>();
+        HotelStreamRequest.Result result = download(batches, 100);
+
+        assertEquals(HOTELS, result.getHotelCount());
+        assertEquals(3, batches.size());
+        assertEquals(100, batches.get(0).size());
+        assertEquals(50, batches.get(2).size());
+
+        Hotel first = batches.get(0).get(0);
+        assertEquals(1, first.getId());
+        assertEquals("Hotel 1", first.getName());
+        assertEquals(DateUtils.toEpochDay(2026, 0, 1), first.getCheckInDay());
+        assertTrue(first.isAvailable());
+        // Defaults for fields the server left out or sent as null
+        assertEquals(3, first.getRating());
+        assertEquals("Standard", first.getRoomType());
+        assertNotNull(first.getImage());
+        assertEquals(3, first.getImage().length);
+    }
+
+    @Test
+    public void recordsObjectIsReadLikeAnArray() throws Exception {
+        payload = new JSONObject()
+                .put("success", true)
+                .put("meta", new JSONObject().put("note", "skipped"))
+                .put("records", hotelArray())
+                .toString();
+        List<List<Hotel>> batches = new ArrayList<>();
+        assertEquals(HOTELS, download(batches, 1000).getHotelCount());
+        assertEquals(1, batches.size());
+        assertEquals(HOTELS, batches.get(0).get(HOTELS - 1).getId());
+    }
+
+    @Test
+    public void objectWithoutRecordsIsAnError() throws Exception {
+        payload = "{\"success\": false, \"message\": \"maintenance\"}";
+        Exception error = downloadExpectingError();
+        assertTrue(error.getMessage(), error.getMessage().contains("records"));
+    }
+
+    @Test
+    public void unchangedListIsNotDownloadedAgain() throws Exception {
+        HotelStreamRequest.Result first = download(new ArrayList<>(), 100);
+        assertFalse(first.isNotModified());
+        assertEquals("\"v1\"", first.getValidators().getEtag());
+        // Activity3 stores them once the sync finished
+        validatorStore.put(first.getValidators());
+        long fullDownload = server.getBytesServed();
+
+        List<List<Hotel>> batches = new ArrayList<>();
+        HotelStreamRequest.Result second = download(batches, 100);
+        assertTrue(second.isNotModified());
+        assertTrue(batches.isEmpty());
+        long conditionalDownload = server.getBytesServed() - fullDownload;
+        assertTrue(conditionalDownload + " bytes", conditionalDownload < 200);
+        assertEquals("\"v1\"", server.getRequests().get(1).headers.get("if-none-match"));
+
+        // A new version on the server is downloaded in full
+        etag = "\"v2\"";
+        HotelStreamRequest.Result third = download(new ArrayList<>(), 100);
+        assertFalse(third.isNotModified());
+        assertEquals("\"v2\"", third.getValidators().getEtag());
+    }
+
+    @Test
+    public void lastModifiedIsUsedWithoutAnEtag() throws Exception {
+        etag = null;
+        HotelStreamRequest.Result first = download(new ArrayList<>(), 100);
+        assertEquals(LAST_MODIFIED, first.getValidators().getLastModified());
+
+        // Until the validators are stored every fetch downloads the list
+        assertFalse(download(new ArrayList<>(), 100).isNotModified());
+
+        validatorStore.put(first.getValidators());
+        assertTrue(download(new ArrayList<>(), 100).isNotModified());
+        assertEquals(LAST_MODIFIED, server.getRequests().get(2).headers.get("if-modified-since"));
+    }
+
+    private HotelStreamRequest.Result download(List<List<Hotel>> batches, int batchSize) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<HotelStreamRequest.Result> result = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        new HotelStreamRequest(url, validatorStore, batches::add,
+                r -> {
+                    result.set(r);
+                    done.countDown();
+                },
+                e -> {
+                    error.set(e);
+                    done.countDown();
+                })
+                .setBatchSize(batchSize)
+                .start(httpClient);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return result.get();
+    }
+
+    private Exception downloadExpectingError() throws Exception {
+        try {
+            download(new ArrayList<>(), 100);
+        } catch (Exception e) {
+            return e;
+        }
+        fail("Download succeeded");
+        return null;
+    }
+
+    private static JSONArray hotelArray() throws Exception {
+        JSONArray hotels = new JSONArray();
+        for (int id = 1; id <= HOTELS; id++) {
+            hotels.put(new JSONObject()
+                    .put("id", id)
+                    .put("name", "Hotel " + id)
+                    .put("location", "Kigali")
+                    .put("price", 100 + id)
+                    .put("check_in_date", "2026-01-01")
+                    .put("available", "true")
+                    .put("room_type", JSONObject.NULL)
+                    .put("image", "data:image/png;base64,AQID"));
+        }
+        return hotels;
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.hotelbooking.network;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A small HTTP/1.1 server on the loopback interface for network tests. It keeps
+ * connections alive, answers every request with its {@link Handler} and records what
+ * it received, and how many bytes it read and wrote. Like a compressing backend it
+ * decodes gzip request bodies, and it can gzip responses and throttle its writes to
+ * stand in for a mobile link.
+ */
+final class LocalHttpServer implements Closeable {
+
+    interface Handler {
+        Reply handle(RecordedRequest request) throws IOException;
+    }
+
+    static final class RecordedRequest {
+        final String method;
+        final String path;
+        // Header names in lower case
+        final Map<String, String> headers;
+        // Decoded if it was sent gzipped
+        final byte[] body;
+
+        RecordedRequest(String method, String path, Map<String, String> headers, byte[] body) {
+            this.method = method;
+            this.path = path;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+
+    static final class Reply {
+        final int status;
+        final Map<String, String> headers = new LinkedHashMap<>();
+        final byte[] body;
+
+        Reply(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Reply json(String json) {
+            return new Reply(200, json.getBytes(StandardCharsets.UTF_8)).header("Content-Type", "application/json");
+        }
+
+        Reply header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+    }
+
+    private final ServerSocket serverSocket;
+    private final Handler handler;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private volatile boolean gzipResponses;
+    private volatile int bytesPerSecond; // 0 for unthrottled
+    private final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+
+    LocalHttpServer(Handler handler) throws IOException {
+        this.handler = handler;
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        Thread acceptThread = new Thread(this::acceptLoop, "LocalHttpServer");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    String url(String path) {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + path;
+    }
+
+    int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * @return the bytes written in responses so far, status lines and headers included.
+     */
+    long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    /**
+     * @return the bytes of the requests read so far, request lines and headers included.
+     */
+    long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    List<RecordedRequest> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Gzips response bodies for requests that accept it.
+     */
+    void setGzipResponses(boolean gzipResponses) {
+        this.gzipResponses = gzipResponses;
+    }
+
+    /**
+     * Writes response bodies no faster than the given rate; 0 turns throttling off.
+     */
+    void setBandwidth(int bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread connectionThread = new Thread(() -> serve(socket), "LocalHttpServer-connection");
+                connectionThread.setDaemon(true);
+                connectionThread.start();
+            } catch (IOException e) {
+                return; // Closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            String requestLine;
+            while ((requestLine = readLine(in)) != null && !requestLine.isEmpty()) {
+                Map<String, String> headers = new LinkedHashMap<>();
+                long received = requestLine.length() + 2;
+                String line;
+                while ((line = readLine(in)) != null && !line.isEmpty()) {
+                    received += line.length() + 2;
+                    int colon = line.indexOf(':');
+                    headers.put(line.substring(0, colon).trim().toLowerCase(Locale.US), line.substring(colon + 1).trim());
+                }
+                String length = headers.get("content-length");
+                byte[] body = new byte[length != null ? Integer.parseInt(length) : 0];
+                int read = 0;
+                while (read < body.length) {
+                    int n = in.read(body, read, body.length - read);
+                    if (n < 0) {
+                        return;
+                    }
+                    read += n;
+                }
+                bytesReceived.addAndGet(received + 2 + body.length);
+                if ("gzip".equalsIgnoreCase(headers.get("content-encoding"))) {
+                    body = gunzip(body);
+                }
+                String[] parts = requestLine.split(" ");
+                RecordedRequest request = new RecordedRequest(parts[0], parts[1], headers, body);
+                requests.add(request);
+                Reply reply = handler.handle(request);
+                String acceptEncoding = headers.get("accept-encoding");
+                if (gzipResponses && reply.status == 200 && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    reply = gzip(reply);
+                }
+                write(out, reply, !"HEAD".equals(request.method));
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private void write(OutputStream out, Reply reply, boolean withBody) throws IOException {
+        StringBuilder head = new StringBuilder("HTTP/1.1 ").append(reply.status).append(" Status\r\n");
+        for (Map.Entry<String, String> header : reply.headers.entrySet()) {
+            head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        boolean hasBody = reply.status != 204 && reply.status != 304;
+        if (hasBody) {
+            head.append("Content-Length: ").append(reply.body.length).append("\r\n");
+        }
+        head.append("\r\n");
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.US_ASCII);
+        out.write(headBytes);
+        bytesServed.addAndGet(headBytes.length);
+        if (hasBody && withBody) {
+            writeBody(out, reply.body);
+            bytesServed.addAndGet(reply.body.length);
+        }
+        out.flush();
+    }
+
+    private void writeBody(OutputStream out, byte[] body) throws IOException {
+        int rate = bytesPerSecond;
+        if (rate <= 0) {
+            out.write(body);
+            return;
+        }
+        int chunk = Math.max(1, rate / 20); // 50 ms worth
+        for (int offset = 0; offset < body.length; offset += chunk) {
+            int length = Math.min(chunk, body.length - offset);
+            out.write(body, offset, length);
+            out.flush();
+            try {
+                Thread.sleep(length * 1000L / rate);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private static Reply gzip(Reply reply) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(reply.body);
+        }
+        Reply compressed = new Reply(reply.status, buffer.toByteArray());
+        compressed.headers.putAll(reply.headers);
+        return compressed.header("Content-Encoding", "gzip");
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            byte[] chunk = new byte[8192];
+            int n;
+            while ((n = gzip.read(chunk)) != -1) {
+                buffer.write(chunk, 0, n);
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                String text = line.toString("US-ASCII");
+                return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+            }
+            line.write(c);
+        }
+        return line.size() > 0 ? line.toString("US-ASCII") : null;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.hotelbooking.network;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.JsonArrayRequest;
+import com.android.volley.toolbox.JsonObjectRequest;
+import com.android.volley.toolbox.NoCache;
+import com.android.volley.toolbox.RequestFuture;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs Volley requests through the OkHttp stack against a local server and checks
+ * that consecutive requests share one keep-alive connection, and that bodies are
+ * compressed both ways.
+ */
+@RunWith(AndroidJUnit4.class)
+public class OkHttpStackTest {
+
+    private LocalHttpServer server;
+    private ConnectionMetrics metrics;
+    private RequestQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalHttpServer(request -> "POST".equals(request.method)
+                ? LocalHttpServer.Reply.json("{\"echo\":" + new String(request.body, StandardCharsets.UTF_8) + "}")
+                : LocalHttpServer.Reply.json("[{\"id\":1}]"));
+        metrics = new ConnectionMetrics();
+        OkHttpClient client = new OkHttpClient.Builder().eventListener(metrics).build();
+        queue = new RequestQueue(new NoCache(), new BasicNetwork(new OkHttpStack(client)), 2);
+        queue.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.stop();
+        server.close();
+    }
+
+    @Test
+    public void consecutiveRequestsReuseOneConnection() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            RequestFuture<JSONArray> future = RequestFuture.newFuture();
+            queue.add(new JsonArrayRequest(Request.Method.GET, server.url("/api/hotels"), null, future, future));
+            assertEquals(1, future.get(5, TimeUnit.SECONDS).getJSONObject(0).getInt("id"));
+        }
+
+        assertEquals(1, server.getConnectionCount());
+        assertEquals(1, metrics.getOpened());
+        assertEquals(2, metrics.getReused());
+    }
+
+    @Test
+    public void requestBodiesAndHeadersAreSent() throws Exception {
+        RequestFuture<JSONObject> future = RequestFuture.newFuture();
+        JSONObject body = new JSONObject().put("name", "Serena");
+        queue.add(new JsonObjectRequest(Request.Method.POST, server.url("/api/hotels"), body, future, future));
+
+        assertEquals("Serena", future.get(5, TimeUnit.SECONDS).getJSONObject("echo").getString("name"));
+        LocalHttpServer.RecordedRequest recorded = server.getRequests().get(0);
+        assertEquals("/api/hotels", recorded.path);
+        assertTrue(recorded.headers.get("content-type").startsWith("application/json"));
+    }
+
+    @Test
+    public void gzippedResponsesAreDecoded() throws Exception {
+        server.setGzipResponses(true);
+        RequestFuture<JSONArray> future = RequestFuture.newFuture();
+        queue.add(new JsonArrayRequest(Request.Method.GET, server.url("/api/hotels"), null, future, future));
+
+        assertEquals(1, future.get(5, TimeUnit.SECONDS).getJSONObject(0).getInt("id"));
+        assertTrue(server.getRequests().get(0).headers.get("accept-encoding").contains("gzip"));
+    }
+
+    @Test
+    public void largeBodiesAreSentGzipped() throws Exception {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            description.append("Lake view, breakfast included. ");
+        }
+        JSONObject body = new JSONObject().put("name", "Serena").put("description", description);
+
+        RequestFuture<JSONObject> future = RequestFuture.newFuture();
+        queue.add(new GzipJsonObjectRequest(Request.Method.POST, server.url("/api/hotels"), body, true,
+                future, future));
+        assertEquals("Serena", future.get(5, TimeUnit.SECONDS).getJSONObject("echo").getString("name"));
+
+        LocalHttpServer.RecordedRequest recorded = server.getRequests().get(0);
+        assertEquals("gzip", recorded.headers.get("content-encoding"));
+        int onTheWire = Integer.parseInt(recorded.headers.get("content-length"));
+        assertTrue(onTheWire + " of " + recorded.body.length, onTheWire < recorded.body.length / 4);
+    }
+
+    @Test
+    public void smallBodiesAreSentAsTheyAre() throws Exception {
+        RequestFuture<JSONObject> future = RequestFuture.newFuture();
+        JSONObject body = new JSONObject().put("name", "Serena");
+        queue.add(new GzipJsonObjectRequest(Request.Method.POST, server.url("/api/hotels"), body, true,
+                future, future));
+
+        assertEquals("Serena", future.get(5, TimeUnit.SECONDS).getJSONObject("echo").getString("name"));
+        assertNull(server.getRequests().get(0).headers.get("content-encoding"));
+    }
+}
@@ -1,8 +1,8 @@
 package com.example.hotelbooking;
 
 import android.os.Bundle;
-import android.util.Base64;
 import android.util.Log;
+import android.util.SparseArray;
 import android.view.View;
 import android.widget.Button;
 import android.widget.FrameLayout;
@@ -16,28 +16,42 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.volley.Request;
-import com.android.volley.RequestQueue;
-import com.android.volley.VolleyError;
-import com.android.volley.toolbox.JsonArrayRequest;
 import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
 import com.example.hotelbooking.adapter.HotelAdapter;
+import com.example.hotelbooking.adapter.PagingScrollListener;
 import com.example.hotelbooking.database.DatabaseHelper;
+import com.example.hotelbooking.database.HotelChange;
+import com.example.hotelbooking.database.HotelPagedSource;
+import com.example.hotelbooking.database.HotelRepository;
+import com.example.hotelbooking.database.HotelSortKey;
+import com.example.hotelbooking.database.HotelSyncSession;
 import com.example.hotelbooking.fragment.HotelFormFragment;
 import com.example.hotelbooking.model.Hotel;
-import com.example.hotelbooking.model.Room;
+import com.example.hotelbooking.model.HotelSummary;
+import com.example.hotelbooking.model.RoomStats;
 import com.example.hotelbooking.network.ApiConfig;
+import com.example.hotelbooking.network.GzipJsonObjectRequest;
+import com.example.hotelbooking.network.HotelPageDownloader;
+import com.example.hotelbooking.network.HotelStreamRequest;
+import com.example.hotelbooking.network.NetworkClient;
+import com.example.hotelbooking.network.ValidatorStore;
+import com.example.hotelbooking.util.DateUtils;
 
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.json.JSONArray;
 
-import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Activity3 extends AppCompatActivity implements HotelAdapter.OnHotelClickListener {
 
+    private static final int SEARCH_RESULT_LIMIT = 200;
+
+    // Stay picked on the home screen; the check-in is an epoch day, see DateUtils
+    static final String EXTRA_CHECK_IN_DAY = "checkInDay";
+    static final String EXTRA_NIGHTS = "nights";
+
     // UI Components
     private RecyclerView recyclerView;
     private Button addButton;
@@ -45,9 +59,17 @@ public class Activity3 extends AppCompatActivity implements HotelAdapter.OnHotel
 
     // Data and Helpers
     private HotelAdapter hotelAdapter;
-    private DatabaseHelper dbHelper;
-    private List<Hotel> hotelList;
-    private RequestQueue requestQueue;
+    private HotelRepository repository;
+    private List<HotelSummary> hotelList;
+    private SparseArray<RoomStats> roomStats; // Room aggregates of the hotels currently listed
+    private HotelPagedSource pagedSource;
+    private String searchQuery; // Set when opened from the home search box
+    private int checkInDay = DateUtils.NO_DATE; // Set when opened with a stay and no search text
+    private int nights;
+    private NetworkClient networkClient;
+    private ValidatorStore validatorStore;
+    private HotelPageDownloader hotelDownload; // In flight, or null
+    private final DatabaseHelper.OnHotelsChangedListener changeListener = this::onHotelsChanged;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -55,14 +77,37 @@ public class Activity3 extends AppCompatActivity implements HotelAdapter.OnHotel
         setContentView(R.layout.activity_3);
 
         // Initialize database and networking
-        dbHelper = new DatabaseHelper(this);
-        requestQueue = Volley.newRequestQueue(this);
+        repository = HotelRepository.getInstance(this);
+        networkClient = NetworkClient.getInstance(this);
+        validatorStore = new ValidatorStore(this);
+
+        String query = getIntent().getStringExtra("searchQuery");
+        searchQuery = query == null || query.trim().isEmpty() ? null : query.trim();
+        if (searchQuery == null) {
+            // Search text takes precedence; otherwise list the hotels open for the stay
+            checkInDay = getIntent().getIntExtra(EXTRA_CHECK_IN_DAY, DateUtils.NO_DATE);
+            nights = getIntent().getIntExtra(EXTRA_NIGHTS, 1);
+        }
 
         // Setup UI
         setupToolbar();
         initializeViews();
         setupRecyclerView();
         setupListeners();
+
+        // Show the local copy right away; later writes arrive as change events
+        repository.addOnHotelsChangedListener(changeListener);
+        loadHotelsFromLocalDatabase();
+    }
+
+    @Override
+    protected void onDestroy() {
+        repository.removeOnHotelsChangedListener(changeListener);
+        if (hotelDownload != null) {
+            // Batches already written stay; nothing is deleted without the whole list
+            hotelDownload.cancel();
+        }
+        super.onDestroy();
     }
 
     @Override
@@ -77,7 +122,14 @@ public class Activity3 extends AppCompatActivity implements HotelAdapter.OnHotel
         setSupportActionBar(toolbar);
         if (getSupportActionBar() != null) {
             getSupportActionBar().setDisplayHomeAsUpEnabled(true);
-            getSupportActionBar().setTitle("Hotel Database (Synced)");
+            if (searchQuery != null) {
+                getSupportActionBar().setTitle("Results for \"" + searchQuery + "\"");
+            } else if (checkInDay != DateUtils.NO_DATE) {
+                getSupportActionBar().setTitle("From " + DateUtils.formatDisplay(checkInDay)
+                        + ", " + nights + (nights == 1 ? " night" : " nights"));
+            } else {
+                getSupportActionBar().setTitle("Hotel Database (Synced)");
+            }
         }
         toolbar.setNavigationOnClickListener(v -> onBackPressed());
     }
@@ -91,9 +143,52 @@ public class Activity3 extends AppCompatActivity implements HotelAdapter.OnHotel
     private void setupRecyclerView() {
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         hotelList = new ArrayList<>();
+        roomStats = new SparseArray<>();
         // FIXED: Passing only the 2 arguments required by your Adapter
         hotelAdapter = new HotelAdapter(hotelList, this);
         recyclerView.setAdapter(hotelAdapter);
+
+        // Rows are loaded a page at a time as the user scrolls
+        pagedSource = new HotelPagedSource(repository, HotelSortKey.ID);
+        recyclerView.addOnScrollListener(new PagingScrollListener() {
+            @Override
+            protected boolean canLoadMore() {
+                // Search and availability results are loaded in one go
+                return !isFiltered() && pagedSource.canLoadMore();
+            }
+
+            @Override
+            protected void onLoadMore() {
+                pagedSource.loadNextPage(page -> {
+                    loadRoomStats(page);
+                    onRowsDropped(hotelAdapter.appendPage(page, pagedSource.getMaxRows()));
+                });
+            }
+
+            @Override
+            protected boolean canLoadPrevious() {
+                return !isFiltered() && pagedSource.canLoadPrevious();
+            }
+
+            @Override
+            protected void onLoadPrevious() {
+                pagedSource.loadPreviousPage(page -> {
+                    loadRoomStats(page);
+                    onRowsDropped(hotelAdapter.prependPage(page, pagedSource.getMaxRows()));
+                });
+            }
+        });
+    }
+
+    // Rows far out of view are let go together with their room stats, and loaded again on the way back
+    private void onRowsDropped(List<HotelSummary> dropped) {
+        if (dropped.isEmpty()) {
+            return;
+        }
+        for (HotelSummary hotel : dropped) {
+            roomStats.remove(hotel.getId());
+        }
+        pagedSource.setWindow(hotelList);
     }
 
     private void setupListeners() {
@@ -101,95 +196,142 @@ public class Activity3 extends AppCompatActivity implements HotelAdapter.OnHotel
     }
 
     /**
-     * Fetches all hotels from the server, then syncs the local database.
+     * Downloads the hotels from the server and syncs them into the local database batch
+     * by batch while the response is still arriving. Paginated lists download a few pages
+     * at a time, so the first page is on screen while the rest is still loading. Sends the
+     * validators of the last synced list, so an unchanged list costs a 304 and no parsing.
      */
     private void fetchHotelsFromServer() {
-        JsonArrayRequest request = new JsonArrayRequest(Request.Method.GET, ApiConfig.HOTELS_ENDPOINT, null,
-                response -> {
-                    try {
-                        List<Hotel> networkHotels = new ArrayList<>();
-                        for (int i = 0; i < response.length(); i++) {
-                            JSONObject hotelJson = response.getJSONObject(i);
-                            Hotel hotel = new Hotel(
-                                    hotelJson.optInt("id", 0),
-                                    hotelJson.getString("name"),
-                                    hotelJson.getString("location"),
-                                    hotelJson.optInt("rating", 3),
-                                    hotelJson.getDouble("price"),
-                                    hotelJson.optString("check_in_date"),
-                                    hotelJson.optBoolean("available", true),
-                                    hotelJson.optString("room_type", "Standard")
-                            );
-
-                            // --- FINAL, ROBUST IMAGE PARSING LOGIC ---
-                            String imageUrl = hotelJson.optString("image_url");
-                            String imageData = hotelJson.optString("image");
-
-                            if (imageUrl != null && !imageUrl.isEmpty() && imageUrl.startsWith("http")) {
-                                hotel.setImageUrl(imageUrl);
-                            } else if (imageData != null && !imageData.isEmpty()) {
-                                try {
-                                    // Handle Base64 strings, removing the data URI prefix if present
-                                    if (imageData.contains(",")) {
-                                        imageData = imageData.substring(imageData.indexOf(",") + 1);
-                                    }
-                                    byte[] decodedString = Base64.decode(imageData, Base64.DEFAULT);
-                                    hotel.setImage(decodedString);
-                                } catch (IllegalArgumentException e) {
-                                    Log.e("Activity3", "Invalid Base64 string from server for image.", e);
-                                }
-                            }
-                            networkHotels.add(hotel);
-                        }
-                        synchronizeLocalDatabase(networkHotels);
-                    } catch (JSONException e) {
-                        Log.e("Activity3", "JSON Parsing Error", e);
-                        Toast.makeText(this, "Error parsing server data", Toast.LENGTH_SHORT).show();
+        if (hotelDownload != null) {
+            return; // Still running from the last onResume
+        }
+        HotelSyncSession session = repository.beginSync();
+        hotelDownload = new HotelPageDownloader(validatorStore,
+                batch -> repository.applySyncBatch(session, batch),
+                null,
+                result -> {
+                    hotelDownload = null;
+                    if (result.isNotModified()) {
+                        Log.d("Activity3", "Hotel list unchanged on the server");
+                        return;
                     }
+                    finishSync(session, result);
                 },
                 error -> {
+                    hotelDownload = null;
                     Log.e("Activity3", "Network Error on fetch", error);
+                    // The local data loaded in onCreate stays on screen
                     Toast.makeText(this, "Server unreachable. Showing local data.", Toast.LENGTH_SHORT).show();
-                    loadHotelsFromLocalDatabase(); // Fallback to local data on error
-                }
-        );
-        requestQueue.add(request);
+                });
+        hotelDownload.start(networkClient);
     }
 
     /**
-     * Wipes the local DB and refills it with fresh data from the server.
+     * Removes the local hotels the server no longer lists, once all batches are written.
+     * The list picks the changed rows up through {@link #onHotelsChanged}.
      */
-    private void synchronizeLocalDatabase(List<Hotel> networkHotels) {
-        new Thread(() -> {
-            dbHelper.deleteAllHotels();
-            for (Hotel hotel : networkHotels) {
-                dbHelper.addHotel(hotel);
+    private void finishSync(HotelSyncSession session, HotelStreamRequest.Result download) {
+        // A paginated list without a version may have shifted between pages; keep what was not seen
+        repository.finishSync(session, download.isComplete(), result -> {
+            Log.d("Activity3", "Sync of " + download.getHotelCount() + " hotels finished: " + result
+                    + ", " + networkClient.getConnectionMetrics());
+            if (result != null) {
+                // Only now is a 304 for these validators safe to skip
+                validatorStore.put(download.getValidators());
             }
-            runOnUiThread(this::loadHotelsFromLocalDatabase);
-        }).start();
+        });
     }
 
     /**
-     * Loads all hotels from the local SQLite DB and updates the RecyclerView.
+     * Reloads the first page of hotels from the local SQLite DB and updates the RecyclerView.
+     * Further pages are loaded by the scroll listener. When searching, the ranked
+     * search results are shown instead, and for a stay the hotels open on its check-in day.
      */
     private void loadHotelsFromLocalDatabase() {
+        if (searchQuery != null) {
+            repository.searchHotelSummaries(searchQuery, SEARCH_RESULT_LIMIT, this::showHotels);
+        } else if (checkInDay != DateUtils.NO_DATE) {
+            repository.getHotelSummariesAvailableFrom(checkInDay, nights, SEARCH_RESULT_LIMIT, this::showHotels);
+        } else {
+            pagedSource.reset();
+            pagedSource.loadNextPage(this::showHotels);
+        }
+    }
+
+    private boolean isFiltered() {
+        return searchQuery != null || checkInDay != DateUtils.NO_DATE;
+    }
+
+    private void showHotels(List<HotelSummary> hotels) {
+        if (hotels == null) {
+            return; // The read failed; keep what is on screen
+        }
         hotelList.clear();
-        hotelList.addAll(dbHelper.getAllHotels());
+        hotelList.addAll(hotels);
+        roomStats.clear();
+        loadRoomStats(hotelList);
         hotelAdapter.updateList(hotelList);
         if (hotelList.isEmpty()) {
-            Toast.makeText(this, "No hotels found.", Toast.LENGTH_SHORT).show();
+            Toast.makeText(this, searchQuery != null ? "No hotels match \"" + searchQuery + "\"."
+                    : checkInDay != DateUtils.NO_DATE ? "No hotels available for these dates."
+                    : "No hotels found.", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Updates only the rows a committed write touched, instead of reloading the list.
+     */
+    private void onHotelsChanged(HotelChange change) {
+        if (change.isReset() || isFiltered()) {
+            // Resets name no rows, and any edit can change which hotels match a filter
+            loadHotelsFromLocalDatabase();
+            return;
+        }
+        for (int id : change.getDeletedIds()) {
+            roomStats.remove(id);
         }
+        int[] changedIds = change.getChangedIds();
+        if (changedIds.length == 0) {
+            hotelAdapter.applyChange(change, Collections.emptyList(), pagedSource.isStartReached(),
+                    pagedSource.isEndReached());
+            return;
+        }
+        repository.getHotelSummariesByIds(changedIds, rows -> {
+            if (rows == null) {
+                return;
+            }
+            hotelAdapter.applyChange(change, rows, pagedSource.isStartReached(), pagedSource.isEndReached());
+            loadRoomStats(rows);
+        });
+    }
+
+    /**
+     * Fetches the room aggregates of a whole page in one grouped query.
+     */
+    private void loadRoomStats(List<HotelSummary> hotels) {
+        List<Integer> ids = new ArrayList<>(hotels.size());
+        for (HotelSummary hotel : hotels) {
+            ids.add(hotel.getId());
+        }
+        repository.getRoomStatsByHotelIds(ids, pageStats -> {
+            if (pageStats == null) {
+                return;
+            }
+            for (int i = 0; i < pageStats.size(); i++) {
+                roomStats.put(pageStats.keyAt(i), pageStats.valueAt(i));
+            }
+        });
     }
 
     private void showAddHotelFragment() {
         HotelFormFragment fragment = HotelFormFragment.newInstance(null);
-        fragment.setOnHotelSavedListener(() -> onHotelSaved(null));
+        fragment.setOnHotelSavedListener(hotelId -> onHotelSaved(hotelId, false));
         showFormFragment(fragment);
     }
 
     private void showEditHotelFragment(Hotel hotel) {
         HotelFormFragment fragment = HotelFormFragment.newInstance(hotel);
-        fragment.setOnHotelSavedListener(() -> onHotelSaved(hotel));
+        fragment.setOnHotelSavedListener(hotelId -> onHotelSaved(hotelId, true));
         showFormFragment(fragment);
     }
 
@@ -204,38 +346,35 @@ public class Activity3 extends AppCompatActivity implements HotelAdapter.OnHotel
     /**
      * Called after a hotel is saved locally in the form fragment.
      * It then triggers the appropriate network request to sync with the server.
-     * @param originalHotel The hotel before editing, or null if creating a new one.
+     * @param hotelId The id of the saved hotel.
+     * @param existing Whether an existing hotel was edited rather than a new one created.
      */
-    private void onHotelSaved(Hotel originalHotel) {
-        // First, close the fragment and show the updated local list
+    private void onHotelSaved(int hotelId, boolean existing) {
+        // First, close the fragment; the list updates itself from the change event
         getSupportFragmentManager().popBackStackImmediate();
         toggleFragmentView(false);
-        loadHotelsFromLocalDatabase();
 
-        // Now, perform the network operation in the background
-        if (originalHotel == null) {
-            // This was a new hotel
-            Hotel newHotel = dbHelper.getLastAddedHotel();
-            if (newHotel != null) {
-                createHotelOnServer(newHotel);
+        // Now, perform the network operation with the row as it was committed
+        repository.getHotel(hotelId, savedHotel -> {
+            if (savedHotel == null) {
+                return;
             }
-        } else {
-            // This was an existing hotel being updated
-            Hotel updatedHotel = dbHelper.getHotel(originalHotel.getId());
-            if (updatedHotel != null) {
-                updateHotelOnServer(updatedHotel);
+            if (existing) {
+                updateHotelOnServer(savedHotel);
+            } else {
+                createHotelOnServer(savedHotel);
             }
-        }
+        });
     }
 
     /**
-     * Sends a new hotel's data (including image) to the server.
+     * Sends a new hotel's data (including image) to the server, gzipped if enabled.
      */
     private void createHotelOnServer(Hotel hotel) {
         try {
             JSONObject jsonBody = hotel.toJSONObject(); // Assuming a method to convert Hotel to JSONObject
             // Re-sync from server on success to get the final version of the data
-            JsonObjectRequest request = new JsonObjectRequest(Request.Method.POST, ApiConfig.HOTELS_ENDPOINT, jsonBody,
+            GzipJsonObjectRequest request = new GzipJsonObjectRequest(Request.Method.POST, ApiConfig.HOTELS_ENDPOINT, jsonBody,
                     response -> {
                         Toast.makeText(this, "New hotel synced to server!", Toast.LENGTH_SHORT).show();
                         fetchHotelsFromServer();
@@ -245,21 +384,21 @@ public class Activity3 extends AppCompatActivity implements HotelAdapter.OnHotel
                         Toast.makeText(this, "Failed to sync creation to server", Toast.LENGTH_SHORT).show();
                     }
             );
-            requestQueue.add(request);
+            networkClient.add(request);
         } catch (JSONException e) {
             Log.e("Activity3", "JSON Error while creating hotel for server", e);
         }
     }
 
     /**
-     * Sends an updated hotel's data (including image) to the server.
+     * Sends an updated hotel's data (including image) to the server, gzipped if enabled.
      */
     private void updateHotelOnServer(Hotel hotel) {
         try {
             JSONObject jsonBody = hotel.toJSONObject();
             String url = ApiConfig.getHotelUrl(hotel.getId());
 
-            JsonObjectRequest request = new JsonObjectRequest(Request.Method.PUT, url, jsonBody,
+            GzipJsonObjectRequest request = new GzipJsonObjectRequest(Request.Method.PUT, url, jsonBody,
                     response -> {
                         Toast.makeText(this, "Synced update to server!", Toast.LENGTH_SHORT).show();
                         // No need to fetch again, local data is the source of truth for this action.
@@ -274,32 +413,37 @@ public class Activity3 extends AppCompatActivity implements HotelAdapter.OnHotel
                         Toast.makeText(this, message, Toast.LENGTH_LONG).show();
                     }
             );
-            requestQueue.add(request);
+            networkClient.add(request);
         } catch (JSONException e) {
             Log.e("Activity3", "JSON Error while updating hotel for server", e);
         }
     }
 
     @Override
-    public void onEditClick(Hotel hotel) {
-        showEditHotelFragment(hotel);
+    public void onEditClick(HotelSummary summary) {
+        // The list only holds summaries; the form needs the full row including the image
+        repository.getHotel(summary.getId(), hotel -> {
+            if (hotel != null) {
+                showEditHotelFragment(hotel);
+            }
+        });
     }
 
     @Override
-    public void onDeleteClick(Hotel hotel) {
+    public void onDeleteClick(HotelSummary hotel) {
         new AlertDialog.Builder(this)
                 .setTitle("Delete Hotel")
                 .setMessage("Are you sure you want to delete '" + hotel.getName() + "'?")
                 .setPositiveButton("Delete", (dialog, which) -> {
-                    dbHelper.deleteHotel(hotel.getId());
-                    loadHotelsFromLocalDatabase(); // Immediately update UI from local DB
+                    // The list drops the row when the delete's change event arrives
+                    repository.deleteHotel(hotel.getId(), null);
                     deleteHotelOnServer(hotel); // Sync deletion with server
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
     }
 
-    private void deleteHotelOnServer(Hotel hotel) {
+    private void deleteHotelOnServer(HotelSummary hotel) {
         String url = ApiConfig.getHotelUrl(hotel.getId());
         JsonObjectRequest request = new JsonObjectRequest(Request.Method.DELETE, url, null,
                 response -> Toast.makeText(this, "Deletion synced to server.", Toast.LENGTH_SHORT).show(),
@@ -308,13 +452,17 @@ public class Activity3 extends AppCompatActivity implements HotelAdapter.OnHotel
                     Toast.makeText(this, "Failed to sync deletion to server.", Toast.LENGTH_SHORT).show();
                 }
         );
-        requestQueue.add(request);
+        networkClient.add(request);
     }
 
     @Override
-    public void onItemClick(Hotel hotel) {
-        List<Room> rooms = dbHelper.getRoomsByHotelId(hotel.getId());
-        Toast.makeText(this, hotel.getName() + " has " + rooms.size() + " rooms in DB", Toast.LENGTH_SHORT).show();
+    public void onItemClick(HotelSummary hotel) {
+        RoomStats stats = roomStats.get(hotel.getId());
+        String message = stats == null
+                ? hotel.getName() + " has no rooms in DB"
+                : hotel.getName() + " has " + stats.getRoomCount() + " rooms in DB, sleeping "
+                        + stats.getMinCapacity() + "+ guests";
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
     }
 
     @Override
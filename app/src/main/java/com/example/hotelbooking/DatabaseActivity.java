@@ -12,11 +12,18 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.hotelbooking.adapter.HotelAdapter;
+import com.example.hotelbooking.adapter.PagingScrollListener;
 import com.example.hotelbooking.database.DatabaseHelper;
+import com.example.hotelbooking.database.HotelChange;
+import com.example.hotelbooking.database.HotelPagedSource;
+import com.example.hotelbooking.database.HotelRepository;
+import com.example.hotelbooking.database.HotelSortKey;
 import com.example.hotelbooking.fragment.HotelFormFragment;
 import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.HotelSummary;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class DatabaseActivity extends AppCompatActivity implements HotelAdapter.OnHotelClickListener {
@@ -27,27 +34,32 @@ public class DatabaseActivity extends AppCompatActivity implements HotelAdapter.
 
     // Data and Helpers
     private HotelAdapter adapter;
-    private List<Hotel> hotelList;
-    private DatabaseHelper dbHelper;
+    private List<HotelSummary> hotelList;
+    private HotelRepository repository;
+    private HotelPagedSource pagedSource;
+    private final DatabaseHelper.OnHotelsChangedListener changeListener = this::onHotelsChanged;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_database);
 
-        // Initialize the DatabaseHelper
-        dbHelper = new DatabaseHelper(this);
+        // All database work runs off the main thread through the repository
+        repository = HotelRepository.getInstance(this);
 
         setupToolbar();
         initializeViews();
         setupRecyclerView();
+
+        // Load once; after that only the rows named by change events are refreshed
+        repository.addOnHotelsChangedListener(changeListener);
+        loadHotelsFromDatabase();
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        // Load or refresh the data every time the activity comes into view
-        loadHotelsFromDatabase();
+    protected void onDestroy() {
+        repository.removeOnHotelsChangedListener(changeListener);
+        super.onDestroy();
     }
 
     private void setupToolbar() {
@@ -73,23 +85,80 @@ public class DatabaseActivity extends AppCompatActivity implements HotelAdapter.
 
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.setAdapter(adapter);
+
+        // Load further pages as the user scrolls instead of the whole table at once
+        pagedSource = new HotelPagedSource(repository, HotelSortKey.ID);
+        recyclerView.addOnScrollListener(new PagingScrollListener() {
+            @Override
+            protected boolean canLoadMore() {
+                return pagedSource.canLoadMore();
+            }
+
+            @Override
+            protected void onLoadMore() {
+                pagedSource.loadNextPage(page -> onRowsDropped(adapter.appendPage(page, pagedSource.getMaxRows())));
+            }
+
+            @Override
+            protected boolean canLoadPrevious() {
+                return pagedSource.canLoadPrevious();
+            }
+
+            @Override
+            protected void onLoadPrevious() {
+                pagedSource.loadPreviousPage(page -> onRowsDropped(adapter.prependPage(page, pagedSource.getMaxRows())));
+            }
+        });
+    }
+
+    // Only a few pages stay in memory; the source reloads dropped ones on the way back
+    private void onRowsDropped(List<HotelSummary> dropped) {
+        if (!dropped.isEmpty()) {
+            pagedSource.setWindow(hotelList);
+        }
     }
 
     /**
-     * This is the core method for getting data. It fetches all hotels
+     * This is the core method for getting data. It fetches the first page of hotels
      * from the local SQLite database and updates the RecyclerView.
      */
     private void loadHotelsFromDatabase() {
-        // Clear the existing list to avoid duplicates
-        hotelList.clear();
-        // Get all hotels from the database helper
-        List<Hotel> hotelsFromDb = dbHelper.getAllHotels();
-        // Add them to our list
-        hotelList.addAll(hotelsFromDb);
-        // Notify the adapter that the data has changed, so it redraws the list
-        adapter.notifyDataSetChanged();
-
-        Toast.makeText(this, "Loaded " + hotelList.size() + " hotels from local DB", Toast.LENGTH_SHORT).show();
+        // Start paging again from the top of the table
+        pagedSource.reset();
+        pagedSource.loadNextPage(page -> {
+            // Replace the existing list to avoid duplicates
+            hotelList.clear();
+            hotelList.addAll(page);
+            // Notify the adapter that the data has changed, so it redraws the list
+            adapter.notifyDataSetChanged();
+        });
+
+        repository.getHotelCount(count -> {
+            if (count != null) {
+                Toast.makeText(this, "Loaded " + count + " hotels from local DB", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /**
+     * Applies a committed database change to just the affected rows of the list.
+     */
+    private void onHotelsChanged(HotelChange change) {
+        if (change.isReset()) {
+            loadHotelsFromDatabase();
+            return;
+        }
+        int[] changedIds = change.getChangedIds();
+        if (changedIds.length == 0) {
+            adapter.applyChange(change, Collections.emptyList(), pagedSource.isStartReached(),
+                    pagedSource.isEndReached());
+            return;
+        }
+        repository.getHotelSummariesByIds(changedIds, rows -> {
+            if (rows != null) {
+                adapter.applyChange(change, rows, pagedSource.isStartReached(), pagedSource.isEndReached());
+            }
+        });
     }
 
     /**
@@ -98,11 +167,7 @@ public class DatabaseActivity extends AppCompatActivity implements HotelAdapter.
      */
     private void showHotelForm(Hotel hotel) {
         HotelFormFragment fragment = HotelFormFragment.newInstance(hotel);
-        // Set a listener for when the save button is clicked in the fragment
-        fragment.setOnHotelSavedListener(() -> {
-            // After saving, reload the data to show the changes
-            loadHotelsFromDatabase();
-        });
+        // No save listener needed: the saved row reaches the list as a change event
 
         getSupportFragmentManager().beginTransaction()
                 .replace(R.id.fragment_container, fragment) // Make sure you have a FrameLayout with this ID
@@ -113,28 +178,32 @@ public class DatabaseActivity extends AppCompatActivity implements HotelAdapter.
     // --- Implementation of the OnHotelClickListener interface ---
 
     @Override
-    public void onEditClick(Hotel hotel) {
-        // When the edit button is clicked, show the form with the hotel's data
-        showHotelForm(hotel);
+    public void onEditClick(HotelSummary summary) {
+        // When the edit button is clicked, load the full row and show the form with it
+        repository.getHotel(summary.getId(), hotel -> {
+            if (hotel != null) {
+                showHotelForm(hotel);
+            }
+        });
     }
 
     @Override
-    public void onDeleteClick(Hotel hotel) {
+    public void onDeleteClick(HotelSummary hotel) {
         // Show a confirmation dialog before deleting
         new AlertDialog.Builder(this)
                 .setTitle("Delete Hotel")
                 .setMessage("Are you sure you want to delete '" + hotel.getName() + "'?")
                 .setPositiveButton("Delete", (dialog, which) -> {
-                    dbHelper.deleteHotel(hotel.getId()); // Delete from database
-                    loadHotelsFromDatabase(); // Refresh the list
-                    Toast.makeText(this, "Hotel deleted", Toast.LENGTH_SHORT).show();
+                    // Delete from database; the change event removes the row from the list
+                    repository.deleteHotel(hotel.getId(), unused ->
+                            Toast.makeText(this, "Hotel deleted", Toast.LENGTH_SHORT).show());
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
     }
 
     @Override
-    public void onItemClick(Hotel hotel) {
+    public void onItemClick(HotelSummary hotel) {
         // Example action: Show a toast with hotel details
         Toast.makeText(this, "You clicked on: " + hotel.getName(), Toast.LENGTH_SHORT).show();
 
@@ -0,0 +1,58 @@
+package com.example.hotelbooking;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import android.os.Build;
+import android.os.StrictMode;
+import android.util.Log;
+
+import com.example.hotelbooking.database.HotelRepository;
+
+import java.util.concurrent.Executors;
+
+public class HotelBookingApplication extends Application {
+
+    private static final String TAG = "HotelBookingApplication";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            enableStrictMode();
+        }
+        // Starts opening the database on the writer thread right away
+        HotelRepository.getInstance(this);
+    }
+
+    /**
+     * Debug builds log every disk or network access on the main thread, and every
+     * cursor or stream that is never closed. Database work belongs on the repository threads,
+     * so from Android 9 on a main-thread SQLite access crashes the app instead. Other small
+     * reads the framework does on its own, like resolving the cache directory, are only logged.
+     */
+    private void enableStrictMode() {
+        StrictMode.ThreadPolicy.Builder threadPolicy = new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectNetwork()
+                .penaltyLog();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            // Thrown on a thread of its own, where nothing can catch it
+            threadPolicy.penaltyListener(Executors.newSingleThreadExecutor(), violation -> {
+                for (StackTraceElement frame : violation.getStackTrace()) {
+                    if (frame.getClassName().startsWith("android.database.sqlite.")) {
+                        throw new IllegalStateException("Database access on the main thread", violation);
+                    }
+                }
+            });
+        } else {
+            Log.w(TAG, "Main-thread database access is only logged before Android 9");
+        }
+        StrictMode.setThreadPolicy(threadPolicy.build());
+        StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                .detectLeakedSqlLiteObjects()
+                .detectLeakedClosableObjects()
+                .penaltyLog()
+                .build());
+    }
+}
@@ -13,12 +13,20 @@ import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.SearchView;
 import androidx.appcompat.widget.Toolbar;
-import java.text.SimpleDateFormat;
+
+import com.example.hotelbooking.database.HotelRepository;
+import com.example.hotelbooking.model.LocationStats;
+import com.example.hotelbooking.util.DateUtils;
+
 import java.util.Calendar;
+import java.util.List;
 import java.util.Locale;
 
 public class MainActivity extends AppCompatActivity {
 
+    // Location shown on the city card
+    private static final String CITY_CARD_LOCATION = "Kigali";
+
     private TextView checkInDateText;
     private TextView checkOutDateText;
     private TextView nightsCount;
@@ -27,18 +35,22 @@ public class MainActivity extends AppCompatActivity {
     private Button searchButton;
     private SearchView searchLocation;
     private View hotelsTonightLayout;
+    private TextView hotelsTonightText;
     private View cityCard;
+    private TextView cityHotelCount;
     private View calendarIcon;
 
     private Calendar checkInCalendar;
     private Calendar checkOutCalendar;
     private int nights = 1;
-    private SimpleDateFormat dateFormat;
+
+    private HotelRepository repository;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        repository = HotelRepository.getInstance(this);
 
         // Initialize views first
         initializeViews();
@@ -55,7 +67,6 @@ public class MainActivity extends AppCompatActivity {
             actionBar.setHomeAsUpIndicator(R.drawable.ic_menu);
         }
 
-        dateFormat = new SimpleDateFormat("EEE dd MMM yyyy", Locale.getDefault());
         checkInCalendar = Calendar.getInstance();
         checkOutCalendar = Calendar.getInstance();
         checkOutCalendar.add(Calendar.DAY_OF_MONTH, nights);
@@ -73,10 +84,43 @@ public class MainActivity extends AppCompatActivity {
         searchButton = findViewById(R.id.searchButton);
         searchLocation = findViewById(R.id.searchLocation);
         hotelsTonightLayout = findViewById(R.id.tonightHotelsCard);
+        hotelsTonightText = findViewById(R.id.tonightHotelsText);
         cityCard = findViewById(R.id.cityCard);
+        cityHotelCount = findViewById(R.id.cityHotelCount);
         calendarIcon = findViewById(R.id.calendarIcon);
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        updateHomeStats();
+    }
+
+    // One read of the precomputed per-location stats fills both cards. Room availability
+    // is left to the date search, so a cold start never loads the availability index.
+    private void updateHomeStats() {
+        repository.getLocationStats(stats -> {
+            if (stats != null) {
+                showLocationStats(stats);
+            }
+        });
+    }
+
+    private void showLocationStats(List<LocationStats> stats) {
+        int available = 0;
+        for (LocationStats location : stats) {
+            available += location.getAvailableCount();
+            if (cityHotelCount != null && CITY_CARD_LOCATION.equalsIgnoreCase(location.getLocation())) {
+                cityHotelCount.setText(String.format(Locale.getDefault(), "%,d hotels from $%.0f",
+                        location.getHotelCount(), location.getMinPrice()));
+            }
+        }
+        // The count only knows which hotels take bookings, not whether a room is free tonight
+        if (hotelsTonightText != null && available > 0) {
+            hotelsTonightText.setText(available + " hotels taking bookings nearby");
+        }
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.main_menu, menu);
@@ -141,6 +185,9 @@ public class MainActivity extends AppCompatActivity {
                 String query = searchLocation != null ? searchLocation.getQuery().toString() : "";
                 Intent intent = new Intent(MainActivity.this, Activity3.class);
                 intent.putExtra("searchQuery", query);
+                // The picked stay travels as an epoch day so Activity3 can query it directly
+                intent.putExtra(Activity3.EXTRA_CHECK_IN_DAY, DateUtils.toEpochDay(checkInCalendar));
+                intent.putExtra(Activity3.EXTRA_NIGHTS, nights);
                 startActivity(intent);
             });
         }
@@ -165,7 +212,9 @@ public class MainActivity extends AppCompatActivity {
             searchLocation.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
                 @Override
                 public boolean onQueryTextSubmit(String query) {
-                    Toast.makeText(MainActivity.this, "Searching: " + query, Toast.LENGTH_SHORT).show();
+                    Intent intent = new Intent(MainActivity.this, Activity3.class);
+                    intent.putExtra("searchQuery", query);
+                    startActivity(intent);
                     return true;
                 }
 
@@ -202,10 +251,11 @@ public class MainActivity extends AppCompatActivity {
 
     private void updateDates() {
         if (checkInDateText != null) {
-            checkInDateText.setText(dateFormat.format(checkInCalendar.getTime()));
+            checkInDateText.setText(DateUtils.formatDisplay(DateUtils.toEpochDay(checkInCalendar)));
         }
         if (checkOutDateText != null) {
-            String checkOutText = "Check-out Date: " + dateFormat.format(checkOutCalendar.getTime());
+            String checkOutText = "Check-out Date: "
+                    + DateUtils.formatDisplay(DateUtils.toEpochDay(checkOutCalendar));
             checkOutDateText.setText(checkOutText);
         }
     }
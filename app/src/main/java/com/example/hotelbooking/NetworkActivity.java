@@ -16,22 +16,28 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.volley.Request;
-import com.android.volley.RequestQueue;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
 
 import com.example.hotelbooking.adapter.HotelAdapter;
 import com.example.hotelbooking.database.DatabaseHelper;
+import com.example.hotelbooking.database.HotelChange;
+import com.example.hotelbooking.database.HotelRepository;
+import com.example.hotelbooking.database.HotelSyncSession;
 import com.example.hotelbooking.fragment.HotelFormFragment;
 import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.HotelSummary;
 import com.example.hotelbooking.network.ApiConfig;
+import com.example.hotelbooking.network.HotelPageDownloader;
+import com.example.hotelbooking.network.HotelStreamRequest;
+import com.example.hotelbooking.network.NetworkClient;
+import com.example.hotelbooking.network.ValidatorStore;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class NetworkActivity extends AppCompatActivity implements HotelAdapter.OnHotelClickListener {
@@ -46,27 +52,44 @@ public class NetworkActivity extends AppCompatActivity implements HotelAdapter.O
     private View fragmentContainer;
 
     // Data and Networking
-    private List<Hotel> hotelList; // This will hold data from the local DB
-    private RequestQueue requestQueue;
-    private DatabaseHelper dbHelper; // Instance of the local database helper
+    private List<HotelSummary> hotelList; // This will hold data from the local DB
+    private NetworkClient networkClient;
+    private ValidatorStore validatorStore;
+    private HotelPageDownloader hotelDownload; // In flight, or null
+    private HotelRepository repository; // Asynchronous access to the local database
+    private final DatabaseHelper.OnHotelsChangedListener changeListener = this::onHotelsChanged;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_network);
 
-        requestQueue = Volley.newRequestQueue(this);
-        dbHelper = new DatabaseHelper(this); // Initialize DatabaseHelper
+        networkClient = NetworkClient.getInstance(this);
+        validatorStore = new ValidatorStore(this);
+        repository = HotelRepository.getInstance(this); // Initialize the repository
 
         setupToolbar();
         initializeViews();
         setupRecyclerView();
         setupListeners();
 
+        // Show the local copy first; the sync's changes are then applied row by row
+        repository.addOnHotelsChangedListener(changeListener);
+        loadHotelsFromLocalDatabase();
+
         // Fetch data from server, which will then update the local DB and UI
         fetchHotelsFromServer();
     }
 
+    @Override
+    protected void onDestroy() {
+        repository.removeOnHotelsChangedListener(changeListener);
+        if (hotelDownload != null) {
+            hotelDownload.cancel();
+        }
+        super.onDestroy();
+    }
+
     private void setupToolbar() {
         Toolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
@@ -103,78 +126,93 @@ public class NetworkActivity extends AppCompatActivity implements HotelAdapter.O
     }
 
     /**
-     * Step 1: Fetches all hotels from the Flask server.
+     * Step 1: Downloads the hotels from the Flask server. They are parsed as they arrive
+     * and handed to the database in batches (step 2), so the payload is never held whole.
+     * A paginated list downloads a few pages at a time.
      */
     private void fetchHotelsFromServer() {
+        if (hotelDownload != null) {
+            return; // A refresh is already running
+        }
         showLoading(true);
         updateStatus("Syncing with server...");
 
-        JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET, ApiConfig.GET_ALL_HOTELS, null,
-                response -> {
-                    try {
-                        // Assuming the JSON response is {"success": true, "records": [...]}
-                        JSONArray recordsArray = response.getJSONArray("records");
-                        List<Hotel> networkHotels = new ArrayList<>();
-                        for (int i = 0; i < recordsArray.length(); i++) {
-                            JSONObject hotelJson = recordsArray.getJSONObject(i);
-                            // Create a local Hotel object from the JSON
-                            Hotel hotel = new Hotel(
-                                    hotelJson.getInt("id"),
-                                    hotelJson.getString("name"),
-                                    hotelJson.getString("location"),
-                                    hotelJson.getInt("rating"),
-                                    hotelJson.getDouble("price"),
-                                    null, // checkInDate - not provided by your simplified network model
-                                    true, // available - assuming true from network
-                                    null  // roomType - not provided by your simplified network model
-                            );
-                            // In a real app, you would also parse the image URL and save it
-                            // hotel.setImageUrl(hotelJson.optString("image_url"));
-                            networkHotels.add(hotel);
-                        }
-
-                        // Step 2: Synchronize the local database with this new data
-                        synchronizeLocalDatabase(networkHotels);
-
-                    } catch (JSONException e) {
-                        handleError(new VolleyError("Failed to parse server data.", e));
+        HotelSyncSession session = repository.beginSync();
+        hotelDownload = new HotelPageDownloader(validatorStore,
+                batch -> repository.applySyncBatch(session, batch),
+                (hotelsRead, total) -> updateStatus("Syncing with server... " + hotelsRead + " of " + total),
+                result -> {
+                    hotelDownload = null;
+                    if (result.isNotModified()) {
+                        showLoading(false);
+                        updateStatus("Already up to date.");
+                        return;
                     }
+                    finishSync(session, result);
                 },
-                this::handleError // Pass the error directly to our handler
-        );
-        requestQueue.add(request);
+                this::handleDownloadError);
+        hotelDownload.start(networkClient);
     }
 
     /**
-     * Step 2: Wipes the local database and refills it with fresh data from the server.
+     * Step 2: Once every batch is written, removes the local hotels the server no longer lists.
      */
-    private void synchronizeLocalDatabase(List<Hotel> networkHotels) {
-        // Run database operations on a background thread to avoid blocking the UI
-        new Thread(() -> {
-            dbHelper.deleteAllHotels(); // Clear the local database first
-            for (Hotel hotel : networkHotels) {
-                dbHelper.addHotel(hotel); // Add each hotel from the server to the local DB
+    private void finishSync(HotelSyncSession session, HotelStreamRequest.Result download) {
+        // The repository runs the sync on its writer thread to avoid blocking the UI.
+        // A paginated list without a version may have shifted between pages; keep what was not seen.
+        repository.finishSync(session, download.isComplete(), result -> {
+            Log.d("NetworkActivity", "Sync finished: " + result + ", " + networkClient.getConnectionMetrics());
+            showLoading(false);
+            if (result == null) {
+                updateStatus("Sync failed. Showing local data.");
+                return;
             }
-            // After syncing, load data from the local DB to update the UI (on the main thread)
-            runOnUiThread(this::loadHotelsFromLocalDatabase);
-        }).start();
+            validatorStore.put(download.getValidators());
+            // Step 3: the changed rows reach the list through onHotelsChanged()
+            updateStatus("Synced: " + result.getInserted() + " added, " + result.getUpdated()
+                    + " updated, " + result.getDeleted() + " removed.");
+            Toast.makeText(this, "Data synced with server!", Toast.LENGTH_SHORT).show();
+        });
     }
 
     /**
-     * Step 3: Loads all hotels from the local SQLite database and updates the RecyclerView.
+     * Loads all hotels from the local SQLite database and updates the RecyclerView.
      */
     private void loadHotelsFromLocalDatabase() {
-        hotelList.clear();
-        hotelList.addAll(dbHelper.getAllHotels());
-        adapter.notifyDataSetChanged(); // Refresh the RecyclerView
-        showLoading(false);
-        updateStatus("Synced " + hotelList.size() + " hotels.");
-        Toast.makeText(this, "Data synced with server!", Toast.LENGTH_SHORT).show();
+        repository.getHotelSummaries(summaries -> {
+            if (summaries == null) {
+                return;
+            }
+            hotelList.clear();
+            hotelList.addAll(summaries);
+            adapter.notifyDataSetChanged(); // Refresh the RecyclerView
+        });
+    }
+
+    /**
+     * Applies a committed database change to just the affected rows of the list.
+     */
+    private void onHotelsChanged(HotelChange change) {
+        if (change.isReset()) {
+            loadHotelsFromLocalDatabase();
+            return;
+        }
+        int[] changedIds = change.getChangedIds();
+        if (changedIds.length == 0) {
+            // The whole table is listed here, so the list is always complete
+            adapter.applyChange(change, Collections.emptyList(), true, true);
+            return;
+        }
+        repository.getHotelSummariesByIds(changedIds, rows -> {
+            if (rows != null) {
+                adapter.applyChange(change, rows, true, true);
+            }
+        });
     }
 
     private void showHotelForm(Hotel hotel) {
         HotelFormFragment fragment = HotelFormFragment.newInstance(hotel);
-        fragment.setOnHotelSavedListener(() -> {
+        fragment.setOnHotelSavedListener(hotelId -> {
             // After any save (create or update), always re-sync with the server
             fetchHotelsFromServer();
         });
@@ -191,13 +229,17 @@ public class NetworkActivity extends AppCompatActivity implements HotelAdapter.O
     }
 
     @Override
-    public void onEditClick(Hotel hotel) {
-        // Show the form fragment, passing the selected hotel data for editing
-        showHotelForm(hotel);
+    public void onEditClick(HotelSummary summary) {
+        // Show the form fragment, passing the full hotel row for editing
+        repository.getHotel(summary.getId(), hotel -> {
+            if (hotel != null) {
+                showHotelForm(hotel);
+            }
+        });
     }
 
     @Override
-    public void onDeleteClick(Hotel hotel) {
+    public void onDeleteClick(HotelSummary hotel) {
         new AlertDialog.Builder(this)
                 .setTitle("Delete Hotel")
                 .setMessage("Are you sure you want to delete '" + hotel.getName() + "'? This will also delete it from the web server.")
@@ -206,7 +248,7 @@ public class NetworkActivity extends AppCompatActivity implements HotelAdapter.O
                 .show();
     }
 
-    private void deleteHotelFromServer(Hotel hotel) {
+    private void deleteHotelFromServer(HotelSummary hotel) {
         showLoading(true);
         try {
             JSONObject jsonBody = new JSONObject();
@@ -219,14 +261,14 @@ public class NetworkActivity extends AppCompatActivity implements HotelAdapter.O
                     },
                     this::handleError
             );
-            requestQueue.add(request);
+            networkClient.add(request);
         } catch (JSONException e) {
             handleError(new VolleyError("Error creating delete request.", e));
         }
     }
 
     @Override
-    public void onItemClick(Hotel hotel) {
+    public void onItemClick(HotelSummary hotel) {
         Toast.makeText(this, "Clicked on local hotel: " + hotel.getName(), Toast.LENGTH_SHORT).show();
     }
 
@@ -254,6 +296,17 @@ public class NetworkActivity extends AppCompatActivity implements HotelAdapter.O
         statusText.setText(message);
     }
 
+    private void handleDownloadError(Exception error) {
+        hotelDownload = null;
+        showLoading(false);
+        String errorMessage = error.getMessage() != null
+                ? "Request Error: " + error.getMessage()
+                : "An unknown network error occurred.";
+        updateStatus(errorMessage);
+        Toast.makeText(this, errorMessage, Toast.LENGTH_LONG).show();
+        Log.e("NetworkActivity", "Download Error: " + errorMessage, error);
+    }
+
     private void handleError(VolleyError error) {
         showLoading(false);
         String errorMessage = "An error occurred";
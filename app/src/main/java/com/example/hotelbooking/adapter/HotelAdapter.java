@@ -1,7 +1,5 @@
 package com.example.hotelbooking.adapter;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -14,22 +12,25 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.example.hotelbooking.R;
-import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.database.DatabaseHelper;
+import com.example.hotelbooking.database.HotelChange;
+import com.example.hotelbooking.model.HotelSummary;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class HotelAdapter extends RecyclerView.Adapter<HotelAdapter.HotelViewHolder> {
 
-    private List<Hotel> hotelList;
+    private List<HotelSummary> hotelList;
     private OnHotelClickListener listener;
 
     public interface OnHotelClickListener {
-        void onEditClick(Hotel hotel);
-        void onDeleteClick(Hotel hotel);
-        void onItemClick(Hotel hotel);
+        void onEditClick(HotelSummary hotel);
+        void onDeleteClick(HotelSummary hotel);
+        void onItemClick(HotelSummary hotel);
     }
 
-    public HotelAdapter(List<Hotel> hotelList, OnHotelClickListener listener) {
+    public HotelAdapter(List<HotelSummary> hotelList, OnHotelClickListener listener) {
         this.hotelList = hotelList;
         this.listener = listener;
     }
@@ -44,7 +45,7 @@ public class HotelAdapter extends RecyclerView.Adapter<HotelAdapter.HotelViewHol
 
     @Override
     public void onBindViewHolder(@NonNull HotelViewHolder holder, int position) {
-        Hotel hotel = hotelList.get(position);
+        HotelSummary hotel = hotelList.get(position);
         holder.bind(hotel);
     }
 
@@ -53,11 +54,98 @@ public class HotelAdapter extends RecyclerView.Adapter<HotelAdapter.HotelViewHol
         return hotelList.size();
     }
 
-    public void updateList(List<Hotel> newList) {
+    public void updateList(List<HotelSummary> newList) {
         this.hotelList = newList;
         notifyDataSetChanged();
     }
 
+    /**
+     * Adds a freshly loaded page to the end of the list without rebinding existing rows,
+     * then drops rows from the start until at most {@code maxRows} are left.
+     * @return the dropped rows, empty if none.
+     */
+    public List<HotelSummary> appendPage(List<HotelSummary> page, int maxRows) {
+        int start = hotelList.size();
+        hotelList.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+        return removeRange(0, hotelList.size() - maxRows);
+    }
+
+    /**
+     * Adds a page loaded when scrolling back to the start of the list, then drops rows
+     * from the end until at most {@code maxRows} are left.
+     * @return the dropped rows, empty if none.
+     */
+    public List<HotelSummary> prependPage(List<HotelSummary> page, int maxRows) {
+        hotelList.addAll(0, page);
+        notifyItemRangeInserted(0, page.size());
+        int excess = hotelList.size() - maxRows;
+        return removeRange(hotelList.size() - Math.max(excess, 0), excess);
+    }
+
+    private List<HotelSummary> removeRange(int start, int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        List<HotelSummary> range = hotelList.subList(start, start + count);
+        List<HotelSummary> removed = new ArrayList<>(range);
+        range.clear();
+        notifyItemRangeRemoved(start, count);
+        return removed;
+    }
+
+    /**
+     * Applies a committed change in place with item-level notifications, so only the
+     * affected rows are rebound. The list must be in ascending id order.
+     * @param changedRows the current summaries of the change's inserted and updated ids.
+     * @param startReached whether the list starts at the first row of the table. If not,
+     *                     rows before the first loaded one are left for the previous page.
+     * @param endReached whether the list already reaches the end of the table. If not,
+     *                   rows past the last loaded one are left for the next page.
+     */
+    public void applyChange(HotelChange change, List<HotelSummary> changedRows, boolean startReached,
+                            boolean endReached) {
+        for (int id : change.getDeletedIds()) {
+            int position = positionOf(id);
+            if (position >= 0) {
+                hotelList.remove(position);
+                notifyItemRemoved(position);
+            }
+        }
+        for (HotelSummary row : changedRows) {
+            int position = positionOf(row.getId());
+            if (position >= 0) {
+                hotelList.set(position, row);
+                notifyItemChanged(position);
+                continue;
+            }
+            int insertAt = -position - 1;
+            if ((insertAt == 0 && !startReached) || (insertAt == hotelList.size() && !endReached)) {
+                continue;
+            }
+            hotelList.add(insertAt, row);
+            notifyItemInserted(insertAt);
+        }
+    }
+
+    // Binary search by id; returns -(insertion point) - 1 when absent, like Collections.binarySearch
+    private int positionOf(int id) {
+        int low = 0;
+        int high = hotelList.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = hotelList.get(mid).getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
     class HotelViewHolder extends RecyclerView.ViewHolder {
         private ImageView hotelImage;
         private TextView hotelName;
@@ -78,64 +166,27 @@ public class HotelAdapter extends RecyclerView.Adapter<HotelAdapter.HotelViewHol
             deleteButton = itemView.findViewById(R.id.deleteButton);
         }
 
-        public void bind(Hotel hotel) {
+        public void bind(HotelSummary hotel) {
             hotelName.setText(hotel.getName());
             hotelLocation.setText(hotel.getLocation());
             hotelRating.setText("Rating: " + hotel.getRating() + "★");
             hotelPrice.setText("$" + hotel.getPrice() + "/night");
 
-            // Logic to load image: URL first, then byte array, then default
-            boolean imageLoaded = false;
-
-            // 1. Try URL
+            // Image sources in order: server URL, stored image file, default.
+            // Stored images are streamed and downsampled by Glide rather than decoded whole.
+            Object imageSource = null;
             if (hotel.getImageUrl() != null && !hotel.getImageUrl().isEmpty()) {
-                Glide.with(itemView.getContext())
-                        .load(hotel.getImageUrl())
-                        .placeholder(R.drawable.default_hotel_image)
-                        .error(R.drawable.default_hotel_image)
-                        .into(hotelImage);
-                imageLoaded = true;
+                imageSource = hotel.getImageUrl();
+            } else if (hotel.getImageKey() != null) {
+                imageSource = DatabaseHelper.getInstance(itemView.getContext())
+                        .getImageStore().getFile(hotel.getImageKey());
             }
-
-            // 2. Try Byte Array (if URL failed or empty)
-            if (!imageLoaded) {
-                byte[] imageBytes = hotel.getImage();
-                if (imageBytes != null && imageBytes.length > 0) {
-                    try {
-                        Bitmap bitmap = BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
-                        if (bitmap != null) {
-                            hotelImage.setImageBitmap(bitmap);
-                            imageLoaded = true;
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
-
-            // 3. Default fallback
-            if (!imageLoaded) {
-                // If Glide is loading, it handles placeholder.
-                // But if we didn't trigger Glide and didn't have bytes:
-                // However, Glide call above is async. If we call setImageBitmap after Glide starts, it might conflict.
-                // Simplified logic:
-                
-                if (hotel.getImageUrl() == null || hotel.getImageUrl().isEmpty()) {
-                     // No URL, so we rely on bytes or default
-                     if (hotel.getImage() != null && hotel.getImage().length > 0) {
-                          try {
-                                Bitmap bitmap = BitmapFactory.decodeByteArray(hotel.getImage(), 0, hotel.getImage().length);
-                                hotelImage.setImageBitmap(bitmap);
-                          } catch (Exception e) {
-                                hotelImage.setImageResource(R.drawable.default_hotel_image);
-                          }
-                     } else {
-                          hotelImage.setImageResource(R.drawable.default_hotel_image);
-                     }
-                }
-                // If URL exists, Glide handles it (including error placeholder)
-            }
-
+            Glide.with(itemView.getContext())
+                    .load(imageSource)
+                    .placeholder(R.drawable.default_hotel_image)
+                    .error(R.drawable.default_hotel_image)
+                    .fallback(R.drawable.default_hotel_image)
+                    .into(hotelImage);
 
             editButton.setOnClickListener(v -> {
                 if (listener != null) {
@@ -0,0 +1,44 @@
+package com.example.hotelbooking.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Asks for the next page once the user scrolls within a few items of the end of the list,
+ * and for the previous one near its start, once the list dropped rows there.
+ */
+public abstract class PagingScrollListener extends RecyclerView.OnScrollListener {
+
+    // How many items before either end the adjacent page starts loading
+    private static final int PREFETCH_DISTANCE = 10;
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        if (layoutManager == null) {
+            return;
+        }
+        if (dy > 0 && canLoadMore()
+                && layoutManager.findLastVisibleItemPosition() >= layoutManager.getItemCount() - PREFETCH_DISTANCE) {
+            onLoadMore();
+        } else if (dy < 0 && canLoadPrevious()
+                && layoutManager.findFirstVisibleItemPosition() < PREFETCH_DISTANCE) {
+            onLoadPrevious();
+        }
+    }
+
+    /**
+     * @return false while a page is loading or once there are no more pages.
+     */
+    protected abstract boolean canLoadMore();
+
+    protected abstract void onLoadMore();
+
+    /**
+     * @return false while a page is loading or while the list starts at the first row.
+     */
+    protected abstract boolean canLoadPrevious();
+
+    protected abstract void onLoadPrevious();
+}
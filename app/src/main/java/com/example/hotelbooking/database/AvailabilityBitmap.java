@@ -0,0 +1,124 @@
+package com.example.hotelbooking.database;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Booked nights of one room over the {@link #DAYS} days starting at a given epoch day,
+ * one bit per night, packed into {@link #WORDS} longs. Many rooms share one long[] by
+ * each taking {@link #WORDS} words from their own offset.
+ * <p>
+ * Days before the window are dropped; bookings after it are not recorded, so callers
+ * only trust a bitmap for stays that {@link #covers fall inside} the window.
+ */
+final class AvailabilityBitmap {
+
+    static final int DAYS = 365;
+    static final int WORDS = (DAYS + 63) / 64;
+    // Size of the BLOB stored in the rooms table
+    static final int BYTES = WORDS * 8;
+
+    private AvailabilityBitmap() {
+    }
+
+    static boolean covers(int startDay, int checkInDay, int checkOutDay) {
+        return checkInDay >= startDay && checkInDay < checkOutDay && checkOutDay <= startDay + DAYS;
+    }
+
+    /**
+     * Sets the bits of the nights from {@code checkInDay} up to, not including,
+     * {@code checkOutDay} that fall inside the window.
+     */
+    static void markBooked(long[] bits, int offset, int startDay, int checkInDay, int checkOutDay) {
+        int from = Math.max(checkInDay, startDay) - startDay;
+        int to = Math.min(checkOutDay, startDay + DAYS) - startDay;
+        while (from < to) {
+            int word = from >>> 6;
+            int end = Math.min(to, (word + 1) << 6);
+            bits[offset + word] |= rangeMask(from & 63, end - (word << 6));
+            from = end;
+        }
+    }
+
+    // Bits fromBit (inclusive) to toBit (exclusive, at most 64) of one word
+    private static long rangeMask(int fromBit, int toBit) {
+        long below = toBit == 64 ? -1L : (1L << toBit) - 1;
+        return below & (-1L << fromBit);
+    }
+
+    /**
+     * Moves a bitmap from the window at {@code fromDay} to the later window at
+     * {@code toDay}. Nights that leave the window are dropped and the new tail is
+     * empty, so bookings in it must be marked again.
+     */
+    static void shift(long[] bits, int offset, int fromDay, int toDay) {
+        int days = toDay - fromDay;
+        if (days <= 0) {
+            return;
+        }
+        int wordShift = days >>> 6;
+        int bitShift = days & 63;
+        for (int i = 0; i < WORDS; i++) {
+            int source = i + wordShift;
+            long low = source < WORDS ? bits[offset + source] >>> bitShift : 0;
+            long high = bitShift != 0 && source + 1 < WORDS ? bits[offset + source + 1] << (64 - bitShift) : 0;
+            bits[offset + i] = low | high;
+        }
+        clearPastEnd(bits, offset);
+    }
+
+    // Keeps the unused bits of the last word at zero
+    private static void clearPastEnd(long[] bits, int offset) {
+        int used = DAYS - ((WORDS - 1) << 6);
+        bits[offset + WORDS - 1] &= rangeMask(0, used);
+    }
+
+    static byte[] toBytes(long[] bits, int offset) {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asLongBuffer().put(bits, offset, WORDS);
+        return buffer.array();
+    }
+
+    /**
+     * Reads a bitmap written by {@link #toBytes}.
+     * @return false if the BLOB has the wrong size, leaving the words untouched.
+     */
+    static boolean fromBytes(byte[] blob, long[] bits, int offset) {
+        if (blob == null || blob.length != BYTES) {
+            return false;
+        }
+        ByteBuffer.wrap(blob).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(bits, offset, WORDS);
+        return true;
+    }
+
+    /**
+     * The nights of one stay as a mask, so testing a room is an AND of the one or two
+     * words the stay touches.
+     */
+    static final class Stay {
+        private final long[] mask = new long[WORDS];
+        private final int firstWord;
+        private final int lastWord;
+
+        /**
+         * @throws IllegalArgumentException if the window does not cover the stay.
+         */
+        Stay(int startDay, int checkInDay, int checkOutDay) {
+            if (!covers(startDay, checkInDay, checkOutDay)) {
+                throw new IllegalArgumentException("Stay outside the availability window");
+            }
+            markBooked(mask, 0, startDay, checkInDay, checkOutDay);
+            firstWord = (checkInDay - startDay) >>> 6;
+            lastWord = (checkOutDay - 1 - startDay) >>> 6;
+        }
+
+        boolean isFree(long[] bits, int offset) {
+            for (int word = firstWord; word <= lastWord; word++) {
+                if ((bits[offset + word] & mask[word]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.hotelbooking.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.Arrays;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * The booked-day bitmaps of every room, held in flat arrays ordered by hotel. Asking
+ * which hotels have a big enough room free for some nights is one pass of word ANDs
+ * over these arrays, with no query and no object per room.
+ * <p>
+ * Built by {@link #load} and then kept current by BookingEngine, which replaces a
+ * room's bits after every booking and cancellation. Not thread-safe on its own.
+ */
+final class AvailabilityIndex {
+
+    private static final int[] NO_IDS = new int[0];
+
+    final int startDay;
+    private final int roomCount;
+    private final int[] roomIds;
+    private final int[] hotelIds;
+    private final int[] capacities;
+    private final long[] bits;
+    // Room id in the upper and position in the lower half, sorted, for updates by room id
+    private final long[] positionsByRoomId;
+
+    private AvailabilityIndex(int startDay, int roomCount) {
+        this.startDay = startDay;
+        this.roomCount = roomCount;
+        roomIds = new int[roomCount];
+        hotelIds = new int[roomCount];
+        capacities = new int[roomCount];
+        bits = new long[roomCount * AvailabilityBitmap.WORDS];
+        positionsByRoomId = new long[roomCount];
+    }
+
+    /**
+     * Reads every room's stored bitmap and moves it to the window at {@code startDay}.
+     * Bitmaps saved on an earlier day do not know the newest days of the window, and
+     * rooms rewritten by a catalogue sync have none, so reservations reaching into those
+     * days are marked again from the reservations table.
+     */
+    static AvailabilityIndex load(SQLiteDatabase db, int startDay) {
+        AvailabilityIndex index;
+        int windowEnd = startDay + AvailabilityBitmap.DAYS;
+        int unknownFrom = windowEnd;
+        try (Cursor cursor = db.rawQuery(SQL_ROOM_AVAILABILITY, null)) {
+            index = new AvailabilityIndex(startDay, cursor.getCount());
+            for (int i = 0; cursor.moveToNext(); i++) {
+                index.roomIds[i] = cursor.getInt(0);
+                index.hotelIds[i] = cursor.getInt(1);
+                index.capacities[i] = cursor.getInt(2);
+                index.positionsByRoomId[i] = ((long) index.roomIds[i] << 32) | i;
+                int offset = i * AvailabilityBitmap.WORDS;
+                int savedDay = cursor.getInt(3);
+                if (!cursor.isNull(3) && savedDay <= startDay
+                        && AvailabilityBitmap.fromBytes(cursor.getBlob(4), index.bits, offset)) {
+                    AvailabilityBitmap.shift(index.bits, offset, savedDay, startDay);
+                    unknownFrom = Math.min(unknownFrom, Math.max(savedDay + AvailabilityBitmap.DAYS, startDay));
+                } else {
+                    // Never saved, or saved with a clock that has since gone back
+                    unknownFrom = startDay;
+                }
+            }
+        }
+        Arrays.sort(index.positionsByRoomId);
+        if (unknownFrom < windowEnd) {
+            // Marking a stay twice is harmless, so one query covers every room's gap
+            try (Cursor cursor = db.rawQuery(SQL_RESERVATIONS_IN_RANGE,
+                    new String[]{String.valueOf(unknownFrom), String.valueOf(windowEnd)})) {
+                while (cursor.moveToNext()) {
+                    int position = index.position(cursor.getInt(0));
+                    if (position >= 0) {
+                        AvailabilityBitmap.markBooked(index.bits, position * AvailabilityBitmap.WORDS,
+                                startDay, cursor.getInt(1), cursor.getInt(2));
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    int getRoomCount() {
+        return roomCount;
+    }
+
+    boolean contains(int roomId) {
+        return position(roomId) >= 0;
+    }
+
+    /**
+     * Replaces the room's bits with the given bitmap for this index's window. Unknown
+     * rooms are ignored; they are picked up by the next load.
+     */
+    void update(int roomId, long[] roomBits) {
+        int position = position(roomId);
+        if (position >= 0) {
+            System.arraycopy(roomBits, 0, bits, position * AvailabilityBitmap.WORDS, AvailabilityBitmap.WORDS);
+        }
+    }
+
+    /**
+     * @return ids of hotels with at least one room for {@code minCapacity} guests that is
+     * free for the whole stay, in ascending order.
+     */
+    int[] findHotelsWithFreeRoom(AvailabilityBitmap.Stay stay, int minCapacity) {
+        int[] found = new int[16];
+        int count = 0;
+        int position = 0;
+        while (position < roomCount) {
+            int hotelId = hotelIds[position];
+            int end = hotelEnd(position);
+            if (hasFreeRoom(position, end, stay, minCapacity)) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = hotelId;
+            }
+            position = end;
+        }
+        return count == 0 ? NO_IDS : Arrays.copyOf(found, count);
+    }
+
+    /**
+     * @return true if the hotel has rooms and none of them is free for the whole stay.
+     */
+    boolean isFullyBooked(int hotelId, AvailabilityBitmap.Stay stay) {
+        int start = hotelStart(hotelId);
+        if (start < 0) {
+            return false;
+        }
+        return !hasFreeRoom(start, hotelEnd(start), stay, 0);
+    }
+
+    // Rooms by position, for stays the bitmaps do not cover
+    int roomIdAt(int position) {
+        return roomIds[position];
+    }
+
+    int hotelIdAt(int position) {
+        return hotelIds[position];
+    }
+
+    int capacityAt(int position) {
+        return capacities[position];
+    }
+
+    private boolean hasFreeRoom(int start, int end, AvailabilityBitmap.Stay stay, int minCapacity) {
+        for (int i = start; i < end; i++) {
+            if (capacities[i] >= minCapacity && stay.isFree(bits, i * AvailabilityBitmap.WORDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // First position of the hotel's rooms, or -1
+    private int hotelStart(int hotelId) {
+        int position = Arrays.binarySearch(hotelIds, 0, roomCount, hotelId);
+        if (position < 0) {
+            return -1;
+        }
+        while (position > 0 && hotelIds[position - 1] == hotelId) {
+            position--;
+        }
+        return position;
+    }
+
+    private int hotelEnd(int start) {
+        int end = start + 1;
+        while (end < roomCount && hotelIds[end] == hotelIds[start]) {
+            end++;
+        }
+        return end;
+    }
+
+    private int position(int roomId) {
+        int low = 0;
+        int high = roomCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = (int) (positionsByRoomId[middle] >> 32);
+            if (id < roomId) {
+                low = middle + 1;
+            } else if (id > roomId) {
+                high = middle - 1;
+            } else {
+                return (int) positionsByRoomId[middle];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,440 @@
+package com.example.hotelbooking.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+
+import com.example.hotelbooking.model.Reservation;
+import com.example.hotelbooking.util.DateUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * Books rooms without double-booking them and answers which rooms of a hotel are free
+ * for a stay. Each room's reservations are kept in memory as an interval index: a
+ * TreeMap from check-in day to reservation. Stays of one room never overlap, so only
+ * the stay starting last before the requested check-out can collide with the request,
+ * and a check costs one O(log n) lookup instead of a scan.
+ * <p>
+ * A room's index is loaded from the reservations table on first use and then kept in
+ * step by this class, which is the only writer of that table. Bookings of one room
+ * are serialized on its schedule, so two guests can never both win the same nights;
+ * bookings of different rooms run in parallel.
+ * <p>
+ * For questions across many rooms, each room row also stores its booked nights of the
+ * coming year as a bitmap (see AvailabilityBitmap), written in the same transaction as
+ * the booking. They are loaded into one {@link AvailabilityIndex}, so "which hotels
+ * have a room for two free these nights" is a pass of word ANDs instead of a join.
+ */
+public class BookingEngine {
+
+    private static final String TAG = "BookingEngine";
+
+    private final DatabaseHelper dbHelper;
+    // Both guarded by this; schedules are looked up here and then locked on their own
+    private final SparseArray<RoomSchedule> schedules = new SparseArray<>();
+    private final SparseArray<int[]> roomIdsByHotel = new SparseArray<>();
+    // Taken after a schedule's lock, never before it
+    private final Object availabilityLock = new Object();
+    private AvailabilityIndex availability; // Guarded by availabilityLock; null until first use
+
+    private static final class RoomSchedule {
+        final int hotelId;
+        final TreeMap<Integer, Reservation> stays = new TreeMap<>();
+        // Set once the engine dropped this schedule; a booking holding it must look again
+        boolean stale;
+
+        RoomSchedule(int hotelId) {
+            this.hotelId = hotelId;
+        }
+
+        boolean overlaps(int checkInDay, int checkOutDay) {
+            Map.Entry<Integer, Reservation> latest = stays.lowerEntry(checkOutDay);
+            return latest != null && latest.getValue().getCheckOutDay() > checkInDay;
+        }
+    }
+
+    BookingEngine(DatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    /**
+     * Books the room for the nights from {@code checkInDay} up to, not including,
+     * {@code checkOutDay}.
+     * @return the saved reservation, or null if any of the nights is already taken, the
+     * dates are invalid, the room does not exist or the write failed.
+     */
+    public Reservation book(int roomId, int checkInDay, int checkOutDay, String guestName) {
+        if (checkInDay == DateUtils.NO_DATE || checkOutDay <= checkInDay) {
+            return null;
+        }
+        while (true) {
+            RoomSchedule schedule = schedule(roomId);
+            if (schedule == null) {
+                return null;
+            }
+            synchronized (schedule) {
+                if (schedule.stale) {
+                    continue; // Dropped by a catalogue change; reload it
+                }
+                if (schedule.overlaps(checkInDay, checkOutDay)) {
+                    return null;
+                }
+                Reservation reservation = new Reservation(roomId, checkInDay, checkOutDay, guestName);
+                // Added up front so the saved bitmap includes it; taken out again on failure
+                schedule.stays.put(checkInDay, reservation);
+                SQLiteDatabase db = dbHelper.getWritableDatabase();
+                boolean saved = false;
+                db.beginTransaction();
+                try {
+                    long id = insert(db, reservation);
+                    if (id != -1) {
+                        reservation.setId((int) id);
+                        saveBitmap(db, roomId, schedule);
+                        db.setTransactionSuccessful();
+                        saved = true;
+                    }
+                } catch (Exception e) {
+                    Log.e(TAG, "Error while trying to save reservation", e);
+                } finally {
+                    db.endTransaction();
+                }
+                if (!saved) {
+                    schedule.stays.remove(checkInDay);
+                    return null;
+                }
+                updateAvailability(roomId, schedule);
+                return reservation;
+            }
+        }
+    }
+
+    /**
+     * @return true if the reservation existed and was removed.
+     */
+    public boolean cancel(Reservation reservation) {
+        RoomSchedule schedule = schedule(reservation.getRoomId());
+        if (schedule == null) {
+            return false;
+        }
+        synchronized (schedule) {
+            Reservation stored = schedule.stays.get(reservation.getCheckInDay());
+            if (stored == null || stored.getId() != reservation.getId()) {
+                return false;
+            }
+            schedule.stays.remove(reservation.getCheckInDay());
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            boolean deleted = false;
+            db.beginTransaction();
+            try {
+                if (db.delete(TABLE_RESERVATION, RESERVATION_ID + " = ?",
+                        new String[]{String.valueOf(reservation.getId())}) > 0) {
+                    saveBitmap(db, reservation.getRoomId(), schedule);
+                    db.setTransactionSuccessful();
+                    deleted = true;
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error while trying to cancel reservation", e);
+            } finally {
+                db.endTransaction();
+            }
+            if (!deleted) {
+                schedule.stays.put(stored.getCheckInDay(), stored);
+                return false;
+            }
+            updateAvailability(reservation.getRoomId(), schedule);
+            return true;
+        }
+    }
+
+    public boolean isRoomFree(int roomId, int checkInDay, int checkOutDay) {
+        RoomSchedule schedule = schedule(roomId);
+        if (schedule == null) {
+            return false;
+        }
+        synchronized (schedule) {
+            return !schedule.overlaps(checkInDay, checkOutDay);
+        }
+    }
+
+    /**
+     * @return the ids of the hotel's rooms that are free for every night of the stay,
+     * in room id order.
+     */
+    public int[] getFreeRoomIds(int hotelId, int checkInDay, int checkOutDay) {
+        int[] roomIds = roomIds(hotelId);
+        int[] free = new int[roomIds.length];
+        int count = 0;
+        for (int roomId : roomIds) {
+            if (isRoomFree(roomId, checkInDay, checkOutDay)) {
+                free[count++] = roomId;
+            }
+        }
+        return Arrays.copyOf(free, count);
+    }
+
+    /**
+     * True when the hotel has rooms and every one of them is taken on some night of the
+     * stay. Hotels without room records are not considered booked out.
+     */
+    public boolean isFullyBooked(int hotelId, int checkInDay, int checkOutDay) {
+        if (checkOutDay <= checkInDay) {
+            return false;
+        }
+        synchronized (availabilityLock) {
+            AvailabilityIndex index = availability();
+            if (index != null && AvailabilityBitmap.covers(index.startDay, checkInDay, checkOutDay)) {
+                return index.isFullyBooked(hotelId, new AvailabilityBitmap.Stay(index.startDay, checkInDay, checkOutDay));
+            }
+        }
+        int[] roomIds = roomIds(hotelId);
+        for (int roomId : roomIds) {
+            if (isRoomFree(roomId, checkInDay, checkOutDay)) {
+                return false;
+            }
+        }
+        return roomIds.length > 0;
+    }
+
+    /**
+     * @return ids of the hotels with at least one room for {@code minCapacity} or more
+     * guests that is free for every night of the stay, in ascending order. Stays within
+     * the coming {@value AvailabilityBitmap#DAYS} days are answered from the bitmaps
+     * alone; later ones fall back to each room's interval index.
+     */
+    public int[] getHotelIdsWithFreeRoom(int checkInDay, int checkOutDay, int minCapacity) {
+        if (checkInDay == DateUtils.NO_DATE || checkOutDay <= checkInDay) {
+            return new int[0];
+        }
+        AvailabilityIndex index;
+        synchronized (availabilityLock) {
+            index = availability();
+            if (index == null) {
+                return new int[0];
+            }
+            if (AvailabilityBitmap.covers(index.startDay, checkInDay, checkOutDay)) {
+                return index.findHotelsWithFreeRoom(
+                        new AvailabilityBitmap.Stay(index.startDay, checkInDay, checkOutDay), minCapacity);
+            }
+        }
+        // Room ids, hotels and capacities of a loaded index never change, only its bits
+        int[] found = new int[16];
+        int count = 0;
+        for (int i = 0; i < index.getRoomCount(); i++) {
+            int hotelId = index.hotelIdAt(i);
+            if (count > 0 && found[count - 1] == hotelId) {
+                continue;
+            }
+            if (index.capacityAt(i) >= minCapacity && isRoomFree(index.roomIdAt(i), checkInDay, checkOutDay)) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = hotelId;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * @return the room's reservations in check-in order.
+     */
+    public List<Reservation> getReservations(int roomId) {
+        RoomSchedule schedule = schedule(roomId);
+        if (schedule == null) {
+            return new ArrayList<>();
+        }
+        synchronized (schedule) {
+            return new ArrayList<>(schedule.stays.values());
+        }
+    }
+
+    /**
+     * Drops what a committed catalogue write made outdated. Deleting rooms deletes their
+     * reservations (a trigger does it in the same transaction), and updated hotels may
+     * have gained rooms.
+     */
+    synchronized void invalidate(HotelChange change) {
+        // Any of these may have added or removed rooms
+        synchronized (availabilityLock) {
+            availability = null;
+        }
+        if (change.isReset()) {
+            for (int i = 0; i < schedules.size(); i++) {
+                markStale(schedules.valueAt(i));
+            }
+            schedules.clear();
+            roomIdsByHotel.clear();
+            return;
+        }
+        for (int hotelId : change.getUpdatedIds()) {
+            roomIdsByHotel.remove(hotelId);
+        }
+        int[] deletedIds = change.getDeletedIds();
+        if (deletedIds.length == 0) {
+            return;
+        }
+        SparseBooleanArray deleted = new SparseBooleanArray(deletedIds.length);
+        for (int hotelId : deletedIds) {
+            deleted.put(hotelId, true);
+            roomIdsByHotel.remove(hotelId);
+        }
+        for (int i = schedules.size() - 1; i >= 0; i--) {
+            RoomSchedule schedule = schedules.valueAt(i);
+            if (deleted.get(schedule.hotelId)) {
+                markStale(schedule);
+                schedules.removeAt(i);
+            }
+        }
+    }
+
+    // Waits for a booking in progress on the schedule, so a reload sees its row
+    private static void markStale(RoomSchedule schedule) {
+        synchronized (schedule) {
+            schedule.stale = true;
+        }
+    }
+
+    /**
+     * @return the room's schedule, loading it on first use, or null if the room does not exist.
+     */
+    private synchronized RoomSchedule schedule(int roomId) {
+        RoomSchedule schedule = schedules.get(roomId);
+        if (schedule != null) {
+            return schedule;
+        }
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        try (Cursor cursor = db.rawQuery(SQL_ROOM_HOTEL_ID, new String[]{String.valueOf(roomId)})) {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            schedule = new RoomSchedule(cursor.getInt(0));
+        }
+        try (Cursor cursor = db.rawQuery(SQL_RESERVATIONS_BY_ROOM_ID, new String[]{String.valueOf(roomId)})) {
+            ReservationRowMapper mapper = new ReservationRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                Reservation reservation = mapper.map(cursor);
+                schedule.stays.put(reservation.getCheckInDay(), reservation);
+            }
+        }
+        schedules.put(roomId, schedule);
+        return schedule;
+    }
+
+    /**
+     * @return the hotel's room ids. The first call for a hotel also loads the schedules of
+     * all its rooms with one query, instead of one query per room.
+     */
+    private synchronized int[] roomIds(int hotelId) {
+        int[] roomIds = roomIdsByHotel.get(hotelId);
+        if (roomIds != null) {
+            return roomIds;
+        }
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        String[] args = {String.valueOf(hotelId)};
+        try (Cursor cursor = db.rawQuery(SQL_ROOM_IDS_BY_HOTEL_ID, args)) {
+            roomIds = new int[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                roomIds[i] = cursor.getInt(0);
+            }
+        }
+        SparseArray<RoomSchedule> loaded = new SparseArray<>(roomIds.length);
+        for (int roomId : roomIds) {
+            if (schedules.get(roomId) == null) {
+                RoomSchedule schedule = new RoomSchedule(hotelId);
+                loaded.put(roomId, schedule);
+                schedules.put(roomId, schedule);
+            }
+        }
+        if (loaded.size() > 0) {
+            try (Cursor cursor = db.rawQuery(SQL_RESERVATIONS_BY_HOTEL_ID, args)) {
+                ReservationRowMapper mapper = new ReservationRowMapper(cursor);
+                while (cursor.moveToNext()) {
+                    Reservation reservation = mapper.map(cursor);
+                    // Rooms that already had a schedule keep it; it may hold newer bookings
+                    RoomSchedule schedule = loaded.get(reservation.getRoomId());
+                    if (schedule != null) {
+                        schedule.stays.put(reservation.getCheckInDay(), reservation);
+                    }
+                }
+            }
+        }
+        roomIdsByHotel.put(hotelId, roomIds);
+        return roomIds;
+    }
+
+    /**
+     * @return the index for today's window, loading it when missing or from an earlier
+     * day, or null if it cannot be read. Call with availabilityLock held.
+     */
+    private AvailabilityIndex availability() {
+        int today = DateUtils.today();
+        if (availability == null || availability.startDay != today) {
+            try {
+                availability = AvailabilityIndex.load(dbHelper.getReadableDatabase(), today);
+            } catch (Exception e) {
+                Log.e(TAG, "Error while trying to load room availability", e);
+                availability = null;
+            }
+        }
+        return availability;
+    }
+
+    // Copies a booking or cancellation into the loaded index; call after the write committed
+    private void updateAvailability(int roomId, RoomSchedule schedule) {
+        synchronized (availabilityLock) {
+            if (availability != null) {
+                availability.update(roomId, bitmap(schedule, availability.startDay));
+            }
+        }
+    }
+
+    private static long[] bitmap(RoomSchedule schedule, int startDay) {
+        long[] bits = new long[AvailabilityBitmap.WORDS];
+        // Stays do not overlap, so only the one starting last before the window can reach into it
+        Integer first = schedule.stays.floorKey(startDay);
+        NavigableMap<Integer, Reservation> inWindow = schedule.stays.subMap(
+                first != null ? first : startDay, true, startDay + AvailabilityBitmap.DAYS, false);
+        for (Reservation stay : inWindow.values()) {
+            AvailabilityBitmap.markBooked(bits, 0, startDay, stay.getCheckInDay(), stay.getCheckOutDay());
+        }
+        return bits;
+    }
+
+    private static void saveBitmap(SQLiteDatabase db, int roomId, RoomSchedule schedule) {
+        int today = DateUtils.today();
+        SQLiteStatement statement = db.compileStatement(SQL_UPDATE_ROOM_AVAILABILITY);
+        try {
+            statement.bindLong(1, today);
+            statement.bindBlob(2, AvailabilityBitmap.toBytes(bitmap(schedule, today), 0));
+            statement.bindLong(3, roomId);
+            statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
+    // Inserts only while the room exists, so a booking racing a delete cannot leave an orphan
+    private static long insert(SQLiteDatabase db, Reservation reservation) {
+        SQLiteStatement statement = db.compileStatement(SQL_INSERT_RESERVATION);
+        try {
+            statement.bindLong(1, reservation.getRoomId());
+            statement.bindLong(2, reservation.getCheckInDay());
+            statement.bindLong(3, reservation.getCheckOutDay());
+            bindStringOrNull(statement, 4, reservation.getGuestName());
+            statement.bindLong(5, reservation.getRoomId());
+            return statement.executeInsert();
+        } finally {
+            statement.close();
+        }
+    }
+}
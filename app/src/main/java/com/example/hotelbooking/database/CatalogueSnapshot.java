@@ -0,0 +1,136 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.hotelbooking.model.Hotel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The catalogue snapshot that the buildCatalogueSnapshot Gradle task packs into the
+ * APK assets. A fresh install imports it before the first download, so the hotel list
+ * has rows at once and even when the server cannot be reached. The next delta sync
+ * then only writes what changed since the snapshot was built.
+ * <p>
+ * The format is what DataOutputStream writes: the magic number, the format version and
+ * the hotel count as ints, then per hotel its id, name, location, rating, price,
+ * check-in epoch day ({@link com.example.hotelbooking.util.DateUtils#NO_DATE} if
+ * none), available flag, room type and image URL ("" if none).
+ */
+final class CatalogueSnapshot {
+
+    private static final String TAG = "CatalogueSnapshot";
+
+    static final String ASSET_NAME = "catalogue.bin";
+    static final int MAGIC = 0x48424353; // "HBCS"
+    static final int FORMAT_VERSION = 1;
+
+    private static final String PREFS_NAME = "catalogue_snapshot";
+    private static final String KEY_IMPORTED = "imported";
+
+    private CatalogueSnapshot() {
+    }
+
+    /**
+     * Imports the bundled snapshot once per install. Databases that already have hotels,
+     * e.g. after an app update, are left alone, and so is a catalogue the user emptied
+     * after the import.
+     * @return the number of hotels imported.
+     */
+    static int importOnFirstRun(Context context, DatabaseHelper dbHelper) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getBoolean(KEY_IMPORTED, false)) {
+            return 0;
+        }
+        int imported = 0;
+        if (dbHelper.getHotelCount() == 0) {
+            List<Hotel> hotels;
+            try (InputStream in = context.getAssets().open(ASSET_NAME)) {
+                hotels = read(in);
+            } catch (FileNotFoundException e) {
+                Log.w(TAG, "No catalogue snapshot in this build");
+                hotels = new ArrayList<>();
+            } catch (IOException e) {
+                // Not marked as imported, so the next start tries again
+                Log.e(TAG, "Error while trying to read the catalogue snapshot", e);
+                return 0;
+            }
+            if (!hotels.isEmpty()) {
+                if (!dbHelper.replaceAllHotels(hotels, new ArrayList<>())) {
+                    return 0;
+                }
+                imported = hotels.size();
+            }
+        }
+        prefs.edit().putBoolean(KEY_IMPORTED, true).apply();
+        Log.i(TAG, "Imported " + imported + " hotels from the catalogue snapshot");
+        return imported;
+    }
+
+    /**
+     * @throws IOException if the stream is not a snapshot of a format this version reads.
+     */
+    static List<Hotel> read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a catalogue snapshot");
+        }
+        int version = data.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported catalogue snapshot version " + version);
+        }
+        int count = data.readInt();
+        List<Hotel> hotels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Hotel hotel = new Hotel(
+                    data.readInt(),
+                    data.readUTF(),
+                    data.readUTF(),
+                    data.readInt(),
+                    data.readDouble(),
+                    data.readInt(),
+                    data.readBoolean(),
+                    data.readUTF()
+            );
+            String imageUrl = data.readUTF();
+            if (!imageUrl.isEmpty()) {
+                hotel.setImageUrl(imageUrl);
+            }
+            hotels.add(hotel);
+        }
+        return hotels;
+    }
+
+    /**
+     * Writes hotels the way the Gradle task does, for tests that need snapshots of their own.
+     */
+    static void write(List<Hotel> hotels, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(hotels.size());
+        for (Hotel hotel : hotels) {
+            data.writeInt(hotel.getId());
+            data.writeUTF(hotel.getName());
+            data.writeUTF(hotel.getLocation());
+            data.writeInt(hotel.getRating());
+            data.writeDouble(hotel.getPrice());
+            data.writeInt(hotel.getCheckInDay());
+            data.writeBoolean(hotel.isAvailable());
+            data.writeUTF(hotel.getRoomType() != null ? hotel.getRoomType() : "");
+            data.writeUTF(hotel.getImageUrl() != null ? hotel.getImageUrl() : "");
+        }
+        data.flush();
+    }
+}
@@ -5,45 +5,223 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
 
 import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.HotelSummary;
+import com.example.hotelbooking.model.LocationStats;
 import com.example.hotelbooking.model.Room;
+import com.example.hotelbooking.model.RoomStats;
+import com.example.hotelbooking.util.DateUtils;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
 
     private static final String TAG = "DatabaseHelper";
     private static final String DATABASE_NAME = "HotelBooking.db";
-    private static final int DATABASE_VERSION = 4; // Incremented version for new column
+    private static final int DATABASE_VERSION = 13; // Incremented version for the reservation range index
 
     // Hotel Table
-    private static final String TABLE_HOTEL = "hotels";
-    private static final String HOTEL_ID = "id";
-    private static final String HOTEL_NAME = "name";
-    private static final String HOTEL_LOCATION = "location";
-    private static final String HOTEL_RATING = "rating";
-    private static final String HOTEL_PRICE = "price";
-    private static final String HOTEL_CHECK_IN = "check_in_date";
-    private static final String HOTEL_AVAILABLE = "available";
-    private static final String HOTEL_ROOM_TYPE = "room_type";
-    private static final String HOTEL_IMAGE = "image";
-    private static final String HOTEL_IMAGE_URL = "image_url"; // New Column
+    static final String TABLE_HOTEL = "hotels";
+    static final String HOTEL_ID = "id";
+    static final String HOTEL_NAME = "name";
+    static final String HOTEL_LOCATION = "location";
+    static final String HOTEL_RATING = "rating";
+    static final String HOTEL_PRICE = "price";
+    static final String HOTEL_CHECK_IN_DAY = "check_in_day"; // Epoch day, NULL when not set
+    static final String HOTEL_AVAILABLE = "available";
+    static final String HOTEL_ROOM_TYPE = "room_type";
+    static final String HOTEL_IMAGE_KEY = "image_key"; // Key into the ImageStore, replaces the image BLOB
+    static final String HOTEL_IMAGE_URL = "image_url"; // New Column
+    static final String HOTEL_CONTENT_HASH = "content_hash"; // Used by delta sync to skip unchanged rows
 
     // Room Table
-    private static final String TABLE_ROOM = "rooms";
-    private static final String ROOM_ID = "id";
-    private static final String ROOM_HOTEL_ID = "hotel_id";
-    private static final String ROOM_NUMBER = "room_number";
-    private static final String ROOM_TYPE = "room_type";
-    private static final String ROOM_CAPACITY = "capacity";
-    private static final String ROOM_HAS_BALCONY = "has_balcony";
-    private static final String ROOM_ADDITIONAL_PRICE = "additional_price";
+    static final String TABLE_ROOM = "rooms";
+    static final String ROOM_ID = "id";
+    static final String ROOM_HOTEL_ID = "hotel_id";
+    static final String ROOM_NUMBER = "room_number";
+    static final String ROOM_TYPE = "room_type";
+    static final String ROOM_CAPACITY = "capacity";
+    static final String ROOM_HAS_BALCONY = "has_balcony";
+    static final String ROOM_ADDITIONAL_PRICE = "additional_price";
+    static final String ROOM_BOOKED_FROM_DAY = "booked_from_day"; // First day of booked_days, NULL if never saved
+    static final String ROOM_BOOKED_DAYS = "booked_days"; // AvailabilityBitmap of the booked nights
 
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    // Reservation Table
+    static final String TABLE_RESERVATION = "reservations";
+    static final String RESERVATION_ID = "id";
+    static final String RESERVATION_ROOM_ID = "room_id";
+    static final String RESERVATION_CHECK_IN_DAY = "check_in_day"; // Epoch day of the first night
+    static final String RESERVATION_CHECK_OUT_DAY = "check_out_day"; // Epoch day after the last night
+    static final String RESERVATION_GUEST_NAME = "guest_name";
+
+    // Columns needed by HotelSummaryRowMapper
+    static final String SUMMARY_COLUMNS = HOTEL_ID + ", " + HOTEL_NAME + ", " + HOTEL_LOCATION + ", "
+            + HOTEL_RATING + ", " + HOTEL_PRICE + ", " + HOTEL_IMAGE_URL + ", " + HOTEL_IMAGE_KEY;
+
+    // Secondary indexes. The rowid is the implicit last column of each one, so they also
+    // serve the "ORDER BY <column>, id" keyset queries.
+    static final String INDEX_ROOMS_HOTEL_ID = "idx_rooms_hotel_id";
+    static final String INDEX_HOTELS_LOCATION = "idx_hotels_location";
+    static final String INDEX_HOTELS_PRICE = "idx_hotels_price";
+    static final String INDEX_HOTELS_RATING = "idx_hotels_rating";
+    static final String INDEX_HOTELS_CHECK_IN = "idx_hotels_check_in";
+    static final String INDEX_RESERVATIONS_ROOM = "idx_reservations_room";
+    static final String INDEX_RESERVATIONS_DAYS = "idx_reservations_days";
+
+    // DAO queries, package-private so the query-plan tests run exactly what the helper runs
+    static final String SQL_HOTEL_BY_ID = "SELECT * FROM " + TABLE_HOTEL + " WHERE " + HOTEL_ID + " = ?";
+    static final String SQL_LAST_ADDED_HOTEL = "SELECT * FROM " + TABLE_HOTEL
+            + " ORDER BY " + HOTEL_ID + " DESC LIMIT 1";
+    static final String SQL_ROOMS_BY_HOTEL_ID = "SELECT * FROM " + TABLE_ROOM + " WHERE " + ROOM_HOTEL_ID + " = ?";
+    // In id order, which HotelAdapter.applyChange relies on to find rows by binary search
+    static final String SQL_ALL_SUMMARIES = "SELECT " + SUMMARY_COLUMNS + " FROM " + TABLE_HOTEL
+            + " ORDER BY " + HOTEL_ID;
+    static final String SQL_SUMMARIES_BY_IDS = "SELECT " + SUMMARY_COLUMNS + " FROM " + TABLE_HOTEL
+            + " WHERE " + HOTEL_ID + " IN (%s)";
+    static final String SQL_ROOMS_BY_HOTEL_IDS = "SELECT * FROM " + TABLE_ROOM + " WHERE " + ROOM_HOTEL_ID + " IN (%s)";
+    static final String SQL_ROOM_STATS = "SELECT " + ROOM_HOTEL_ID + ", COUNT(*), MIN(" + ROOM_CAPACITY
+            + "), MAX(" + ROOM_ADDITIONAL_PRICE + ") FROM " + TABLE_ROOM + " WHERE " + ROOM_HOTEL_ID
+            + " IN (%s) GROUP BY " + ROOM_HOTEL_ID;
+    static final String SQL_ALL_HOTELS = "SELECT * FROM " + TABLE_HOTEL;
+    // Duplicates are folded by the caller's set, which saves SQLite a temporary B-tree
+    static final String SQL_IMAGE_KEYS = "SELECT " + HOTEL_IMAGE_KEY + " FROM " + TABLE_HOTEL
+            + " WHERE " + HOTEL_IMAGE_KEY + " IS NOT NULL";
+    static final String SQL_INSERT_ROOM = "INSERT INTO " + TABLE_ROOM + " (" + ROOM_ID + ", "
+            + ROOM_HOTEL_ID + ", " + ROOM_NUMBER + ", " + ROOM_TYPE + ", " + ROOM_CAPACITY + ", "
+            + ROOM_HAS_BALCONY + ", " + ROOM_ADDITIONAL_PRICE + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // Same column order as the insert, with the id moved to the WHERE clause. The booking
+    // columns are left alone, so a room written again keeps its reservations' bitmap.
+    static final String SQL_UPDATE_ROOM = "UPDATE " + TABLE_ROOM + " SET " + ROOM_HOTEL_ID + " = ?, "
+            + ROOM_NUMBER + " = ?, " + ROOM_TYPE + " = ?, " + ROOM_CAPACITY + " = ?, " + ROOM_HAS_BALCONY
+            + " = ?, " + ROOM_ADDITIONAL_PRICE + " = ? WHERE " + ROOM_ID + " = ?";
+    static final String SQL_ALL_ROOM_IDS = "SELECT " + ROOM_ID + " FROM " + TABLE_ROOM;
+    static final String SQL_DELETE_ROOM = "DELETE FROM " + TABLE_ROOM + " WHERE " + ROOM_ID + " = ?";
+    static final String SQL_HOTEL_COUNT = "SELECT COUNT(*) FROM " + TABLE_HOTEL;
+    // No LIMIT: booked-out hotels are skipped while reading, so the caller stops once it has enough
+    static final String SQL_AVAILABLE_FROM = "SELECT " + SUMMARY_COLUMNS + " FROM " + TABLE_HOTEL
+            + " WHERE " + HOTEL_AVAILABLE + " = 1 AND " + HOTEL_CHECK_IN_DAY + " <= ?"
+            + " ORDER BY " + HOTEL_CHECK_IN_DAY + ", " + HOTEL_ID;
+
+    // Queries used by BookingEngine
+    static final String SQL_ROOM_HOTEL_ID = "SELECT " + ROOM_HOTEL_ID + " FROM " + TABLE_ROOM
+            + " WHERE " + ROOM_ID + " = ?";
+    static final String SQL_ROOM_IDS_BY_HOTEL_ID = "SELECT " + ROOM_ID + " FROM " + TABLE_ROOM
+            + " WHERE " + ROOM_HOTEL_ID + " = ? ORDER BY " + ROOM_ID;
+    static final String SQL_RESERVATIONS_BY_ROOM_ID = "SELECT * FROM " + TABLE_RESERVATION
+            + " WHERE " + RESERVATION_ROOM_ID + " = ?";
+    static final String SQL_RESERVATIONS_BY_HOTEL_ID = "SELECT " + TABLE_RESERVATION + ".* FROM "
+            + TABLE_ROOM + " JOIN " + TABLE_RESERVATION + " ON " + TABLE_RESERVATION + "." + RESERVATION_ROOM_ID
+            + " = " + TABLE_ROOM + "." + ROOM_ID + " WHERE " + TABLE_ROOM + "." + ROOM_HOTEL_ID + " = ?";
+    static final String SQL_INSERT_RESERVATION = "INSERT INTO " + TABLE_RESERVATION + " ("
+            + RESERVATION_ROOM_ID + ", " + RESERVATION_CHECK_IN_DAY + ", " + RESERVATION_CHECK_OUT_DAY + ", "
+            + RESERVATION_GUEST_NAME + ") SELECT ?, ?, ?, ? WHERE EXISTS (SELECT 1 FROM " + TABLE_ROOM
+            + " WHERE " + ROOM_ID + " = ?)";
+    static final String SQL_UPDATE_ROOM_AVAILABILITY = "UPDATE " + TABLE_ROOM + " SET " + ROOM_BOOKED_FROM_DAY
+            + " = ?, " + ROOM_BOOKED_DAYS + " = ? WHERE " + ROOM_ID + " = ?";
+    // Rooms of hotels that still exist, grouped by hotel for AvailabilityIndex
+    static final String SQL_ROOM_AVAILABILITY = "SELECT " + TABLE_ROOM + "." + ROOM_ID + ", "
+            + TABLE_ROOM + "." + ROOM_HOTEL_ID + ", " + ROOM_CAPACITY + ", " + ROOM_BOOKED_FROM_DAY + ", "
+            + ROOM_BOOKED_DAYS + " FROM " + TABLE_ROOM + " JOIN " + TABLE_HOTEL + " ON " + TABLE_HOTEL + "."
+            + HOTEL_ID + " = " + TABLE_ROOM + "." + ROOM_HOTEL_ID + " ORDER BY " + TABLE_ROOM + "."
+            + ROOM_HOTEL_ID + ", " + TABLE_ROOM + "." + ROOM_ID;
+    static final String SQL_RESERVATIONS_IN_RANGE = "SELECT " + RESERVATION_ROOM_ID + ", "
+            + RESERVATION_CHECK_IN_DAY + ", " + RESERVATION_CHECK_OUT_DAY + " FROM " + TABLE_RESERVATION
+            + " WHERE " + RESERVATION_CHECK_OUT_DAY + " > ? AND " + RESERVATION_CHECK_IN_DAY + " < ?";
+
+    // Batched lookups bind at most this many ids per query, well under SQLite's 999 variable limit
+    static final int MAX_IDS_PER_QUERY = 500;
+
+    // Staging copies older versions built catalogue snapshots in; only dropped now
+    static final String TABLE_HOTEL_STAGING = "hotels_staging";
+    static final String TABLE_ROOM_STAGING = "rooms_staging";
+
+    // Budget of the single-hotel cache; one full-size photo is a few hundred KB
+    private static final int HOTEL_CACHE_MAX_BYTES = 4 * 1024 * 1024;
+
+    private static DatabaseHelper instance;
+
+    private final ImageStore imageStore;
+    private final HotelCache hotelCache = new HotelCache(HOTEL_CACHE_MAX_BYTES);
+    private final BookingEngine bookingEngine = new BookingEngine(this);
+    private final List<OnHotelsChangedListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface OnHotelsChangedListener {
+        /**
+         * Called on the main thread after a write that touched hotel rows has committed.
+         */
+        void onHotelsChanged(HotelChange change);
+    }
+
+    /**
+     * Returns the process-wide helper. The underlying connection is opened once and
+     * kept for the lifetime of the process, so callers must not close it.
+     */
+    public static synchronized DatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new DatabaseHelper(context.getApplicationContext(), DATABASE_NAME);
+        }
+        return instance;
+    }
+
+    // Package-private so tests can open a separate database file (or null for in-memory)
+    DatabaseHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        // WAL lets list reloads read while the sync thread is writing
+        setWriteAheadLoggingEnabled(true);
+        imageStore = new ImageStore(context, "images-" + databaseName);
+    }
+
+    public ImageStore getImageStore() {
+        return imageStore;
+    }
+
+    /**
+     * @return the cache in front of {@link #getHotel(int)}, for its hit and miss counters.
+     */
+    public HotelCache getHotelCache() {
+        return hotelCache;
+    }
+
+    public BookingEngine getBookingEngine() {
+        return bookingEngine;
+    }
+
+    public void addOnHotelsChangedListener(OnHotelsChangedListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeOnHotelsChangedListener(OnHotelsChangedListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    // Only call once the write has committed, so listeners reading back see the new rows.
+    // Every write to the hotels table goes through here, which also keeps the cache fresh.
+    void notifyHotelsChanged(HotelChange change) {
+        hotelCache.invalidate(change);
+        bookingEngine.invalidate(change);
+        if (changeListeners.isEmpty()) {
+            return;
+        }
+        mainHandler.post(() -> {
+            for (OnHotelsChangedListener listener : changeListeners) {
+                listener.onHotelsChanged(change);
+            }
+        });
     }
 
     @Override
@@ -54,11 +232,12 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + HOTEL_LOCATION + " TEXT NOT NULL,"
                 + HOTEL_RATING + " INTEGER,"
                 + HOTEL_PRICE + " REAL,"
-                + HOTEL_CHECK_IN + " TEXT,"
+                + HOTEL_CHECK_IN_DAY + " INTEGER,"
                 + HOTEL_AVAILABLE + " INTEGER,"
                 + HOTEL_ROOM_TYPE + " TEXT,"
-                + HOTEL_IMAGE + " BLOB,"
-                + HOTEL_IMAGE_URL + " TEXT" // Add new column
+                + HOTEL_IMAGE_KEY + " TEXT,"
+                + HOTEL_IMAGE_URL + " TEXT," // Add new column
+                + HOTEL_CONTENT_HASH + " INTEGER"
                 + ")";
         db.execSQL(CREATE_HOTEL_TABLE);
 
@@ -70,15 +249,99 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + ROOM_CAPACITY + " INTEGER,"
                 + ROOM_HAS_BALCONY + " INTEGER,"
                 + ROOM_ADDITIONAL_PRICE + " REAL,"
+                + ROOM_BOOKED_FROM_DAY + " INTEGER,"
+                + ROOM_BOOKED_DAYS + " BLOB,"
                 + "FOREIGN KEY(" + ROOM_HOTEL_ID + ") REFERENCES "
                 + TABLE_HOTEL + "(" + HOTEL_ID + ") ON DELETE CASCADE"
                 + ")";
         db.execSQL(CREATE_ROOM_TABLE);
+
+        String CREATE_RESERVATION_TABLE = "CREATE TABLE " + TABLE_RESERVATION + "("
+                + RESERVATION_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + RESERVATION_ROOM_ID + " INTEGER NOT NULL,"
+                + RESERVATION_CHECK_IN_DAY + " INTEGER NOT NULL,"
+                + RESERVATION_CHECK_OUT_DAY + " INTEGER NOT NULL,"
+                + RESERVATION_GUEST_NAME + " TEXT,"
+                + "FOREIGN KEY(" + RESERVATION_ROOM_ID + ") REFERENCES "
+                + TABLE_ROOM + "(" + ROOM_ID + ") ON DELETE CASCADE"
+                + ")";
+        db.execSQL(CREATE_RESERVATION_TABLE);
+        // Foreign keys are not enforced, so a trigger removes the bookings of deleted rooms
+        db.execSQL("CREATE TRIGGER rooms_reservations_ad AFTER DELETE ON " + TABLE_ROOM + " BEGIN DELETE FROM "
+                + TABLE_RESERVATION + " WHERE " + RESERVATION_ROOM_ID + " = old." + ROOM_ID + "; END");
+
+        createIndexes(db);
+        HotelSearchIndex.create(db);
+        LocationStatsTable.create(db);
+    }
+
+    private static void createIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_ROOMS_HOTEL_ID
+                + " ON " + TABLE_ROOM + "(" + ROOM_HOTEL_ID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_HOTELS_LOCATION
+                + " ON " + TABLE_HOTEL + "(" + HOTEL_LOCATION + ", " + HOTEL_PRICE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_HOTELS_PRICE
+                + " ON " + TABLE_HOTEL + "(" + HOTEL_PRICE + ")");
+        // Descending to match the best-rated-first keyset order
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_HOTELS_RATING
+                + " ON " + TABLE_HOTEL + "(" + HOTEL_RATING + " DESC)");
+        // Serves the availability range query: equality on the flag, then a range on the day
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_HOTELS_CHECK_IN
+                + " ON " + TABLE_HOTEL + "(" + HOTEL_AVAILABLE + ", " + HOTEL_CHECK_IN_DAY + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_RESERVATIONS_ROOM
+                + " ON " + TABLE_RESERVATION + "(" + RESERVATION_ROOM_ID + ", " + RESERVATION_CHECK_IN_DAY + ")");
+        // Serves the reservations-in-range query: a seek past the stays that already ended,
+        // which are most of the table, with the other two columns read from the index alone
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_RESERVATIONS_DAYS + " ON " + TABLE_RESERVATION + "("
+                + RESERVATION_CHECK_OUT_DAY + ", " + RESERVATION_CHECK_IN_DAY + ", " + RESERVATION_ROOM_ID + ")");
     }
 
+    /**
+     * Builds the keyset page query used by {@link #getHotelSummaryPage}.
+     * @param afterRow whether the page continues after a previous row.
+     */
+    static String summaryPageSql(HotelSortKey sortKey, boolean afterRow, int limit) {
+        String where = afterRow ? " WHERE " + sortKey.afterClause() : "";
+        return "SELECT " + SUMMARY_COLUMNS + " FROM " + TABLE_HOTEL + where
+                + " ORDER BY " + sortKey.orderBy() + " LIMIT " + limit;
+    }
+
+    /**
+     * Builds the query used by {@link #getHotelSummaryPageBefore}. It returns the rows
+     * nearest to the given one first, so the page comes back in reverse order.
+     */
+    static String summaryPageBeforeSql(HotelSortKey sortKey, int limit) {
+        return "SELECT " + SUMMARY_COLUMNS + " FROM " + TABLE_HOTEL + " WHERE " + sortKey.beforeClause()
+                + " ORDER BY " + sortKey.reverseOrderBy() + " LIMIT " + limit;
+    }
+
+    /**
+     * Migrates the existing tables step by step so the local catalogue survives app
+     * updates. Only databases too old to migrate, or whose migration fails, are
+     * recreated empty and refilled by the next sync.
+     */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         Log.w(TAG, "Upgrading database from version " + oldVersion + " to " + newVersion);
+        if (SchemaMigrations.canMigrate(oldVersion)) {
+            try {
+                SchemaMigrations.migrate(db, oldVersion, newVersion, imageStore);
+                return;
+            } catch (Exception e) {
+                Log.e(TAG, "Error while trying to migrate database, recreating it", e);
+            }
+        }
+        recreate(db);
+    }
+
+    private void recreate(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + HotelSearchIndex.TABLE_FTS);
+        db.execSQL("DROP TABLE IF EXISTS " + LocationStatsTable.TABLE_LOCATION_STATS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_HOTEL_STAGING);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ROOM_STAGING);
+        db.execSQL("DROP TABLE IF EXISTS hotels_v6"); // Left behind by a failed 5 -> 6 migration
+        db.execSQL("DROP TABLE IF EXISTS hotels_v9"); // Left behind by a failed 8 -> 9 migration
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_RESERVATION);
         db.execSQL("DROP TABLE IF EXISTS " + TABLE_ROOM);
         db.execSQL("DROP TABLE IF EXISTS " + TABLE_HOTEL);
         onCreate(db);
@@ -96,48 +359,40 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             values.put(HOTEL_LOCATION, hotel.getLocation());
             values.put(HOTEL_RATING, hotel.getRating());
             values.put(HOTEL_PRICE, hotel.getPrice());
-            values.put(HOTEL_CHECK_IN, hotel.getCheckInDate());
+            putDayOrNull(values, HOTEL_CHECK_IN_DAY, hotel.getCheckInDay());
             values.put(HOTEL_AVAILABLE, hotel.isAvailable() ? 1 : 0);
             values.put(HOTEL_ROOM_TYPE, hotel.getRoomType());
-            values.put(HOTEL_IMAGE, hotel.getImage());
+            storeImage(hotel);
+            values.put(HOTEL_IMAGE_KEY, hotel.getImageKey());
             values.put(HOTEL_IMAGE_URL, hotel.getImageUrl()); // Save URL
+            values.put(HOTEL_CONTENT_HASH, HotelSyncEngine.contentHash(hotel));
 
             id = db.insert(TABLE_HOTEL, null, values);
         } catch (Exception e) {
             Log.e(TAG, "Error while trying to add hotel to database", e);
-        } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
+        }
+        if (id != -1) {
+            notifyHotelsChanged(HotelChange.inserted((int) id));
         }
         return id;
     }
 
     public Hotel getHotel(int id) {
+        Hotel hotel = hotelCache.get(id);
+        if (hotel != null) {
+            return hotel;
+        }
+        long cacheGeneration = hotelCache.generation();
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = null;
-        Hotel hotel = null;
         try {
-            cursor = db.query(TABLE_HOTEL, null, HOTEL_ID + "=?",
-                    new String[]{String.valueOf(id)}, null, null, null, null);
+            cursor = db.rawQuery(SQL_HOTEL_BY_ID, new String[]{String.valueOf(id)});
 
             if (cursor != null && cursor.moveToFirst()) {
-                hotel = new Hotel(
-                        cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_ID)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_NAME)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_LOCATION)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_RATING)),
-                        cursor.getDouble(cursor.getColumnIndexOrThrow(HOTEL_PRICE)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_CHECK_IN)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_AVAILABLE)) == 1,
-                        cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_ROOM_TYPE))
-                );
-                hotel.setImage(cursor.getBlob(cursor.getColumnIndexOrThrow(HOTEL_IMAGE)));
-                // Retrieve URL safely
-                int urlIndex = cursor.getColumnIndex(HOTEL_IMAGE_URL);
-                if (urlIndex != -1) {
-                    hotel.setImageUrl(cursor.getString(urlIndex));
-                }
+                hotel = new HotelRowMapper(cursor).map(cursor);
+                // Single-hotel reads feed the edit form and uploads, so they load the bytes
+                hotel.setImage(imageStore.read(hotel.getImageKey()));
+                hotelCache.put(hotel, cacheGeneration);
             }
         } catch (Exception e) {
             Log.e(TAG, "Error while trying to get hotel from database", e);
@@ -145,9 +400,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             if (cursor != null && !cursor.isClosed()) {
                 cursor.close();
             }
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
         }
         return hotel;
     }
@@ -157,25 +409,12 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         Cursor cursor = null;
         Hotel hotel = null;
         try {
-            String query = "SELECT * FROM " + TABLE_HOTEL + " ORDER BY " + HOTEL_ID + " DESC LIMIT 1";
-            cursor = db.rawQuery(query, null);
+            cursor = db.rawQuery(SQL_LAST_ADDED_HOTEL, null);
 
             if (cursor != null && cursor.moveToFirst()) {
-                hotel = new Hotel(
-                        cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_ID)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_NAME)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_LOCATION)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_RATING)),
-                        cursor.getDouble(cursor.getColumnIndexOrThrow(HOTEL_PRICE)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_CHECK_IN)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_AVAILABLE)) == 1,
-                        cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_ROOM_TYPE))
-                );
-                hotel.setImage(cursor.getBlob(cursor.getColumnIndexOrThrow(HOTEL_IMAGE)));
-                int urlIndex = cursor.getColumnIndex(HOTEL_IMAGE_URL);
-                if (urlIndex != -1) {
-                    hotel.setImageUrl(cursor.getString(urlIndex));
-                }
+                hotel = new HotelRowMapper(cursor).map(cursor);
+                // Single-hotel reads feed the edit form and uploads, so they load the bytes
+                hotel.setImage(imageStore.read(hotel.getImageKey()));
             }
         } catch (Exception e) {
             Log.e(TAG, "Error while trying to get last added hotel", e);
@@ -183,9 +422,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             if (cursor != null && !cursor.isClosed()) {
                 cursor.close();
             }
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
         }
         return hotel;
     }
@@ -197,11 +433,247 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             db.delete(TABLE_ROOM, null, null); 
         } catch (Exception e) {
             Log.e(TAG, "Error while trying to delete all hotels", e);
+        }
+        notifyHotelsChanged(HotelChange.reset());
+    }
+
+    /**
+     * Inserts or updates all given hotels and rooms in a single transaction.
+     * Rows with an id of 0 get a new auto-generated id.
+     * @return true if the whole batch was committed.
+     */
+    public boolean upsertHotels(List<Hotel> hotels, List<Room> rooms) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        boolean success = false;
+        storeImages(hotels);
+        db.beginTransaction();
+        try {
+            writeHotels(db, hotels);
+            writeRooms(db, rooms);
+            db.setTransactionSuccessful();
+            success = true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to bulk upsert hotels", e);
         } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
+            db.endTransaction();
+        }
+        if (success) {
+            // Bulk upserts do not track which rows were new, so listeners reload
+            notifyHotelsChanged(HotelChange.reset());
+        }
+        return success;
+    }
+
+    /**
+     * Replaces the whole local catalogue with the given hotels and rooms in a single
+     * transaction. Hotels are diffed against the local rows, so only the ones that
+     * changed are written. Rooms that come back with the same id are updated in place and
+     * keep their reservations; only the others are deleted. With WAL, readers keep seeing
+     * the complete old catalogue until the transaction commits.
+     * @return true if the new catalogue was committed; on failure the old one is kept.
+     */
+    public boolean replaceAllHotels(List<Hotel> hotels, List<Room> rooms) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        boolean success = false;
+        try {
+            storeImages(hotels);
+            db.beginTransaction();
+            try {
+                HotelSyncEngine engine = new HotelSyncEngine(db, hotels);
+                engine.plan();
+                engine.applyDelta();
+                deleteRoomsNotIn(db, rooms);
+                writeRooms(db, rooms);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
             }
+            notifyHotelsChanged(HotelChange.reset());
+            pruneImages();
+            success = true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to replace all hotels", e);
         }
+        return success;
+    }
+
+    private void writeHotels(SQLiteDatabase db, List<Hotel> hotels) {
+        try (HotelStatements statements = new HotelStatements(db)) {
+            for (Hotel hotel : hotels) {
+                statements.upsert(hotel);
+            }
+        }
+    }
+
+    // Updates rooms that already exist instead of replacing them, since a REPLACE would
+    // delete the row, cascade to its reservations and reset its booking columns
+    private void writeRooms(SQLiteDatabase db, List<Room> rooms) {
+        SQLiteStatement update = db.compileStatement(SQL_UPDATE_ROOM);
+        SQLiteStatement insert = db.compileStatement(SQL_INSERT_ROOM);
+        try {
+            for (Room room : rooms) {
+                if (room.getId() > 0) {
+                    update.clearBindings();
+                    bindRoomColumns(update, 1, room);
+                    update.bindLong(7, room.getId());
+                    if (update.executeUpdateDelete() > 0) {
+                        continue;
+                    }
+                }
+                insert.clearBindings();
+                if (room.getId() > 0) {
+                    insert.bindLong(1, room.getId());
+                }
+                bindRoomColumns(insert, 2, room);
+                insert.executeInsert();
+            }
+        } finally {
+            update.close();
+            insert.close();
+        }
+    }
+
+    private static void bindRoomColumns(SQLiteStatement statement, int first, Room room) {
+        statement.bindLong(first, room.getHotelId());
+        bindStringOrNull(statement, first + 1, room.getRoomNumber());
+        bindStringOrNull(statement, first + 2, room.getRoomType());
+        statement.bindLong(first + 3, room.getCapacity());
+        statement.bindLong(first + 4, room.isHasBalcony() ? 1 : 0);
+        statement.bindDouble(first + 5, room.getAdditionalPrice());
+    }
+
+    // Deletes the local rooms missing from the new list; their reservations go with them
+    private void deleteRoomsNotIn(SQLiteDatabase db, List<Room> rooms) {
+        SparseBooleanArray kept = new SparseBooleanArray(rooms.size());
+        for (Room room : rooms) {
+            if (room.getId() > 0) {
+                kept.put(room.getId(), true);
+            }
+        }
+        // Collected first, so the deletes do not run under an open cursor on the same table
+        List<Integer> removed = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery(SQL_ALL_ROOM_IDS, null)) {
+            while (cursor.moveToNext()) {
+                if (!kept.get(cursor.getInt(0))) {
+                    removed.add(cursor.getInt(0));
+                }
+            }
+        }
+        SQLiteStatement delete = db.compileStatement(SQL_DELETE_ROOM);
+        try {
+            for (int roomId : removed) {
+                delete.bindLong(1, roomId);
+                delete.executeUpdateDelete();
+            }
+        } finally {
+            delete.close();
+        }
+    }
+
+    /**
+     * Moves the hotel's image bytes into the ImageStore and records the key on the hotel.
+     * Hotels without new image bytes keep their current key.
+     */
+    private void storeImage(Hotel hotel) {
+        byte[] image = hotel.getImage();
+        if (image == null || image.length == 0) {
+            return;
+        }
+        try {
+            hotel.setImageKey(imageStore.put(image));
+        } catch (IOException e) {
+            Log.e(TAG, "Error while trying to store hotel image", e);
+        }
+    }
+
+    /**
+     * Writes the image files of the given hotels. Callers run this before they begin the
+     * transaction, so the database write lock is not held during file I/O.
+     */
+    void storeImages(List<Hotel> hotels) {
+        for (Hotel hotel : hotels) {
+            storeImage(hotel);
+        }
+    }
+
+    /**
+     * Deletes image files that no hotel row references any more.
+     */
+    void pruneImages() {
+        Set<String> referencedKeys = new HashSet<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery(SQL_IMAGE_KEYS, null)) {
+            while (cursor.moveToNext()) {
+                referencedKeys.add(cursor.getString(0));
+            }
+        }
+        int removed = imageStore.retainOnly(referencedKeys);
+        if (removed > 0) {
+            Log.d(TAG, "Pruned " + removed + " unreferenced images");
+        }
+    }
+
+    // SQLiteStatement.bindString() rejects null, while ContentValues stores it as NULL
+    static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    static void bindDayOrNull(SQLiteStatement statement, int index, int epochDay) {
+        if (epochDay == DateUtils.NO_DATE) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, epochDay);
+        }
+    }
+
+    private static void putDayOrNull(ContentValues values, String column, int epochDay) {
+        if (epochDay == DateUtils.NO_DATE) {
+            values.putNull(column);
+        } else {
+            values.put(column, epochDay);
+        }
+    }
+
+    /**
+     * Brings the local catalogue in line with the server list by inserting, updating
+     * or deleting only the rows whose content changed, in one transaction, so readers
+     * never see a partially applied sync.
+     * @return the per-row outcome counts, or null if the sync was rolled back.
+     */
+    public SyncResult syncHotels(List<Hotel> serverHotels) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        try {
+            storeImages(serverHotels);
+            HotelSyncEngine engine = new HotelSyncEngine(db, serverHotels);
+            SyncResult result = engine.plan();
+            if (!result.hasChanges()) {
+                return result;
+            }
+            db.beginTransaction();
+            try {
+                engine.applyDelta();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            notifyHotelsChanged(engine.changes());
+            pruneImages();
+            return result;
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to sync hotels", e);
+            return null;
+        }
+    }
+
+    /**
+     * Starts a sync whose server list is applied in batches as it arrives.
+     * @see HotelSyncSession
+     */
+    public HotelSyncSession beginHotelSync() {
+        return new HotelSyncSession(this);
     }
 
     public List<Hotel> getAllHotels() {
@@ -209,42 +681,184 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = null;
         try {
-            String selectQuery = "SELECT * FROM " + TABLE_HOTEL;
-            cursor = db.rawQuery(selectQuery, null);
+            cursor = db.rawQuery(SQL_ALL_HOTELS, null);
 
-            if (cursor.moveToFirst()) {
-                do {
-                    Hotel hotel = new Hotel(
-                            cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_ID)),
-                            cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_NAME)),
-                            cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_LOCATION)),
-                            cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_RATING)),
-                            cursor.getDouble(cursor.getColumnIndexOrThrow(HOTEL_PRICE)),
-                            cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_CHECK_IN)),
-                            cursor.getInt(cursor.getColumnIndexOrThrow(HOTEL_AVAILABLE)) == 1,
-                            cursor.getString(cursor.getColumnIndexOrThrow(HOTEL_ROOM_TYPE))
-                    );
-                    hotel.setImage(cursor.getBlob(cursor.getColumnIndexOrThrow(HOTEL_IMAGE)));
-                    int urlIndex = cursor.getColumnIndex(HOTEL_IMAGE_URL);
-                    if (urlIndex != -1) {
-                        hotel.setImageUrl(cursor.getString(urlIndex));
-                    }
-                    hotelList.add(hotel);
-                } while (cursor.moveToNext());
-            }
+            // List reads only carry the key; images are streamed from the ImageStore on display
+            RowMapper.mapAll(cursor, new HotelRowMapper(cursor), hotelList);
         } catch (Exception e) {
             Log.e(TAG, "Error while trying to get all hotels from database", e);
         } finally {
             if (cursor != null && !cursor.isClosed()) {
                 cursor.close();
             }
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
         }
         return hotelList;
     }
 
+    /**
+     * Loads the lightweight list projection of every hotel: only the columns list
+     * screens display, plus the image reference.
+     * @return the summaries in id order.
+     */
+    public List<HotelSummary> getHotelSummaries() {
+        List<HotelSummary> summaries = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(SQL_ALL_SUMMARIES, null);
+            RowMapper.mapAll(cursor, new HotelSummaryRowMapper(cursor), summaries);
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to get hotel summaries from database", e);
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Loads one page of hotel summaries in the given order, starting after the given row.
+     * @param after the last row of the previous page, or null for the first page.
+     */
+    public List<HotelSummary> getHotelSummaryPage(HotelSortKey sortKey, HotelSummary after, int limit) {
+        List<HotelSummary> page = new ArrayList<>(limit);
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            String[] args = after == null ? null : sortKey.afterArgs(after);
+            cursor = db.rawQuery(summaryPageSql(sortKey, after != null, limit), args);
+            RowMapper.mapAll(cursor, new HotelSummaryRowMapper(cursor), page);
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to get a page of hotel summaries", e);
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Loads the page that ends just before the given row, for scrolling back to rows a
+     * bounded list dropped earlier.
+     * @return up to {@code limit} summaries in sort order, fewer at the start of the table.
+     */
+    public List<HotelSummary> getHotelSummaryPageBefore(HotelSortKey sortKey, HotelSummary before, int limit) {
+        List<HotelSummary> page = new ArrayList<>(limit);
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(summaryPageBeforeSql(sortKey, limit), sortKey.afterArgs(before));
+            RowMapper.mapAll(cursor, new HotelSummaryRowMapper(cursor), page);
+            Collections.reverse(page);
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to get the previous page of hotel summaries", e);
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Loads the summaries of the given hotels, e.g. the rows named by a {@link HotelChange}.
+     * @return the summaries of the ids that exist, in id order.
+     */
+    public List<HotelSummary> getHotelSummariesByIds(int[] hotelIds) {
+        List<HotelSummary> summaries = new ArrayList<>(hotelIds.length);
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            for (String[] chunk : chunkIds(hotelIds)) {
+                cursor = db.rawQuery(String.format(SQL_SUMMARIES_BY_IDS, placeholders(chunk.length)), chunk);
+                RowMapper.mapAll(cursor, new HotelSummaryRowMapper(cursor), summaries);
+                cursor.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to get hotel summaries by ids", e);
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+        Collections.sort(summaries, (a, b) -> Integer.compare(a.getId(), b.getId()));
+        return summaries;
+    }
+
+    /**
+     * Searches hotel names and locations. Every word typed must prefix-match a word of
+     * the hotel, and matches in the name rank above matches in the location.
+     * @return at most {@code limit} summaries, best match first.
+     */
+    public List<HotelSummary> searchHotelSummaries(String query, int limit) {
+        List<HotelSummary> results = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            int[] rankedIds = HotelSearchIndex.search(db, query, limit);
+            if (rankedIds.length == 0) {
+                return results;
+            }
+            // The same id lookup as getHotelSummariesByIds, then put back in rank order
+            SparseArray<HotelSummary> byId = new SparseArray<>(rankedIds.length);
+            for (String[] chunk : chunkIds(rankedIds)) {
+                cursor = db.rawQuery(String.format(SQL_SUMMARIES_BY_IDS, placeholders(chunk.length)), chunk);
+                HotelSummaryRowMapper mapper = new HotelSummaryRowMapper(cursor);
+                while (cursor.moveToNext()) {
+                    HotelSummary summary = mapper.map(cursor);
+                    byId.put(summary.getId(), summary);
+                }
+                cursor.close();
+            }
+            for (int id : rankedIds) {
+                HotelSummary summary = byId.get(id);
+                if (summary != null) {
+                    results.add(summary);
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to search hotels", e);
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Lists available hotels that already take guests on the given day and still have a
+     * room free for the whole stay. Hotels without a check-in date are left out.
+     * Booked-out hotels are skipped before the limit applies, so fewer than {@code limit}
+     * rows only come back when fewer hotels match.
+     * @param checkInDay epoch day of the requested check-in, see DateUtils.
+     * @return at most {@code limit} summaries, in check-in day order.
+     */
+    public List<HotelSummary> getHotelSummariesAvailableFrom(int checkInDay, int nights, int limit) {
+        List<HotelSummary> summaries = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(SQL_AVAILABLE_FROM, new String[]{String.valueOf(checkInDay)});
+            HotelSummaryRowMapper mapper = new HotelSummaryRowMapper(cursor);
+            while (summaries.size() < limit && cursor.moveToNext()) {
+                HotelSummary summary = mapper.map(cursor);
+                if (!bookingEngine.isFullyBooked(summary.getId(), checkInDay, checkInDay + nights)) {
+                    summaries.add(summary);
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to get available hotels", e);
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+        return summaries;
+    }
+
     public int updateHotel(Hotel hotel) {
         SQLiteDatabase db = this.getWritableDatabase();
         int rowsAffected = 0;
@@ -254,21 +868,22 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             values.put(HOTEL_LOCATION, hotel.getLocation());
             values.put(HOTEL_RATING, hotel.getRating());
             values.put(HOTEL_PRICE, hotel.getPrice());
-            values.put(HOTEL_CHECK_IN, hotel.getCheckInDate());
+            putDayOrNull(values, HOTEL_CHECK_IN_DAY, hotel.getCheckInDay());
             values.put(HOTEL_AVAILABLE, hotel.isAvailable() ? 1 : 0);
             values.put(HOTEL_ROOM_TYPE, hotel.getRoomType());
-            values.put(HOTEL_IMAGE, hotel.getImage());
+            storeImage(hotel);
+            values.put(HOTEL_IMAGE_KEY, hotel.getImageKey());
             values.put(HOTEL_IMAGE_URL, hotel.getImageUrl()); // Update URL
+            values.put(HOTEL_CONTENT_HASH, HotelSyncEngine.contentHash(hotel));
 
             rowsAffected = db.update(TABLE_HOTEL, values,
                     HOTEL_ID + "=?",
                     new String[]{String.valueOf(hotel.getId())});
         } catch (Exception e) {
             Log.e(TAG, "Error while trying to update hotel", e);
-        } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
+        }
+        if (rowsAffected > 0) {
+            notifyHotelsChanged(HotelChange.updated(hotel.getId()));
         }
         return rowsAffected;
     }
@@ -276,13 +891,11 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public void deleteHotel(int id) {
         SQLiteDatabase db = this.getWritableDatabase();
         try {
-            db.delete(TABLE_HOTEL, HOTEL_ID + "=?", new String[]{String.valueOf(id)});
+            if (db.delete(TABLE_HOTEL, HOTEL_ID + "=?", new String[]{String.valueOf(id)}) > 0) {
+                notifyHotelsChanged(HotelChange.deleted(id));
+            }
         } catch (Exception e) {
             Log.e(TAG, "Error while trying to delete hotel", e);
-        } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
         }
     }
 
@@ -301,10 +914,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             id = db.insert(TABLE_ROOM, null, values);
         } catch (Exception e) {
             Log.e(TAG, "Error while trying to add room", e);
-        } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
+        }
+        if (id != -1) {
+            // The hotel row is unchanged, but screens showing its room stats are not
+            notifyHotelsChanged(HotelChange.updated(room.getHotelId()));
         }
         return id;
     }
@@ -314,43 +927,140 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = null;
         try {
-            cursor = db.query(TABLE_ROOM, null, ROOM_HOTEL_ID + "=?",
-                    new String[]{String.valueOf(hotelId)}, null, null, null);
+            cursor = db.rawQuery(SQL_ROOMS_BY_HOTEL_ID, new String[]{String.valueOf(hotelId)});
 
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    Room room = new Room(
-                            cursor.getInt(cursor.getColumnIndexOrThrow(ROOM_ID)),
-                            cursor.getInt(cursor.getColumnIndexOrThrow(ROOM_HOTEL_ID)),
-                            cursor.getString(cursor.getColumnIndexOrThrow(ROOM_NUMBER)),
-                            cursor.getString(cursor.getColumnIndexOrThrow(ROOM_TYPE)),
-                            cursor.getInt(cursor.getColumnIndexOrThrow(ROOM_CAPACITY)),
-                            cursor.getInt(cursor.getColumnIndexOrThrow(ROOM_HAS_BALCONY)) == 1,
-                            cursor.getDouble(cursor.getColumnIndexOrThrow(ROOM_ADDITIONAL_PRICE))
-                    );
-                    roomList.add(room);
-                } while (cursor.moveToNext());
-            }
+            RowMapper.mapAll(cursor, new RoomRowMapper(cursor), roomList);
         } catch (Exception e) {
             Log.e(TAG, "Error while trying to get rooms by hotel id", e);
         } finally {
             if (cursor != null && !cursor.isClosed()) {
                 cursor.close();
             }
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
         }
         return roomList;
     }
 
+    /**
+     * Loads the rooms of many hotels with one query per {@value #MAX_IDS_PER_QUERY} ids,
+     * instead of one query per hotel.
+     * @return the rooms keyed by hotel id; hotels without rooms map to an empty list.
+     */
+    public SparseArray<List<Room>> getRoomsByHotelIds(Collection<Integer> hotelIds) {
+        SparseArray<List<Room>> roomsByHotel = new SparseArray<>(hotelIds.size());
+        for (int hotelId : hotelIds) {
+            roomsByHotel.put(hotelId, new ArrayList<>());
+        }
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            for (String[] chunk : chunkIds(hotelIds)) {
+                cursor = db.rawQuery(String.format(SQL_ROOMS_BY_HOTEL_IDS, placeholders(chunk.length)), chunk);
+                RoomRowMapper mapper = new RoomRowMapper(cursor);
+                while (cursor.moveToNext()) {
+                    Room room = mapper.map(cursor);
+                    roomsByHotel.get(room.getHotelId()).add(room);
+                }
+                cursor.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to get rooms by hotel ids", e);
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+        return roomsByHotel;
+    }
+
+    /**
+     * Computes room count, smallest capacity and highest additional price per hotel in
+     * a single grouped query, without loading the rooms themselves.
+     * @return the stats keyed by hotel id; hotels without rooms are absent.
+     */
+    public SparseArray<RoomStats> getRoomStatsByHotelIds(Collection<Integer> hotelIds) {
+        SparseArray<RoomStats> statsByHotel = new SparseArray<>(hotelIds.size());
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            for (String[] chunk : chunkIds(hotelIds)) {
+                cursor = db.rawQuery(String.format(SQL_ROOM_STATS, placeholders(chunk.length)), chunk);
+                while (cursor.moveToNext()) {
+                    int hotelId = cursor.getInt(0);
+                    statsByHotel.put(hotelId, new RoomStats(hotelId, cursor.getInt(1),
+                            cursor.getInt(2), cursor.getDouble(3)));
+                }
+                cursor.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to get room stats by hotel ids", e);
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+        return statsByHotel;
+    }
+
+    /**
+     * @return hotel count, available count and lowest price of every location, most
+     * hotels first. Reads the maintained stats table, not the hotels.
+     */
+    public List<LocationStats> getLocationStats() {
+        List<LocationStats> stats = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(LocationStatsTable.SQL_ALL_LOCATION_STATS, null);
+            while (cursor.moveToNext()) {
+                stats.add(new LocationStats(cursor.getString(0), cursor.getInt(1),
+                        cursor.getInt(2), cursor.getDouble(3)));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to get location stats", e);
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+        return stats;
+    }
+
+    private static List<String[]> chunkIds(Collection<Integer> ids) {
+        int[] array = new int[ids.size()];
+        int i = 0;
+        for (int id : ids) {
+            array[i++] = id;
+        }
+        return chunkIds(array);
+    }
+
+    // Splits ids into bind-argument arrays of at most MAX_IDS_PER_QUERY entries
+    private static List<String[]> chunkIds(int[] ids) {
+        List<String[]> chunks = new ArrayList<>();
+        for (int start = 0; start < ids.length; start += MAX_IDS_PER_QUERY) {
+            String[] chunk = new String[Math.min(ids.length - start, MAX_IDS_PER_QUERY)];
+            for (int i = 0; i < chunk.length; i++) {
+                chunk[i] = String.valueOf(ids[start + i]);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        return sql.toString();
+    }
+
     public int getHotelCount() {
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = null;
         int count = 0;
         try {
-            String countQuery = "SELECT COUNT(*) FROM " + TABLE_HOTEL;
-            cursor = db.rawQuery(countQuery, null);
+            cursor = db.rawQuery(SQL_HOTEL_COUNT, null);
             if (cursor.moveToFirst()) {
                 count = cursor.getInt(0);
             }
@@ -360,9 +1070,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             if (cursor != null && !cursor.isClosed()) {
                 cursor.close();
             }
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
         }
         return count;
     }
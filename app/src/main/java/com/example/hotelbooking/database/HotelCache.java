@@ -0,0 +1,189 @@
+package com.example.hotelbooking.database;
+
+import android.util.SparseArray;
+
+import com.example.hotelbooking.model.Hotel;
+
+/**
+ * Size-bounded LRU cache of full hotel rows keyed by id, so repeated single-hotel reads
+ * skip the SQLite round-trip and the image file read. Entries are weighed by their image
+ * length plus their strings, and the least recently used ones are evicted once the total
+ * exceeds the budget. All methods are synchronized; the repository reads on several threads.
+ */
+public class HotelCache {
+
+    // Rough cost of the Hotel object, its node and boxed fields, so image-less rows still count
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final SparseArray<Node> index = new SparseArray<>();
+    private final int maxBytes;
+    private Node head; // Most recently used
+    private Node tail; // Least recently used
+    private int sizeBytes;
+    private long generation; // Bumped on every invalidation, see put()
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    private static final class Node {
+        final Hotel hotel;
+        final int weight;
+        Node prev;
+        Node next;
+
+        Node(Hotel hotel, int weight) {
+            this.hotel = hotel;
+            this.weight = weight;
+        }
+    }
+
+    HotelCache(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return a copy of the cached hotel, or null on a miss. The copy shares the image
+     * array, which callers must treat as read-only.
+     */
+    synchronized Hotel get(int id) {
+        Node node = index.get(id);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        moveToHead(node);
+        return copyOf(node.hotel);
+    }
+
+    /**
+     * Read this before querying the database and pass it to {@link #put}. A write that
+     * commits and invalidates in between makes the put a no-op, so a row read before the
+     * write can never be cached after it.
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    synchronized void put(Hotel hotel, long readGeneration) {
+        if (readGeneration != generation) {
+            return;
+        }
+        int weight = weightOf(hotel);
+        if (weight > maxBytes) {
+            return; // Would evict everything else and still not fit
+        }
+        removeNode(index.get(hotel.getId()));
+        Node node = new Node(copyOf(hotel), weight);
+        index.put(hotel.getId(), node);
+        linkAtHead(node);
+        sizeBytes += weight;
+        while (sizeBytes > maxBytes) {
+            removeNode(tail);
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Drops the entries of hotels a committed write touched.
+     */
+    synchronized void invalidate(HotelChange change) {
+        generation++;
+        if (change.isReset()) {
+            index.clear();
+            head = tail = null;
+            sizeBytes = 0;
+            return;
+        }
+        remove(change.getInsertedIds());
+        remove(change.getUpdatedIds());
+        remove(change.getDeletedIds());
+    }
+
+    public synchronized long getHitCount() { return hitCount; }
+    public synchronized long getMissCount() { return missCount; }
+    public synchronized long getEvictionCount() { return evictionCount; }
+    public synchronized int getSizeBytes() { return sizeBytes; }
+    public synchronized int getEntryCount() { return index.size(); }
+
+    private void remove(int[] ids) {
+        for (int id : ids) {
+            removeNode(index.get(id));
+        }
+    }
+
+    private void removeNode(Node node) {
+        if (node == null) {
+            return;
+        }
+        index.remove(node.hotel.getId());
+        unlink(node);
+        sizeBytes -= node.weight;
+    }
+
+    private void moveToHead(Node node) {
+        if (node != head) {
+            unlink(node);
+            linkAtHead(node);
+        }
+    }
+
+    private void linkAtHead(Node node) {
+        node.prev = null;
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        }
+        head = node;
+        if (tail == null) {
+            tail = node;
+        }
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            head = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            tail = node.prev;
+        }
+        node.prev = node.next = null;
+    }
+
+    private static int weightOf(Hotel hotel) {
+        int weight = ENTRY_OVERHEAD_BYTES;
+        weight += hotel.getImage() != null ? hotel.getImage().length : 0;
+        weight += charBytes(hotel.getName()) + charBytes(hotel.getLocation()) + charBytes(hotel.getRoomType())
+                + charBytes(hotel.getImageKey()) + charBytes(hotel.getImageUrl());
+        return weight;
+    }
+
+    private static int charBytes(String value) {
+        return value != null ? value.length() * 2 : 0;
+    }
+
+    // Callers get their own Hotel so setters on it never leak into the cache
+    private static Hotel copyOf(Hotel hotel) {
+        Hotel copy = new Hotel(hotel.getId(), hotel.getName(), hotel.getLocation(), hotel.getRating(),
+                hotel.getPrice(), hotel.getCheckInDay(), hotel.isAvailable(), hotel.getRoomType());
+        copy.setImage(hotel.getImage());
+        copy.setImageKey(hotel.getImageKey());
+        copy.setImageUrl(hotel.getImageUrl());
+        return copy;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "HotelCache{" +
+                "entries=" + index.size() +
+                ", sizeBytes=" + sizeBytes +
+                ", hits=" + hitCount +
+                ", misses=" + missCount +
+                ", evictions=" + evictionCount +
+                '}';
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.hotelbooking.database;
+
+import java.util.Arrays;
+
+/**
+ * Describes which hotel rows a committed write touched, so screens can update just
+ * those rows. A reset means the change was too broad to describe row by row (e.g. a
+ * full catalogue replacement) and everything should be reloaded.
+ */
+public class HotelChange {
+
+    private static final int[] NONE = new int[0];
+
+    private final int[] insertedIds;
+    private final int[] updatedIds;
+    private final int[] deletedIds;
+    private final boolean reset;
+
+    HotelChange(int[] insertedIds, int[] updatedIds, int[] deletedIds) {
+        this(insertedIds, updatedIds, deletedIds, false);
+    }
+
+    private HotelChange(int[] insertedIds, int[] updatedIds, int[] deletedIds, boolean reset) {
+        this.insertedIds = insertedIds;
+        this.updatedIds = updatedIds;
+        this.deletedIds = deletedIds;
+        this.reset = reset;
+    }
+
+    static HotelChange reset() {
+        return new HotelChange(NONE, NONE, NONE, true);
+    }
+
+    static HotelChange inserted(int id) {
+        return new HotelChange(new int[]{id}, NONE, NONE);
+    }
+
+    static HotelChange updated(int id) {
+        return new HotelChange(NONE, new int[]{id}, NONE);
+    }
+
+    static HotelChange deleted(int id) {
+        return new HotelChange(NONE, NONE, new int[]{id});
+    }
+
+    public int[] getInsertedIds() { return insertedIds; }
+    public int[] getUpdatedIds() { return updatedIds; }
+    public int[] getDeletedIds() { return deletedIds; }
+    public boolean isReset() { return reset; }
+
+    /**
+     * @return the ids whose current rows a screen needs to load: inserted and updated ones.
+     */
+    public int[] getChangedIds() {
+        int[] ids = Arrays.copyOf(insertedIds, insertedIds.length + updatedIds.length);
+        System.arraycopy(updatedIds, 0, ids, insertedIds.length, updatedIds.length);
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        if (reset) {
+            return "HotelChange{reset}";
+        }
+        return "HotelChange{" +
+                "inserted=" + insertedIds.length +
+                ", updated=" + updatedIds.length +
+                ", deleted=" + deletedIds.length +
+                '}';
+    }
+}
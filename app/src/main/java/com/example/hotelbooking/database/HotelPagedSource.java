@@ -0,0 +1,161 @@
+package com.example.hotelbooking.database;
+
+import com.example.hotelbooking.model.HotelSummary;
+
+import java.util.List;
+
+/**
+ * Loads hotel summaries page by page using keyset pagination: each page continues after
+ * the last row of the previous one, so the cost of a page does not grow with how far the
+ * user has scrolled, and the whole table is never loaded at once.
+ * <p>
+ * The list keeps at most {@link #getMaxRows()} rows. Rows that scroll far out of view are
+ * dropped from the other end, and loaded again by keyset from the first row still held
+ * when the user scrolls back.
+ */
+public class HotelPagedSource {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_MAX_PAGES = 5;
+
+    private final HotelRepository repository;
+    private final HotelSortKey sortKey;
+    private final int pageSize;
+    private final int maxPages;
+
+    // Edges of the rows the list holds, where the next loads continue from
+    private HotelSummary firstLoaded;
+    private HotelSummary lastLoaded;
+    private boolean startReached = true;
+    private boolean endReached;
+    private boolean loading;
+    // Bumped by reset(), so a page requested before the reset is dropped when it arrives
+    private int generation;
+
+    public HotelPagedSource(HotelRepository repository, HotelSortKey sortKey) {
+        this(repository, sortKey, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    public HotelPagedSource(HotelRepository repository, HotelSortKey sortKey, int pageSize, int maxPages) {
+        this.repository = repository;
+        this.sortKey = sortKey;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Loads the next page on a database thread and delivers it on the main thread.
+     * Must be called from the main thread; does nothing while a page is already
+     * loading or once the end of the table was reached. A page that failed to load is
+     * not delivered, and the next call tries it again.
+     */
+    public void loadNextPage(HotelRepository.Callback<List<HotelSummary>> callback) {
+        if (!canLoadMore()) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        repository.getHotelSummaryPage(sortKey, lastLoaded, pageSize, page -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            if (page == null) {
+                return;
+            }
+            if (page.size() < pageSize) {
+                endReached = true;
+            }
+            if (!page.isEmpty()) {
+                if (firstLoaded == null) {
+                    firstLoaded = page.get(0);
+                }
+                lastLoaded = page.get(page.size() - 1);
+            }
+            callback.onResult(page);
+        });
+    }
+
+    /**
+     * Loads the page before the first row held, after rows were dropped from the start
+     * of the list. Works like {@link #loadNextPage}; the page arrives in sort order.
+     */
+    public void loadPreviousPage(HotelRepository.Callback<List<HotelSummary>> callback) {
+        if (!canLoadPrevious()) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        repository.getHotelSummaryPageBefore(sortKey, firstLoaded, pageSize, page -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            if (page == null) {
+                return;
+            }
+            if (page.size() < pageSize) {
+                startReached = true;
+            }
+            if (!page.isEmpty()) {
+                firstLoaded = page.get(0);
+            }
+            callback.onResult(page);
+        });
+    }
+
+    /**
+     * Tells the source which rows the list still holds after it dropped some, so the
+     * next loads continue from its new first and last rows.
+     */
+    public void setWindow(List<HotelSummary> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        HotelSummary first = rows.get(0);
+        HotelSummary last = rows.get(rows.size() - 1);
+        if (firstLoaded == null || first.getId() != firstLoaded.getId()) {
+            startReached = false;
+        }
+        if (lastLoaded == null || last.getId() != lastLoaded.getId()) {
+            endReached = false;
+        }
+        firstLoaded = first;
+        lastLoaded = last;
+    }
+
+    /**
+     * @return how many rows the list keeps before it drops rows from the far end.
+     */
+    public int getMaxRows() {
+        return pageSize * maxPages;
+    }
+
+    public boolean isStartReached() {
+        return startReached;
+    }
+
+    public boolean isEndReached() {
+        return endReached;
+    }
+
+    public boolean canLoadMore() {
+        return !endReached && !loading;
+    }
+
+    public boolean canLoadPrevious() {
+        return !startReached && !loading && firstLoaded != null;
+    }
+
+    /**
+     * Starts again from the first page, e.g. after the table was re-synced.
+     */
+    public void reset() {
+        firstLoaded = null;
+        lastLoaded = null;
+        startReached = true;
+        endReached = false;
+        loading = false;
+        generation++;
+    }
+}
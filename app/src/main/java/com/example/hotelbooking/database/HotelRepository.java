@@ -0,0 +1,307 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.SparseArray;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.model.HotelSummary;
+import com.example.hotelbooking.model.LocationStats;
+import com.example.hotelbooking.model.Reservation;
+import com.example.hotelbooking.model.Room;
+import com.example.hotelbooking.model.RoomStats;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous access to {@link DatabaseHelper} for UI code. Every call runs on a
+ * database thread and returns a Future; the optional callback receives the same result
+ * on the main thread, or null if the task threw, so a screen waiting on it never hangs.
+ * The Future fails with the exception instead.
+ * <p>
+ * All writes go through one writer thread, so they are applied in the order they were
+ * submitted and never queue up on SQLite's write lock. Reads run on a small pool next
+ * to it, which WAL allows without blocking on the writer. A read submitted from a
+ * write's callback therefore always sees that write.
+ */
+public class HotelRepository {
+
+    private static final String TAG = "HotelRepository";
+
+    // Enough for a page load and a search to run side by side
+    private static final int READER_THREADS = 2;
+
+    private static HotelRepository instance;
+
+    private final DatabaseHelper dbHelper;
+    private final ExecutorService writeExecutor;
+    private final ExecutorService readExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface Callback<T> {
+        /**
+         * @param result the task's result, or null if it failed.
+         */
+        void onResult(T result);
+    }
+
+    public static synchronized HotelRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new HotelRepository(DatabaseHelper.getInstance(context));
+            instance.importBundledCatalogue(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Package-private so tests can run against their own database
+    HotelRepository(DatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+        this.writeExecutor = Executors.newSingleThreadExecutor(threadFactory("db-writer"));
+        this.readExecutor = Executors.newFixedThreadPool(READER_THREADS, threadFactory("db-reader"));
+        // Open the database (running any migration) and the image directory before the first screen asks
+        writeExecutor.execute(() -> {
+            try {
+                dbHelper.getWritableDatabase();
+                dbHelper.getImageStore().prepare();
+            } catch (Exception e) {
+                Log.e(TAG, "Error while trying to open the database", e);
+            }
+        });
+    }
+
+    /**
+     * Queues the first-run import of the catalogue snapshot from the APK. It runs right
+     * after the database opens and before any write a screen submits, so the first sync
+     * is a delta against the snapshot. Lists pick the rows up through the change event.
+     */
+    private void importBundledCatalogue(Context context) {
+        writeExecutor.execute(() -> {
+            try {
+                CatalogueSnapshot.importOnFirstRun(context, dbHelper);
+            } catch (Exception e) {
+                Log.e(TAG, "Error while trying to import the catalogue snapshot", e);
+            }
+        });
+    }
+
+    public DatabaseHelper getDatabaseHelper() {
+        return dbHelper;
+    }
+
+    public void addOnHotelsChangedListener(DatabaseHelper.OnHotelsChangedListener listener) {
+        dbHelper.addOnHotelsChangedListener(listener);
+    }
+
+    public void removeOnHotelsChangedListener(DatabaseHelper.OnHotelsChangedListener listener) {
+        dbHelper.removeOnHotelsChangedListener(listener);
+    }
+
+    // --- Reads ---
+
+    public Future<Hotel> getHotel(int id, Callback<Hotel> callback) {
+        return read(() -> dbHelper.getHotel(id), callback);
+    }
+
+    public Future<List<HotelSummary>> getHotelSummaries(Callback<List<HotelSummary>> callback) {
+        return read(dbHelper::getHotelSummaries, callback);
+    }
+
+    public Future<List<HotelSummary>> getHotelSummaryPage(HotelSortKey sortKey, HotelSummary after, int limit,
+                                                          Callback<List<HotelSummary>> callback) {
+        return read(() -> dbHelper.getHotelSummaryPage(sortKey, after, limit), callback);
+    }
+
+    public Future<List<HotelSummary>> getHotelSummaryPageBefore(HotelSortKey sortKey, HotelSummary before, int limit,
+                                                                Callback<List<HotelSummary>> callback) {
+        return read(() -> dbHelper.getHotelSummaryPageBefore(sortKey, before, limit), callback);
+    }
+
+    public Future<List<HotelSummary>> getHotelSummariesByIds(int[] hotelIds,
+                                                             Callback<List<HotelSummary>> callback) {
+        return read(() -> dbHelper.getHotelSummariesByIds(hotelIds), callback);
+    }
+
+    public Future<List<HotelSummary>> searchHotelSummaries(String query, int limit,
+                                                           Callback<List<HotelSummary>> callback) {
+        return read(() -> dbHelper.searchHotelSummaries(query, limit), callback);
+    }
+
+    public Future<List<HotelSummary>> getHotelSummariesAvailableFrom(int checkInDay, int nights, int limit,
+                                                                     Callback<List<HotelSummary>> callback) {
+        return read(() -> dbHelper.getHotelSummariesAvailableFrom(checkInDay, nights, limit), callback);
+    }
+
+    public Future<int[]> getFreeRoomIds(int hotelId, int checkInDay, int checkOutDay, Callback<int[]> callback) {
+        return read(() -> dbHelper.getBookingEngine().getFreeRoomIds(hotelId, checkInDay, checkOutDay), callback);
+    }
+
+    /**
+     * The first call loads every room's reservations into memory, so keep it off
+     * screens that open at startup.
+     */
+    public Future<int[]> getHotelIdsWithFreeRoom(int checkInDay, int nights, int minCapacity,
+                                                 Callback<int[]> callback) {
+        return read(() -> dbHelper.getBookingEngine()
+                .getHotelIdsWithFreeRoom(checkInDay, checkInDay + nights, minCapacity), callback);
+    }
+
+    public Future<List<Room>> getRoomsByHotelId(int hotelId, Callback<List<Room>> callback) {
+        return read(() -> dbHelper.getRoomsByHotelId(hotelId), callback);
+    }
+
+    public Future<SparseArray<RoomStats>> getRoomStatsByHotelIds(Collection<Integer> hotelIds,
+                                                                Callback<SparseArray<RoomStats>> callback) {
+        return read(() -> dbHelper.getRoomStatsByHotelIds(hotelIds), callback);
+    }
+
+    public Future<List<LocationStats>> getLocationStats(Callback<List<LocationStats>> callback) {
+        return read(dbHelper::getLocationStats, callback);
+    }
+
+    public Future<Integer> getHotelCount(Callback<Integer> callback) {
+        return read(dbHelper::getHotelCount, callback);
+    }
+
+    // --- Writes ---
+
+    /**
+     * Adds the hotel and, if given, its rooms in order on the writer thread.
+     * @return a future of the new hotel id, or -1 if the hotel was not saved.
+     */
+    public Future<Long> addHotel(Hotel hotel, List<Room> rooms, Callback<Long> callback) {
+        return write(() -> {
+            long hotelId = dbHelper.addHotel(hotel);
+            if (hotelId != -1 && rooms != null) {
+                for (Room room : rooms) {
+                    room.setHotelId((int) hotelId);
+                    dbHelper.addRoom(room);
+                }
+            }
+            return hotelId;
+        }, callback);
+    }
+
+    public Future<Integer> updateHotel(Hotel hotel, Callback<Integer> callback) {
+        return write(() -> dbHelper.updateHotel(hotel), callback);
+    }
+
+    public Future<Void> deleteHotel(int id, Callback<Void> callback) {
+        return write(() -> {
+            dbHelper.deleteHotel(id);
+            return null;
+        }, callback);
+    }
+
+    public Future<SyncResult> syncHotels(List<Hotel> serverHotels, Callback<SyncResult> callback) {
+        return write(() -> dbHelper.syncHotels(serverHotels), callback);
+    }
+
+    /**
+     * Starts a sync whose server list is handed over in batches through
+     * {@link #applySyncBatch} and completed with {@link #finishSync}.
+     */
+    public HotelSyncSession beginSync() {
+        return dbHelper.beginHotelSync();
+    }
+
+    /**
+     * Queues a batch of the session on the writer thread. Waits for the session's
+     * previous batch first, so a producer that parses faster than the database writes
+     * holds at most two batches. Several threads may feed the same session, e.g. one per
+     * page of a paginated download; their batches queue up one at a time.
+     * Call it from the producing thread, never the main thread.
+     */
+    public void applySyncBatch(HotelSyncSession session, List<Hotel> batch)
+            throws InterruptedException, ExecutionException {
+        synchronized (session) {
+            if (session.pendingBatch != null) {
+                session.pendingBatch.get();
+            }
+            session.pendingBatch = write(() -> session.applyBatch(batch), null);
+        }
+    }
+
+    /**
+     * Runs after the session's batches and deletes the local hotels none of them contained.
+     * @return a future of the outcome counts, or of null if a batch failed.
+     */
+    public Future<SyncResult> finishSync(HotelSyncSession session, Callback<SyncResult> callback) {
+        return finishSync(session, true, callback);
+    }
+
+    /**
+     * Like {@link #finishSync(HotelSyncSession, Callback)}, but only deletes the hotels
+     * the batches did not contain if {@code deleteMissing} is set, i.e. if the batches
+     * were the complete server list.
+     */
+    public Future<SyncResult> finishSync(HotelSyncSession session, boolean deleteMissing,
+                                         Callback<SyncResult> callback) {
+        return write(() -> session.finish(deleteMissing), callback);
+    }
+
+    public Future<Boolean> replaceAllHotels(List<Hotel> hotels, List<Room> rooms, Callback<Boolean> callback) {
+        return write(() -> dbHelper.replaceAllHotels(hotels, rooms), callback);
+    }
+
+    /**
+     * Books the room for the nights from check-in up to, not including, check-out.
+     * @return a future of the saved reservation, or null if the room is taken on any of those nights.
+     */
+    public Future<Reservation> book(int roomId, int checkInDay, int checkOutDay, String guestName,
+                                    Callback<Reservation> callback) {
+        return write(() -> dbHelper.getBookingEngine().book(roomId, checkInDay, checkOutDay, guestName), callback);
+    }
+
+    public Future<Boolean> cancelReservation(Reservation reservation, Callback<Boolean> callback) {
+        return write(() -> dbHelper.getBookingEngine().cancel(reservation), callback);
+    }
+
+    private <T> Future<T> read(Callable<T> query, Callback<T> callback) {
+        return submit(readExecutor, query, callback);
+    }
+
+    private <T> Future<T> write(Callable<T> mutation, Callback<T> callback) {
+        return submit(writeExecutor, mutation, callback);
+    }
+
+    private <T> Future<T> submit(ExecutorService executor, Callable<T> task, Callback<T> callback) {
+        return executor.submit(() -> {
+            T result;
+            try {
+                result = task.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Database task failed", e);
+                if (callback != null) {
+                    mainHandler.post(() -> callback.onResult(null));
+                }
+                throw e;
+            }
+            if (callback != null) {
+                mainHandler.post(() -> callback.onResult(result));
+            }
+            return result;
+        });
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            return new Thread(() -> {
+                // Background priority, so database work never competes with drawing frames
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, name + "-" + count.incrementAndGet());
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.hotelbooking.database;
+
+import android.database.Cursor;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.util.DateUtils;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * Maps full hotel rows. Image bytes are not loaded; the hotel only carries its image key.
+ */
+class HotelRowMapper implements RowMapper<Hotel> {
+
+    private final int id;
+    private final int name;
+    private final int location;
+    private final int rating;
+    private final int price;
+    private final int checkIn;
+    private final int available;
+    private final int roomType;
+    private final int imageKey;
+    private final int imageUrl;
+
+    HotelRowMapper(Cursor cursor) {
+        id = cursor.getColumnIndexOrThrow(HOTEL_ID);
+        name = cursor.getColumnIndexOrThrow(HOTEL_NAME);
+        location = cursor.getColumnIndexOrThrow(HOTEL_LOCATION);
+        rating = cursor.getColumnIndexOrThrow(HOTEL_RATING);
+        price = cursor.getColumnIndexOrThrow(HOTEL_PRICE);
+        checkIn = cursor.getColumnIndexOrThrow(HOTEL_CHECK_IN_DAY);
+        available = cursor.getColumnIndexOrThrow(HOTEL_AVAILABLE);
+        roomType = cursor.getColumnIndexOrThrow(HOTEL_ROOM_TYPE);
+        imageKey = cursor.getColumnIndexOrThrow(HOTEL_IMAGE_KEY);
+        imageUrl = cursor.getColumnIndexOrThrow(HOTEL_IMAGE_URL);
+    }
+
+    @Override
+    public Hotel map(Cursor cursor) {
+        Hotel hotel = new Hotel(
+                cursor.getInt(id),
+                cursor.getString(name),
+                cursor.getString(location),
+                cursor.getInt(rating),
+                cursor.getDouble(price),
+                cursor.isNull(checkIn) ? DateUtils.NO_DATE : cursor.getInt(checkIn),
+                cursor.getInt(available) == 1,
+                cursor.getString(roomType)
+        );
+        hotel.setImageKey(cursor.getString(imageKey));
+        hotel.setImageUrl(cursor.getString(imageUrl));
+        return hotel;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.hotelbooking.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * Full-text index over hotel names and locations. The FTS4 table only stores the
+ * index ("external content"), reads the text from the hotels table, and is kept in
+ * sync by triggers, so every write path (ContentValues, HotelStatements, bulk
+ * deletes) updates it in the same transaction as the row itself.
+ */
+class HotelSearchIndex {
+
+    static final String TABLE_FTS = "hotels_fts";
+
+    // Matches in the name count more than matches in the location
+    private static final double NAME_WEIGHT = 2.0;
+    private static final double LOCATION_WEIGHT = 1.0;
+
+    private static final int COLUMN_COUNT = 2;
+
+    static final String SQL_SEARCH = "SELECT docid, matchinfo(" + TABLE_FTS + ", 'pcx') FROM " + TABLE_FTS
+            + " WHERE " + TABLE_FTS + " MATCH ?";
+
+    static void create(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_FTS + " USING fts4("
+                + HOTEL_NAME + ", " + HOTEL_LOCATION + ", content=\"" + TABLE_HOTEL + "\")");
+        createTriggers(db);
+    }
+
+    /**
+     * Creates the triggers that keep the index in step with the hotels table. They are
+     * dropped with the table, so a migration that rebuilds it calls this again.
+     */
+    static void createTriggers(SQLiteDatabase db) {
+        String oldRow = "VALUES('delete', old." + HOTEL_ID + ", old." + HOTEL_NAME + ", old." + HOTEL_LOCATION + ")";
+        String newRow = "VALUES(new." + HOTEL_ID + ", new." + HOTEL_NAME + ", new." + HOTEL_LOCATION + ")";
+        String insertInto = "INSERT INTO " + TABLE_FTS + "(";
+        db.execSQL("CREATE TRIGGER hotels_fts_ai AFTER INSERT ON " + TABLE_HOTEL + " BEGIN "
+                + insertInto + "docid, " + HOTEL_NAME + ", " + HOTEL_LOCATION + ") " + newRow + "; END");
+        db.execSQL("CREATE TRIGGER hotels_fts_bd BEFORE DELETE ON " + TABLE_HOTEL + " BEGIN "
+                + insertInto + TABLE_FTS + ", docid, " + HOTEL_NAME + ", " + HOTEL_LOCATION + ") " + oldRow + "; END");
+        // Price or availability updates do not touch the index
+        String textColumns = " OF " + HOTEL_NAME + ", " + HOTEL_LOCATION + ", " + HOTEL_ID + " ON " + TABLE_HOTEL;
+        db.execSQL("CREATE TRIGGER hotels_fts_bu BEFORE UPDATE" + textColumns + " BEGIN "
+                + insertInto + TABLE_FTS + ", docid, " + HOTEL_NAME + ", " + HOTEL_LOCATION + ") " + oldRow + "; END");
+        db.execSQL("CREATE TRIGGER hotels_fts_au AFTER UPDATE" + textColumns + " BEGIN "
+                + insertInto + "docid, " + HOTEL_NAME + ", " + HOTEL_LOCATION + ") " + newRow + "; END");
+    }
+
+    /**
+     * Re-indexes every hotel row, e.g. after the index is added to an existing table.
+     */
+    static void rebuild(SQLiteDatabase db) {
+        db.execSQL("INSERT INTO " + TABLE_FTS + "(" + TABLE_FTS + ") VALUES('rebuild')");
+    }
+
+    /**
+     * Turns free text into an FTS prefix query: every word must match the start of a
+     * word in the name or location. Punctuation and FTS operators typed by the user are
+     * dropped, so the result is always a valid MATCH expression.
+     * @return the MATCH expression, or null if the text has no searchable words.
+     */
+    static String toMatchQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        // Lower case keeps words like "or" and "near" from being read as operators
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(token).append('*');
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
+
+    /**
+     * Finds the hotels matching the text, best match first. Scores are computed from
+     * matchinfo() on the index alone, so only the returned ids need a row lookup.
+     * @return the ids of at most {@code limit} matching hotels.
+     */
+    static int[] search(SQLiteDatabase db, String text, int limit) {
+        String match = toMatchQuery(text);
+        if (match == null || limit <= 0) {
+            return new int[0];
+        }
+        int[] ids;
+        double[] scores;
+        try (Cursor cursor = db.rawQuery(SQL_SEARCH, new String[]{match})) {
+            int count = cursor.getCount();
+            ids = new int[count];
+            scores = new double[count];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                ids[i] = cursor.getInt(0);
+                scores[i] = score(cursor.getBlob(1));
+            }
+        }
+        return topIds(ids, scores, limit);
+    }
+
+    /**
+     * Ranks a row the way the FTS documentation suggests: for every phrase and column,
+     * the share of that phrase's hits that fall in this row, weighted per column. Rare
+     * words that match this row often score highest.
+     */
+    static double score(byte[] matchInfo) {
+        ByteBuffer buffer = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phrases = buffer.getInt(0);
+        int columns = buffer.getInt(4);
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < Math.min(columns, COLUMN_COUNT); column++) {
+                int offset = 8 + 12 * (phrase * columns + column);
+                int hitsInRow = buffer.getInt(offset);
+                int hitsInAllRows = buffer.getInt(offset + 4);
+                if (hitsInRow > 0) {
+                    double weight = column == 0 ? NAME_WEIGHT : LOCATION_WEIGHT;
+                    score += weight * hitsInRow / hitsInAllRows;
+                }
+            }
+        }
+        return score;
+    }
+
+    // Highest scores first, ties broken by id so results are stable between queries
+    private static int[] topIds(int[] ids, double[] scores, int limit) {
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byScore = Double.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore : Integer.compare(ids[a], ids[b]);
+        });
+        int[] top = new int[Math.min(limit, ids.length)];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = ids[order[i]];
+        }
+        return top;
+    }
+}
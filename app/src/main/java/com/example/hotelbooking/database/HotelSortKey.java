@@ -0,0 +1,72 @@
+package com.example.hotelbooking.database;
+
+import com.example.hotelbooking.model.HotelSummary;
+
+/**
+ * Sort orders supported by keyset-paged hotel queries. Every order ends with the hotel
+ * id as a tie-breaker, so (sort value, id) uniquely identifies a position in the list.
+ */
+public enum HotelSortKey {
+    ID(null, false),
+    PRICE(DatabaseHelper.HOTEL_PRICE, false),
+    RATING(DatabaseHelper.HOTEL_RATING, true); // Best rated first
+
+    private final String column;
+    private final boolean descending;
+
+    HotelSortKey(String column, boolean descending) {
+        this.column = column;
+        this.descending = descending;
+    }
+
+    String orderBy() {
+        if (column == null) {
+            return DatabaseHelper.HOTEL_ID;
+        }
+        return column + (descending ? " DESC, " : ", ") + DatabaseHelper.HOTEL_ID;
+    }
+
+    // The same order walked backwards, for loading the rows before a given one
+    String reverseOrderBy() {
+        if (column == null) {
+            return DatabaseHelper.HOTEL_ID + " DESC";
+        }
+        return column + (descending ? ", " : " DESC, ") + DatabaseHelper.HOTEL_ID + " DESC";
+    }
+
+    /**
+     * WHERE clause selecting the rows that come after a given row. The leading range
+     * term lets SQLite seek in the column's index; row-value comparisons would read
+     * better but are not supported by older Android SQLite versions.
+     */
+    String afterClause() {
+        if (column == null) {
+            return DatabaseHelper.HOTEL_ID + " > ?";
+        }
+        String op = descending ? "<" : ">";
+        return column + " " + op + "= ? AND (" + column + " " + op + " ? OR "
+                + DatabaseHelper.HOTEL_ID + " > ?)";
+    }
+
+    /**
+     * WHERE clause selecting the rows that come before a given row. Takes the same
+     * arguments as {@link #afterClause()}.
+     */
+    String beforeClause() {
+        if (column == null) {
+            return DatabaseHelper.HOTEL_ID + " < ?";
+        }
+        String op = descending ? ">" : "<";
+        return column + " " + op + "= ? AND (" + column + " " + op + " ? OR "
+                + DatabaseHelper.HOTEL_ID + " < ?)";
+    }
+
+    String[] afterArgs(HotelSummary last) {
+        String id = String.valueOf(last.getId());
+        if (column == null) {
+            return new String[]{id};
+        }
+        String value = this == PRICE ? String.valueOf(last.getPrice()) : String.valueOf(last.getRating());
+        return new String[]{value, value, id};
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.hotelbooking.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.hotelbooking.model.Hotel;
+
+import java.io.Closeable;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * Compiled insert/update/delete statements for the hotels table. They are compiled once
+ * per bulk write and re-bound for every row, and must be used on the thread that owns
+ * the surrounding transaction.
+ */
+class HotelStatements implements Closeable {
+
+    static final String SQL_INSERT_HOTEL = "INSERT INTO " + TABLE_HOTEL + " ("
+            + HOTEL_ID + ", " + HOTEL_NAME + ", " + HOTEL_LOCATION + ", " + HOTEL_RATING + ", "
+            + HOTEL_PRICE + ", " + HOTEL_CHECK_IN_DAY + ", " + HOTEL_AVAILABLE + ", " + HOTEL_ROOM_TYPE + ", "
+            + HOTEL_IMAGE_KEY + ", " + HOTEL_IMAGE_URL + ", " + HOTEL_CONTENT_HASH
+            + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // Same column order as the insert, with the id moved to the WHERE clause
+    static final String SQL_UPDATE_HOTEL = "UPDATE " + TABLE_HOTEL + " SET "
+            + HOTEL_NAME + " = ?, " + HOTEL_LOCATION + " = ?, " + HOTEL_RATING + " = ?, "
+            + HOTEL_PRICE + " = ?, " + HOTEL_CHECK_IN_DAY + " = ?, " + HOTEL_AVAILABLE + " = ?, "
+            + HOTEL_ROOM_TYPE + " = ?, " + HOTEL_IMAGE_KEY + " = ?, " + HOTEL_IMAGE_URL + " = ?, "
+            + HOTEL_CONTENT_HASH + " = ? WHERE " + HOTEL_ID + " = ?";
+    static final String SQL_DELETE_HOTEL = "DELETE FROM " + TABLE_HOTEL + " WHERE " + HOTEL_ID + " = ?";
+    static final String SQL_DELETE_ROOMS_BY_HOTEL_ID = "DELETE FROM " + TABLE_ROOM + " WHERE " + ROOM_HOTEL_ID + " = ?";
+
+    private final SQLiteStatement insert;
+    private final SQLiteStatement update;
+    private final SQLiteStatement delete;
+    private final SQLiteStatement deleteRooms;
+
+    HotelStatements(SQLiteDatabase db) {
+        insert = db.compileStatement(SQL_INSERT_HOTEL);
+        update = db.compileStatement(SQL_UPDATE_HOTEL);
+        delete = db.compileStatement(SQL_DELETE_HOTEL);
+        deleteRooms = db.compileStatement(SQL_DELETE_ROOMS_BY_HOTEL_ID);
+    }
+
+    /**
+     * Inserts the hotel, keeping its id when it has one.
+     * @return the row id of the new hotel, or -1 on failure.
+     */
+    long insert(Hotel hotel, long contentHash) {
+        insert.clearBindings();
+        if (hotel.getId() > 0) {
+            insert.bindLong(1, hotel.getId());
+        }
+        bindColumns(insert, 2, hotel, contentHash);
+        return insert.executeInsert();
+    }
+
+    /**
+     * @return true if a row with the hotel's id existed and was updated.
+     */
+    boolean update(Hotel hotel, long contentHash) {
+        update.clearBindings();
+        bindColumns(update, 1, hotel, contentHash);
+        update.bindLong(11, hotel.getId());
+        return update.executeUpdateDelete() > 0;
+    }
+
+    /**
+     * Updates the hotel in place if it already exists, otherwise inserts it. Unlike
+     * INSERT OR REPLACE this never deletes the existing row first.
+     */
+    long upsert(Hotel hotel) {
+        long contentHash = HotelSyncEngine.contentHash(hotel);
+        if (hotel.getId() > 0 && update(hotel, contentHash)) {
+            return hotel.getId();
+        }
+        return insert(hotel, contentHash);
+    }
+
+    /**
+     * Deletes the hotel together with its rooms.
+     */
+    void delete(int hotelId) {
+        deleteRooms.bindLong(1, hotelId);
+        deleteRooms.executeUpdateDelete();
+        delete.bindLong(1, hotelId);
+        delete.executeUpdateDelete();
+    }
+
+    private static void bindColumns(SQLiteStatement statement, int first, Hotel hotel, long contentHash) {
+        bindStringOrNull(statement, first, hotel.getName());
+        bindStringOrNull(statement, first + 1, hotel.getLocation());
+        statement.bindLong(first + 2, hotel.getRating());
+        statement.bindDouble(first + 3, hotel.getPrice());
+        bindDayOrNull(statement, first + 4, hotel.getCheckInDay());
+        statement.bindLong(first + 5, hotel.isAvailable() ? 1 : 0);
+        bindStringOrNull(statement, first + 6, hotel.getRoomType());
+        // Image bytes live in the ImageStore; callers store them before binding
+        bindStringOrNull(statement, first + 7, hotel.getImageKey());
+        bindStringOrNull(statement, first + 8, hotel.getImageUrl());
+        statement.bindLong(first + 9, contentHash);
+    }
+
+    @Override
+    public void close() {
+        insert.close();
+        update.close();
+        delete.close();
+        deleteRooms.close();
+    }
+}
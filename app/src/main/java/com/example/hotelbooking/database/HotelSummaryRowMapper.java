@@ -0,0 +1,44 @@
+package com.example.hotelbooking.database;
+
+import android.database.Cursor;
+
+import com.example.hotelbooking.model.HotelSummary;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * Maps rows selected with {@link DatabaseHelper#SUMMARY_COLUMNS}.
+ */
+class HotelSummaryRowMapper implements RowMapper<HotelSummary> {
+
+    private final int id;
+    private final int name;
+    private final int location;
+    private final int rating;
+    private final int price;
+    private final int imageUrl;
+    private final int imageKey;
+
+    HotelSummaryRowMapper(Cursor cursor) {
+        id = cursor.getColumnIndexOrThrow(HOTEL_ID);
+        name = cursor.getColumnIndexOrThrow(HOTEL_NAME);
+        location = cursor.getColumnIndexOrThrow(HOTEL_LOCATION);
+        rating = cursor.getColumnIndexOrThrow(HOTEL_RATING);
+        price = cursor.getColumnIndexOrThrow(HOTEL_PRICE);
+        imageUrl = cursor.getColumnIndexOrThrow(HOTEL_IMAGE_URL);
+        imageKey = cursor.getColumnIndexOrThrow(HOTEL_IMAGE_KEY);
+    }
+
+    @Override
+    public HotelSummary map(Cursor cursor) {
+        return new HotelSummary(
+                cursor.getInt(id),
+                cursor.getString(name),
+                cursor.getString(location),
+                cursor.getInt(rating),
+                cursor.getDouble(price),
+                cursor.getString(imageUrl),
+                cursor.getString(imageKey)
+        );
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.hotelbooking.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.SparseBooleanArray;
+import android.util.SparseLongArray;
+
+import com.example.hotelbooking.model.Hotel;
+
+import java.util.List;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * Diffs a server hotel list against the local hotels table by id and content hash.
+ * {@link #plan()} classifies every row without writing; {@link #applyDelta()} then
+ * writes only the rows that differ.
+ */
+class HotelSyncEngine {
+
+    static final String SQL_CONTENT_HASHES = "SELECT " + HOTEL_ID + ", " + HOTEL_CONTENT_HASH + " FROM " + TABLE_HOTEL;
+
+    // 64-bit FNV-1a parameters
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final byte ACTION_SKIP = 0;
+    private static final byte ACTION_INSERT = 1;
+    private static final byte ACTION_UPDATE = 2;
+    private static final byte ACTION_UNCHANGED = 3;
+
+    private final SQLiteDatabase db;
+    private final List<Hotel> serverHotels;
+    private final long[] hashes;
+    private final byte[] actions;
+    private SparseLongArray localHashes;
+    private SparseBooleanArray seenIds;
+    private SyncResult plan;
+
+    HotelSyncEngine(SQLiteDatabase db, List<Hotel> serverHotels) {
+        this.db = db;
+        this.serverHotels = serverHotels;
+        this.hashes = new long[serverHotels.size()];
+        this.actions = new byte[serverHotels.size()];
+    }
+
+    /**
+     * Compares every server hotel with the local row of the same id.
+     * @return the counts the sync would produce if applied as a delta.
+     */
+    SyncResult plan() {
+        localHashes = loadLocalHashes(db);
+        seenIds = new SparseBooleanArray(serverHotels.size());
+        plan = new SyncResult();
+
+        for (int i = 0; i < serverHotels.size(); i++) {
+            Hotel hotel = serverHotels.get(i);
+            int id = hotel.getId();
+            hashes[i] = contentHash(hotel);
+            if (id <= 0) {
+                // The server did not send an id, so the row cannot be matched
+                actions[i] = ACTION_INSERT;
+                plan.onInserted();
+                continue;
+            }
+            if (seenIds.get(id)) {
+                actions[i] = ACTION_SKIP; // Duplicate id in the payload; the first one wins
+                continue;
+            }
+            seenIds.put(id, true);
+
+            int index = localHashes.indexOfKey(id);
+            if (index < 0) {
+                actions[i] = ACTION_INSERT;
+                plan.onInserted();
+            } else if (localHashes.valueAt(index) != hashes[i]) {
+                actions[i] = ACTION_UPDATE;
+                plan.onUpdated();
+            } else {
+                actions[i] = ACTION_UNCHANGED;
+                plan.onUnchanged();
+            }
+        }
+
+        for (int i = 0; i < localHashes.size(); i++) {
+            if (!seenIds.get(localHashes.keyAt(i))) {
+                plan.onDeleted();
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Lists the ids the planned sync inserts, updates and deletes. Server rows without an
+     * id only get one when written, so their presence turns the change into a reset.
+     */
+    HotelChange changes() {
+        int[] inserted = new int[plan.getInserted()];
+        int[] updated = new int[plan.getUpdated()];
+        int[] deleted = new int[plan.getDeleted()];
+        int insertCount = 0;
+        int updateCount = 0;
+        for (int i = 0; i < serverHotels.size(); i++) {
+            int id = serverHotels.get(i).getId();
+            if (actions[i] == ACTION_INSERT) {
+                if (id <= 0) {
+                    return HotelChange.reset();
+                }
+                inserted[insertCount++] = id;
+            } else if (actions[i] == ACTION_UPDATE) {
+                updated[updateCount++] = id;
+            }
+        }
+        int deleteCount = 0;
+        for (int i = 0; i < localHashes.size(); i++) {
+            if (!seenIds.get(localHashes.keyAt(i))) {
+                deleted[deleteCount++] = localHashes.keyAt(i);
+            }
+        }
+        return new HotelChange(inserted, updated, deleted);
+    }
+
+    /**
+     * Writes only the planned changes to the live table. Must run inside a transaction.
+     */
+    void applyDelta() {
+        try (HotelStatements statements = new HotelStatements(db)) {
+            for (int i = 0; i < serverHotels.size(); i++) {
+                if (actions[i] == ACTION_INSERT) {
+                    statements.insert(serverHotels.get(i), hashes[i]);
+                } else if (actions[i] == ACTION_UPDATE) {
+                    statements.update(serverHotels.get(i), hashes[i]);
+                }
+            }
+            for (int i = 0; i < localHashes.size(); i++) {
+                int localId = localHashes.keyAt(i);
+                if (!seenIds.get(localId)) {
+                    statements.delete(localId);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the content hash of every local hotel, keyed by id.
+     */
+    static SparseLongArray loadLocalHashes(SQLiteDatabase db) {
+        SparseLongArray hashes = new SparseLongArray();
+        try (Cursor cursor = db.rawQuery(SQL_CONTENT_HASHES, null)) {
+            while (cursor.moveToNext()) {
+                // Ids arrive in ascending rowid order, so append() avoids binary-search inserts
+                hashes.append(cursor.getInt(0), cursor.getLong(1));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Hashes every column the server can change. Two hotels with the same hash are
+     * treated as identical, so the local row is left untouched. Images must already be
+     * in the ImageStore so that the hotel carries its image key.
+     */
+    static long contentHash(Hotel hotel) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, hotel.getName());
+        hash = mix(hash, hotel.getLocation());
+        hash = mix(hash, hotel.getRating());
+        hash = mix(hash, Double.doubleToLongBits(hotel.getPrice()));
+        hash = mix(hash, hotel.getCheckInDay());
+        hash = mix(hash, hotel.isAvailable() ? 1 : 0);
+        hash = mix(hash, hotel.getRoomType());
+        hash = mix(hash, hotel.getImageUrl());
+        // The key is the SHA-256 of the image, so comparing keys compares the bytes
+        hash = mix(hash, hotel.getImageKey());
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mix(hash, -1);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        // Length acts as a field separator so ("ab", "c") and ("a", "bc") differ
+        return mix(hash, value.length());
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash = (hash ^ (value & 0xff)) * FNV_PRIME;
+            value >>>= 8;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.hotelbooking.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+import android.util.SparseLongArray;
+
+import com.example.hotelbooking.model.Hotel;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * A catalogue sync whose server list arrives in batches, e.g. while the response is
+ * still being parsed. Each batch is diffed by content hash like in
+ * {@link DatabaseHelper#syncHotels} and its changes committed in a transaction of its
+ * own, so memory is bounded by the batch size rather than the catalogue. Local hotels
+ * the server did not send are deleted by {@link #finish}, and only if every batch
+ * was applied and the caller knows the batches were the complete list.
+ * <p>
+ * Unlike a one-shot sync, readers can see a sync that is half applied, but every row
+ * they see is already the server's version. Use it through {@link HotelRepository},
+ * which runs the steps on the writer thread.
+ */
+public final class HotelSyncSession {
+
+    private static final String TAG = "HotelSyncSession";
+
+    private final DatabaseHelper dbHelper;
+    private final SyncResult result = new SyncResult();
+    private final SparseBooleanArray seenIds = new SparseBooleanArray();
+    private SparseLongArray localHashes; // Loaded with the first batch
+    private boolean failed;
+
+    // The batch still being written, which the producer waits for before queueing the next
+    Future<Boolean> pendingBatch;
+
+    HotelSyncSession(DatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    /**
+     * Writes the rows of the batch that are new or changed.
+     * @return false if the batch was rolled back; the session then no longer writes.
+     */
+    boolean applyBatch(List<Hotel> batch) {
+        if (failed) {
+            return false;
+        }
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        try {
+            loadLocalHashes(db);
+            dbHelper.storeImages(batch);
+            int[] inserted = new int[batch.size()];
+            int[] updated = new int[batch.size()];
+            int insertCount = 0;
+            int updateCount = 0;
+            boolean reset = false;
+            db.beginTransaction();
+            try (HotelStatements statements = new HotelStatements(db)) {
+                for (Hotel hotel : batch) {
+                    long hash = HotelSyncEngine.contentHash(hotel);
+                    int id = hotel.getId();
+                    if (id <= 0) {
+                        // Only gets an id when written, so the change cannot be described per row
+                        statements.insert(hotel, hash);
+                        result.onInserted();
+                        reset = true;
+                        continue;
+                    }
+                    if (seenIds.get(id)) {
+                        continue; // Duplicate id in the payload; the first one wins
+                    }
+                    seenIds.put(id, true);
+
+                    int index = localHashes.indexOfKey(id);
+                    if (index < 0) {
+                        statements.insert(hotel, hash);
+                        inserted[insertCount++] = id;
+                        result.onInserted();
+                    } else if (localHashes.valueAt(index) != hash) {
+                        // The row may have been deleted locally since the hashes were read
+                        if (!statements.update(hotel, hash)) {
+                            statements.insert(hotel, hash);
+                        }
+                        updated[updateCount++] = id;
+                        result.onUpdated();
+                    } else {
+                        result.onUnchanged();
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            if (reset) {
+                dbHelper.notifyHotelsChanged(HotelChange.reset());
+            } else if (insertCount > 0 || updateCount > 0) {
+                dbHelper.notifyHotelsChanged(new HotelChange(Arrays.copyOf(inserted, insertCount),
+                        Arrays.copyOf(updated, updateCount), new int[0]));
+            }
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to apply a sync batch", e);
+            failed = true;
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the local hotels that none of the batches contained.
+     * @param deleteMissing false if the batches may have missed hotels the server still
+     *                      lists, e.g. pages cut from a list that changed in between.
+     *                      Nothing is deleted then.
+     * @return the per-row outcome counts, or null if a batch failed, in which case
+     * nothing is deleted.
+     */
+    SyncResult finish(boolean deleteMissing) {
+        if (failed) {
+            return null;
+        }
+        if (!deleteMissing) {
+            if (result.hasChanges()) {
+                dbHelper.pruneImages();
+            }
+            return result;
+        }
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        try {
+            loadLocalHashes(db);
+            int[] deleted = new int[localHashes.size()];
+            int deleteCount = 0;
+            for (int i = 0; i < localHashes.size(); i++) {
+                if (!seenIds.get(localHashes.keyAt(i))) {
+                    deleted[deleteCount++] = localHashes.keyAt(i);
+                }
+            }
+            if (deleteCount > 0) {
+                db.beginTransaction();
+                try (HotelStatements statements = new HotelStatements(db)) {
+                    for (int i = 0; i < deleteCount; i++) {
+                        statements.delete(deleted[i]);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                for (int i = 0; i < deleteCount; i++) {
+                    result.onDeleted();
+                }
+                dbHelper.notifyHotelsChanged(new HotelChange(new int[0], new int[0],
+                        Arrays.copyOf(deleted, deleteCount)));
+            }
+            if (result.hasChanges()) {
+                dbHelper.pruneImages();
+            }
+            return result;
+        } catch (Exception e) {
+            Log.e(TAG, "Error while trying to finish the sync", e);
+            return null;
+        }
+    }
+
+    private void loadLocalHashes(SQLiteDatabase db) {
+        if (localHashes == null) {
+            localHashes = HotelSyncEngine.loadLocalHashes(db);
+        }
+    }
+}
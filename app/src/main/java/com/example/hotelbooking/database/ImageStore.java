@@ -0,0 +1,149 @@
+package com.example.hotelbooking.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+/**
+ * Content-addressed file store for hotel images. Each image is saved once under the
+ * SHA-256 of its bytes, so identical images are deduplicated and the hotels table only
+ * keeps the short key instead of the whole BLOB.
+ */
+public class ImageStore {
+
+    private static final String TAG = "ImageStore";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Recently written files are never pruned, so a concurrent save cannot lose its image
+    private static final long PRUNE_GRACE_PERIOD_MS = 10 * 60 * 1000;
+
+    private final Context context;
+    private final String directoryName;
+    private File directory;
+
+    ImageStore(Context context, String directoryName) {
+        this.context = context;
+        this.directoryName = directoryName;
+    }
+
+    /**
+     * Stores the image if an identical one is not stored yet.
+     * @return the key to persist in place of the image bytes.
+     */
+    public String put(byte[] imageBytes) throws IOException {
+        String key = keyFor(imageBytes);
+        File target = getFile(key);
+        if (target.exists()) {
+            return key;
+        }
+        // Write to a temp file first so readers never see a half-written image
+        File temp = new File(getDirectory(), key + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(imageBytes);
+            out.getFD().sync();
+        }
+        if (!temp.renameTo(target) && !target.exists()) {
+            temp.delete();
+            throw new IOException("Could not move image into place: " + target);
+        }
+        return key;
+    }
+
+    /**
+     * Returns the file for the given key. Prefer this for display, so image loaders
+     * can stream and downsample instead of holding the full bytes.
+     */
+    public File getFile(String key) {
+        return new File(getDirectory(), key);
+    }
+
+    public InputStream open(String key) throws IOException {
+        return new FileInputStream(getFile(key));
+    }
+
+    /**
+     * Reads the whole image into memory.
+     * @return the image bytes, or null if the key is null or the file is missing.
+     */
+    public byte[] read(String key) {
+        if (key == null) {
+            return null;
+        }
+        File file = getFile(key);
+        byte[] bytes = new byte[(int) file.length()];
+        try (InputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read == -1) {
+                    break;
+                }
+                offset += read;
+            }
+            return bytes;
+        } catch (IOException e) {
+            Log.e(TAG, "Error while trying to read image " + key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes every stored image that is not in the given set of referenced keys.
+     * @return the number of files removed.
+     */
+    public int retainOnly(Set<String> referencedKeys) {
+        File[] files = getDirectory().listFiles();
+        if (files == null) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - PRUNE_GRACE_PERIOD_MS;
+        int removed = 0;
+        for (File file : files) {
+            if (!referencedKeys.contains(file.getName()) && file.lastModified() < cutoff && file.delete()) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Creates the image directory if needed. Called from a background thread at startup,
+     * so list screens asking for files never touch the disk on the main thread.
+     */
+    void prepare() {
+        getDirectory();
+    }
+
+    private synchronized File getDirectory() {
+        if (directory == null) {
+            directory = new File(context.getFilesDir(), directoryName);
+            if (!directory.exists() && !directory.mkdirs()) {
+                Log.e(TAG, "Could not create image directory " + directory);
+            }
+        }
+        return directory;
+    }
+
+    static String keyFor(byte[] imageBytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(imageBytes);
+            char[] key = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                key[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+                key[i * 2 + 1] = HEX[digest[i] & 0xf];
+            }
+            return new String(key);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is guaranteed on every Android version
+            throw new IllegalStateException(e);
+        }
+    }
+}
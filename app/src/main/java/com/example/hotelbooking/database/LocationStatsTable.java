@@ -0,0 +1,97 @@
+package com.example.hotelbooking.database;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * Per-location hotel count, available count and lowest price, stored in a table of
+ * their own so the home screen reads a handful of rows instead of aggregating the
+ * hotels table. Like the search index it is kept current by triggers, so every write
+ * path (ContentValues, HotelStatements, bulk deletes) updates it in the same
+ * transaction as the hotel row.
+ * <p>
+ * Counts are adjusted by one per row. The lowest price is only looked up again when
+ * the cheapest hotel of a location goes away, which the (location, price) index
+ * answers with a single seek.
+ */
+final class LocationStatsTable {
+
+    static final String TABLE_LOCATION_STATS = "location_stats";
+    static final String STATS_LOCATION = "location";
+    static final String STATS_HOTEL_COUNT = "hotel_count";
+    static final String STATS_AVAILABLE_COUNT = "available_count";
+    static final String STATS_MIN_PRICE = "min_price";
+
+    static final String SQL_ALL_LOCATION_STATS = "SELECT " + STATS_LOCATION + ", " + STATS_HOTEL_COUNT + ", "
+            + STATS_AVAILABLE_COUNT + ", " + STATS_MIN_PRICE + " FROM " + TABLE_LOCATION_STATS
+            + " ORDER BY " + STATS_HOTEL_COUNT + " DESC, " + STATS_LOCATION;
+    // Run by the triggers with the old row's location in place of %s
+    static final String SQL_MIN_PRICE_AT_LOCATION = "SELECT MIN(" + HOTEL_PRICE + ") FROM " + TABLE_HOTEL
+            + " WHERE " + HOTEL_LOCATION + " = %s";
+
+    private LocationStatsTable() {
+    }
+
+    static void create(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_LOCATION_STATS + "("
+                + STATS_LOCATION + " TEXT PRIMARY KEY,"
+                + STATS_HOTEL_COUNT + " INTEGER NOT NULL,"
+                + STATS_AVAILABLE_COUNT + " INTEGER NOT NULL,"
+                + STATS_MIN_PRICE + " REAL"
+                + ")");
+        createTriggers(db);
+    }
+
+    /**
+     * Creates the triggers that keep the stats in step with the hotels table. They are
+     * dropped with the table, so a migration that rebuilds it calls this again.
+     */
+    static void createTriggers(SQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER location_stats_ai AFTER INSERT ON " + TABLE_HOTEL + " BEGIN "
+                + addRow("new") + " END");
+        db.execSQL("CREATE TRIGGER location_stats_ad AFTER DELETE ON " + TABLE_HOTEL + " BEGIN "
+                + removeRow("old") + " END");
+        // Name, date or image edits do not change any of the stats
+        db.execSQL("CREATE TRIGGER location_stats_au AFTER UPDATE OF " + HOTEL_LOCATION + ", " + HOTEL_PRICE
+                + ", " + HOTEL_AVAILABLE + " ON " + TABLE_HOTEL + " BEGIN "
+                + removeRow("old") + " " + addRow("new") + " END");
+    }
+
+    private static String addRow(String row) {
+        String location = row + "." + HOTEL_LOCATION;
+        String price = row + "." + HOTEL_PRICE;
+        return "INSERT OR IGNORE INTO " + TABLE_LOCATION_STATS + "(" + STATS_LOCATION + ", " + STATS_HOTEL_COUNT
+                + ", " + STATS_AVAILABLE_COUNT + ") VALUES(" + location + ", 0, 0); "
+                + "UPDATE " + TABLE_LOCATION_STATS + " SET "
+                + STATS_HOTEL_COUNT + " = " + STATS_HOTEL_COUNT + " + 1, "
+                + STATS_AVAILABLE_COUNT + " = " + STATS_AVAILABLE_COUNT + " + (" + row + "." + HOTEL_AVAILABLE + " IS 1), "
+                + STATS_MIN_PRICE + " = CASE WHEN " + STATS_MIN_PRICE + " IS NULL OR " + price + " < " + STATS_MIN_PRICE
+                + " THEN " + price + " ELSE " + STATS_MIN_PRICE + " END"
+                + " WHERE " + STATS_LOCATION + " = " + location + ";";
+    }
+
+    // Runs after the row is gone (or changed), so the lookup only sees the remaining hotels
+    private static String removeRow(String row) {
+        String location = row + "." + HOTEL_LOCATION;
+        return "UPDATE " + TABLE_LOCATION_STATS + " SET "
+                + STATS_HOTEL_COUNT + " = " + STATS_HOTEL_COUNT + " - 1, "
+                + STATS_AVAILABLE_COUNT + " = " + STATS_AVAILABLE_COUNT + " - (" + row + "." + HOTEL_AVAILABLE + " IS 1), "
+                + STATS_MIN_PRICE + " = CASE WHEN " + row + "." + HOTEL_PRICE + " > " + STATS_MIN_PRICE
+                + " THEN " + STATS_MIN_PRICE + " ELSE (" + String.format(SQL_MIN_PRICE_AT_LOCATION, location) + ") END"
+                + " WHERE " + STATS_LOCATION + " = " + location + "; "
+                + "DELETE FROM " + TABLE_LOCATION_STATS + " WHERE " + STATS_LOCATION + " = " + location
+                + " AND " + STATS_HOTEL_COUNT + " <= 0;";
+    }
+
+    /**
+     * Recomputes every row from the hotels table, e.g. after the table is added to an
+     * existing database.
+     */
+    static void rebuild(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_LOCATION_STATS);
+        db.execSQL("INSERT INTO " + TABLE_LOCATION_STATS + " SELECT " + HOTEL_LOCATION + ", COUNT(*), SUM("
+                + HOTEL_AVAILABLE + " IS 1), MIN(" + HOTEL_PRICE + ") FROM " + TABLE_HOTEL
+                + " GROUP BY " + HOTEL_LOCATION);
+    }
+}
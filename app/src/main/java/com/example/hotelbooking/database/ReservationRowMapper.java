@@ -0,0 +1,38 @@
+package com.example.hotelbooking.database;
+
+import android.database.Cursor;
+
+import com.example.hotelbooking.model.Reservation;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * Maps full reservation rows.
+ */
+class ReservationRowMapper implements RowMapper<Reservation> {
+
+    private final int id;
+    private final int roomId;
+    private final int checkIn;
+    private final int checkOut;
+    private final int guestName;
+
+    ReservationRowMapper(Cursor cursor) {
+        id = cursor.getColumnIndexOrThrow(RESERVATION_ID);
+        roomId = cursor.getColumnIndexOrThrow(RESERVATION_ROOM_ID);
+        checkIn = cursor.getColumnIndexOrThrow(RESERVATION_CHECK_IN_DAY);
+        checkOut = cursor.getColumnIndexOrThrow(RESERVATION_CHECK_OUT_DAY);
+        guestName = cursor.getColumnIndexOrThrow(RESERVATION_GUEST_NAME);
+    }
+
+    @Override
+    public Reservation map(Cursor cursor) {
+        return new Reservation(
+                cursor.getInt(id),
+                cursor.getInt(roomId),
+                cursor.getInt(checkIn),
+                cursor.getInt(checkOut),
+                cursor.getString(guestName)
+        );
+    }
+}
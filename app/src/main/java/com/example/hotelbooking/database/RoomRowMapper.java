@@ -0,0 +1,44 @@
+package com.example.hotelbooking.database;
+
+import android.database.Cursor;
+
+import com.example.hotelbooking.model.Room;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * Maps full room rows.
+ */
+class RoomRowMapper implements RowMapper<Room> {
+
+    private final int id;
+    private final int hotelId;
+    private final int number;
+    private final int type;
+    private final int capacity;
+    private final int hasBalcony;
+    private final int additionalPrice;
+
+    RoomRowMapper(Cursor cursor) {
+        id = cursor.getColumnIndexOrThrow(ROOM_ID);
+        hotelId = cursor.getColumnIndexOrThrow(ROOM_HOTEL_ID);
+        number = cursor.getColumnIndexOrThrow(ROOM_NUMBER);
+        type = cursor.getColumnIndexOrThrow(ROOM_TYPE);
+        capacity = cursor.getColumnIndexOrThrow(ROOM_CAPACITY);
+        hasBalcony = cursor.getColumnIndexOrThrow(ROOM_HAS_BALCONY);
+        additionalPrice = cursor.getColumnIndexOrThrow(ROOM_ADDITIONAL_PRICE);
+    }
+
+    @Override
+    public Room map(Cursor cursor) {
+        return new Room(
+                cursor.getInt(id),
+                cursor.getInt(hotelId),
+                cursor.getString(number),
+                cursor.getString(type),
+                cursor.getInt(capacity),
+                cursor.getInt(hasBalcony) == 1,
+                cursor.getDouble(additionalPrice)
+        );
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.hotelbooking.database;
+
+import android.database.Cursor;
+
+import java.util.List;
+
+/**
+ * Turns the current cursor row into a model object. Implementations resolve their
+ * column indexes once, when created for a cursor, instead of on every row.
+ */
+interface RowMapper<T> {
+
+    T map(Cursor cursor);
+
+    /**
+     * Maps every remaining row of the cursor into the given list.
+     */
+    static <T> void mapAll(Cursor cursor, RowMapper<T> mapper, List<T> into) {
+        while (cursor.moveToNext()) {
+            into.add(mapper.map(cursor));
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.hotelbooking.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.util.DateUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static com.example.hotelbooking.database.DatabaseHelper.*;
+
+/**
+ * Upgrades an existing database one version at a time while keeping its rows, so an
+ * app update does not force a full download of the catalogue.
+ * <p>
+ * Each step only knows the schema of its own two versions. DDL inside a step is
+ * written out literally instead of reusing the current onCreate() statements, because
+ * those keep changing as later versions are added.
+ * <p>
+ * To add a version: bump DATABASE_VERSION, change onCreate() and add a case to
+ * {@link #migrateStep} that turns the previous schema into the new one.
+ */
+final class SchemaMigrations {
+
+    private static final String TAG = "SchemaMigrations";
+
+    /**
+     * Databases older than this predate any released schema we still know about and
+     * are recreated from scratch.
+     */
+    static final int OLDEST_MIGRATABLE_VERSION = 3;
+
+    // Large images are copied out of their BLOB column in pieces that fit a CursorWindow
+    private static final int BLOB_CHUNK_SIZE = 512 * 1024;
+
+    private SchemaMigrations() {
+    }
+
+    static boolean canMigrate(int oldVersion) {
+        return oldVersion >= OLDEST_MIGRATABLE_VERSION;
+    }
+
+    /**
+     * Applies every step from {@code oldVersion} to {@code newVersion}. Runs inside the
+     * upgrade transaction of SQLiteOpenHelper, so a failing step leaves the database at
+     * its old version.
+     */
+    static void migrate(SQLiteDatabase db, int oldVersion, int newVersion, ImageStore imageStore)
+            throws IOException {
+        boolean hashesStale = false;
+        for (int version = oldVersion; version < newVersion; version++) {
+            Log.i(TAG, "Migrating database from version " + version + " to " + (version + 1));
+            hashesStale |= migrateStep(db, version, imageStore);
+        }
+        if (hashesStale) {
+            // Recomputed once the rows have their final shape, with the current hash function
+            recomputeContentHashes(db);
+        }
+    }
+
+    /**
+     * Upgrades the schema from {@code fromVersion} to the next version.
+     * @return true if the step leaves content hashes missing or outdated.
+     */
+    private static boolean migrateStep(SQLiteDatabase db, int fromVersion, ImageStore imageStore)
+            throws IOException {
+        switch (fromVersion) {
+            case 3:
+                db.execSQL("ALTER TABLE hotels ADD COLUMN image_url TEXT");
+                return false;
+            case 4:
+                db.execSQL("ALTER TABLE hotels ADD COLUMN content_hash INTEGER");
+                return true;
+            case 5:
+                moveImagesToStore(db, imageStore);
+                return true;
+            case 6:
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_rooms_hotel_id ON rooms(hotel_id)");
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_hotels_location ON hotels(location, price)");
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_hotels_price ON hotels(price)");
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_hotels_rating ON hotels(rating DESC)");
+                return false;
+            case 7:
+                HotelSearchIndex.create(db);
+                HotelSearchIndex.rebuild(db);
+                return false;
+            case 8:
+                convertCheckInDatesToDays(db);
+                return true;
+            case 9:
+                db.execSQL("CREATE TABLE reservations ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + "room_id INTEGER NOT NULL,"
+                        + "check_in_day INTEGER NOT NULL,"
+                        + "check_out_day INTEGER NOT NULL,"
+                        + "guest_name TEXT,"
+                        + "FOREIGN KEY(room_id) REFERENCES rooms(id) ON DELETE CASCADE"
+                        + ")");
+                db.execSQL("CREATE TRIGGER rooms_reservations_ad AFTER DELETE ON rooms"
+                        + " BEGIN DELETE FROM reservations WHERE room_id = old.id; END");
+                db.execSQL("CREATE INDEX idx_reservations_room ON reservations(room_id, check_in_day)");
+                return false;
+            case 10:
+                // Left NULL; AvailabilityIndex marks the reservations of such rooms when it loads
+                db.execSQL("ALTER TABLE rooms ADD COLUMN booked_from_day INTEGER");
+                db.execSQL("ALTER TABLE rooms ADD COLUMN booked_days BLOB");
+                return false;
+            case 11:
+                LocationStatsTable.create(db);
+                LocationStatsTable.rebuild(db);
+                return false;
+            case 12:
+                db.execSQL("CREATE INDEX idx_reservations_days ON reservations(check_out_day, check_in_day, room_id)");
+                return false;
+            default:
+                throw new IllegalStateException("No migration from database version " + fromVersion);
+        }
+    }
+
+    /**
+     * Version 6 replaced the image BLOB column with a key into the ImageStore. SQLite on
+     * older devices cannot drop columns, so the table is rebuilt without it.
+     */
+    private static void moveImagesToStore(SQLiteDatabase db, ImageStore imageStore) throws IOException {
+        db.execSQL("CREATE TABLE hotels_v6 ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + "name TEXT NOT NULL,"
+                + "location TEXT NOT NULL,"
+                + "rating INTEGER,"
+                + "price REAL,"
+                + "check_in_date TEXT,"
+                + "available INTEGER,"
+                + "room_type TEXT,"
+                + "image_key TEXT,"
+                + "image_url TEXT,"
+                + "content_hash INTEGER"
+                + ")");
+        db.execSQL("INSERT INTO hotels_v6 (id, name, location, rating, price, check_in_date, available,"
+                + " room_type, image_url, content_hash) SELECT id, name, location, rating, price,"
+                + " check_in_date, available, room_type, image_url, content_hash FROM hotels");
+
+        SQLiteStatement setKey = db.compileStatement("UPDATE hotels_v6 SET image_key = ? WHERE id = ?");
+        try (Cursor cursor = db.rawQuery("SELECT id, length(image) FROM hotels"
+                + " WHERE image IS NOT NULL AND length(image) > 0", null)) {
+            while (cursor.moveToNext()) {
+                int id = cursor.getInt(0);
+                byte[] image = readBlob(db, id, cursor.getInt(1));
+                setKey.bindString(1, imageStore.put(image));
+                setKey.bindLong(2, id);
+                setKey.executeUpdateDelete();
+            }
+        } finally {
+            setKey.close();
+        }
+
+        db.execSQL("DROP TABLE hotels");
+        db.execSQL("ALTER TABLE hotels_v6 RENAME TO hotels");
+    }
+
+    /**
+     * Version 9 stores check-in dates as epoch days instead of display strings, so they
+     * can be compared in SQL. The table is rebuilt to drop the text column; dates that
+     * no longer parse become NULL.
+     */
+    private static void convertCheckInDatesToDays(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE hotels_v9 ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + "name TEXT NOT NULL,"
+                + "location TEXT NOT NULL,"
+                + "rating INTEGER,"
+                + "price REAL,"
+                + "check_in_day INTEGER,"
+                + "available INTEGER,"
+                + "room_type TEXT,"
+                + "image_key TEXT,"
+                + "image_url TEXT,"
+                + "content_hash INTEGER"
+                + ")");
+        db.execSQL("INSERT INTO hotels_v9 (id, name, location, rating, price, available, room_type,"
+                + " image_key, image_url, content_hash) SELECT id, name, location, rating, price,"
+                + " available, room_type, image_key, image_url, content_hash FROM hotels");
+
+        SQLiteStatement setDay = db.compileStatement("UPDATE hotels_v9 SET check_in_day = ? WHERE id = ?");
+        try (Cursor cursor = db.rawQuery("SELECT id, check_in_date FROM hotels"
+                + " WHERE check_in_date IS NOT NULL AND check_in_date != ''", null)) {
+            while (cursor.moveToNext()) {
+                int day = DateUtils.parse(cursor.getString(1));
+                if (day != DateUtils.NO_DATE) {
+                    setDay.bindLong(1, day);
+                    setDay.bindLong(2, cursor.getInt(0));
+                    setDay.executeUpdateDelete();
+                }
+            }
+        } finally {
+            setDay.close();
+        }
+
+        // Dropping the table also drops its indexes and search triggers; the rowids, and
+        // with them the search index contents, are unchanged
+        db.execSQL("DROP TABLE hotels");
+        db.execSQL("ALTER TABLE hotels_v9 RENAME TO hotels");
+        db.execSQL("CREATE INDEX idx_hotels_location ON hotels(location, price)");
+        db.execSQL("CREATE INDEX idx_hotels_price ON hotels(price)");
+        db.execSQL("CREATE INDEX idx_hotels_rating ON hotels(rating DESC)");
+        db.execSQL("CREATE INDEX idx_hotels_check_in ON hotels(available, check_in_day)");
+        HotelSearchIndex.createTriggers(db);
+    }
+
+    private static byte[] readBlob(SQLiteDatabase db, int hotelId, int length) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+        String[] args = new String[3];
+        args[2] = String.valueOf(hotelId);
+        for (int offset = 0; offset < length; offset += BLOB_CHUNK_SIZE) {
+            // substr() on a BLOB is 1-based and counts bytes
+            args[0] = String.valueOf(offset + 1);
+            args[1] = String.valueOf(BLOB_CHUNK_SIZE);
+            try (Cursor chunk = db.rawQuery("SELECT substr(image, ?, ?) FROM hotels WHERE id = ?", args)) {
+                if (chunk.moveToFirst()) {
+                    byte[] bytes = chunk.getBlob(0);
+                    out.write(bytes, 0, bytes.length);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void recomputeContentHashes(SQLiteDatabase db) {
+        SQLiteStatement setHash = db.compileStatement("UPDATE " + TABLE_HOTEL + " SET "
+                + HOTEL_CONTENT_HASH + " = ? WHERE " + HOTEL_ID + " = ?");
+        try (Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_HOTEL, null)) {
+            HotelRowMapper mapper = new HotelRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                Hotel hotel = mapper.map(cursor);
+                setHash.bindLong(1, HotelSyncEngine.contentHash(hotel));
+                setHash.bindLong(2, hotel.getId());
+                setHash.executeUpdateDelete();
+            }
+        } finally {
+            setHash.close();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.hotelbooking.database;
+
+/**
+ * Outcome of a catalogue sync: how many hotel rows were actually written or removed.
+ */
+public class SyncResult {
+    private int inserted;
+    private int updated;
+    private int deleted;
+    private int unchanged;
+
+    void onInserted() { inserted++; }
+    void onUpdated() { updated++; }
+    void onDeleted() { deleted++; }
+    void onUnchanged() { unchanged++; }
+
+    public int getInserted() { return inserted; }
+    public int getUpdated() { return updated; }
+    public int getDeleted() { return deleted; }
+    public int getUnchanged() { return unchanged; }
+
+    public boolean hasChanges() {
+        return inserted > 0 || updated > 0 || deleted > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncResult{" +
+                "inserted=" + inserted +
+                ", updated=" + updated +
+                ", deleted=" + deleted +
+                ", unchanged=" + unchanged +
+                '}';
+    }
+}
@@ -23,16 +23,17 @@ import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.fragment.app.Fragment;
 
+import com.bumptech.glide.Glide;
 import com.example.hotelbooking.R;
-import com.example.hotelbooking.database.DatabaseHelper;
+import com.example.hotelbooking.database.HotelRepository;
 import com.example.hotelbooking.model.Hotel;
 import com.example.hotelbooking.model.Room;
+import com.example.hotelbooking.util.DateUtils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Locale;
+import java.util.Collections;
 
 public class HotelFormFragment extends Fragment {
 
@@ -51,14 +52,16 @@ public class HotelFormFragment extends Fragment {
     private ActivityResultLauncher<String> imagePickerLauncher;
     private byte[] selectedImageBytes;
 
-    private DatabaseHelper dbHelper;
-    private Calendar checkInCalendar;
-    private SimpleDateFormat dateFormat;
+    private HotelRepository repository;
+    private int checkInDay = DateUtils.NO_DATE; // Epoch day picked in the form
     private Hotel editingHotel;
     private OnHotelSavedListener listener;
 
     public interface OnHotelSavedListener {
-        void onHotelSaved();
+        /**
+         * Called on the main thread once the hotel is committed to the database.
+         */
+        void onHotelSaved(int hotelId);
     }
 
     public static HotelFormFragment newInstance(Hotel hotel) {
@@ -70,10 +73,11 @@ public class HotelFormFragment extends Fragment {
             args.putString("hotelLocation", hotel.getLocation());
             args.putInt("hotelRating", hotel.getRating());
             args.putDouble("hotelPrice", hotel.getPrice());
-            args.putString("checkInDate", hotel.getCheckInDate());
+            args.putInt("checkInDay", hotel.getCheckInDay());
             args.putBoolean("available", hotel.isAvailable());
             args.putString("roomType", hotel.getRoomType());
             args.putByteArray("imageBytes", hotel.getImage());
+            args.putString("imageKey", hotel.getImageKey());
             fragment.setArguments(args);
         }
         return fragment;
@@ -107,9 +111,7 @@ public class HotelFormFragment extends Fragment {
                              Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_hotel_form, container, false);
 
-        dbHelper = new DatabaseHelper(getContext());
-        dateFormat = new SimpleDateFormat("EEE dd MMM yyyy", Locale.getDefault());
-        checkInCalendar = Calendar.getInstance();
+        repository = HotelRepository.getInstance(requireContext());
 
         initializeViews(view);
         setupRatingSpinner();
@@ -169,7 +171,7 @@ public class HotelFormFragment extends Fragment {
                 editingHotel.setLocation(getArguments().getString("hotelLocation"));
                 editingHotel.setRating(getArguments().getInt("hotelRating"));
                 editingHotel.setPrice(getArguments().getDouble("hotelPrice"));
-                editingHotel.setCheckInDate(getArguments().getString("checkInDate"));
+                editingHotel.setCheckInDay(getArguments().getInt("checkInDay", DateUtils.NO_DATE));
                 editingHotel.setAvailable(getArguments().getBoolean("available"));
                 editingHotel.setRoomType(getArguments().getString("roomType"));
 
@@ -177,7 +179,8 @@ public class HotelFormFragment extends Fragment {
                 hotelLocationInput.setText(editingHotel.getLocation());
                 ratingSpinner.setSelection(editingHotel.getRating() - 1);
                 hotelPriceInput.setText(String.valueOf(editingHotel.getPrice()));
-                checkInDateDisplay.setText(editingHotel.getCheckInDate());
+                checkInDay = editingHotel.getCheckInDay();
+                checkInDateDisplay.setText(DateUtils.formatDisplay(checkInDay));
                 availableCheckbox.setChecked(editingHotel.isAvailable());
 
                 // Load the image if it exists
@@ -189,6 +192,15 @@ public class HotelFormFragment extends Fragment {
                     hotelImageView.setImageBitmap(bitmap);
                 }
 
+                // List screens only carry the image key, so stream the stored file instead
+                String imageKey = getArguments().getString("imageKey");
+                editingHotel.setImageKey(imageKey);
+                if (editingHotel.getImage() == null && imageKey != null) {
+                    Glide.with(this)
+                            .load(repository.getDatabaseHelper().getImageStore().getFile(imageKey))
+                            .into(hotelImageView);
+                }
+
                 String roomType = editingHotel.getRoomType();
                 if ("Single Room".equals(roomType)) {
                     roomTypeRadioGroup.check(R.id.radioSingle);
@@ -202,11 +214,13 @@ public class HotelFormFragment extends Fragment {
     }
 
     private void showDatePicker() {
+        Calendar checkInCalendar = checkInDay != DateUtils.NO_DATE
+                ? DateUtils.toCalendar(checkInDay) : Calendar.getInstance();
         DatePickerDialog datePickerDialog = new DatePickerDialog(
                 getContext(),
                 (view, year, month, dayOfMonth) -> {
-                    checkInCalendar.set(year, month, dayOfMonth);
-                    checkInDateDisplay.setText(dateFormat.format(checkInCalendar.getTime()));
+                    checkInDay = DateUtils.toEpochDay(year, month, dayOfMonth);
+                    checkInDateDisplay.setText(DateUtils.formatDisplay(checkInDay));
                 },
                 checkInCalendar.get(Calendar.YEAR),
                 checkInCalendar.get(Calendar.MONTH),
@@ -219,7 +233,6 @@ public class HotelFormFragment extends Fragment {
         String name = hotelNameInput.getText().toString().trim();
         String location = hotelLocationInput.getText().toString().trim();
         String priceStr = hotelPriceInput.getText().toString().trim();
-        String checkInDate = checkInDateDisplay.getText().toString();
 
         if (name.isEmpty() || location.isEmpty() || priceStr.isEmpty()) {
             Toast.makeText(getContext(), R.string.error_empty_fields, Toast.LENGTH_SHORT).show();
@@ -240,7 +253,7 @@ public class HotelFormFragment extends Fragment {
             editingHotel.setLocation(location);
             editingHotel.setRating(rating);
             editingHotel.setPrice(price);
-            editingHotel.setCheckInDate(checkInDate);
+            editingHotel.setCheckInDay(checkInDay);
             editingHotel.setAvailable(available);
             editingHotel.setRoomType(roomType);
 
@@ -249,31 +262,32 @@ public class HotelFormFragment extends Fragment {
                 // Clear the URL because we have a new local image
                 editingHotel.setImageUrl(null);
             }
+            // Without new bytes, updateHotel keeps the existing image key
 
-            int rowsAffected = dbHelper.updateHotel(editingHotel);
-            if (rowsAffected > 0) {
-                Toast.makeText(getContext(), "Hotel updated successfully", Toast.LENGTH_SHORT).show();
-            } else {
-                Toast.makeText(getContext(), "Error updating hotel", Toast.LENGTH_SHORT).show();
-            }
+            int hotelId = editingHotel.getId();
+            saveButton.setEnabled(false);
+            repository.updateHotel(editingHotel, rowsAffected -> {
+                if (!isAdded()) {
+                    return;
+                }
+                if (rowsAffected != null && rowsAffected > 0) {
+                    Toast.makeText(getContext(), "Hotel updated successfully", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(getContext(), "Error updating hotel", Toast.LENGTH_SHORT).show();
+                }
+                onSaved(hotelId);
+            });
         } else {
             // Create new hotel
-            Hotel hotel = new Hotel(name, location, rating, price, checkInDate, available, roomType);
+            Hotel hotel = new Hotel(name, location, rating, price, checkInDay, available, roomType);
 
             if (selectedImageBytes != null) {
                 hotel.setImage(selectedImageBytes);
             }
 
-            long hotelId = dbHelper.addHotel(hotel);
-
-            if (hotelId == -1) {
-                Toast.makeText(getContext(), "Error: hotel NOT saved to database", Toast.LENGTH_SHORT).show();
-                return;
-            }
-
-            // Create a default room for this hotel
+            // Create a default room for this hotel; the repository fills in the new hotel id
             Room room = new Room(
-                    (int) hotelId,
+                    0,
                     "101",
                     roomType,
                     2,
@@ -281,12 +295,25 @@ public class HotelFormFragment extends Fragment {
                     0.0
             );
 
-            dbHelper.addRoom(room);
-            Toast.makeText(getContext(), R.string.save_success, Toast.LENGTH_SHORT).show();
+            saveButton.setEnabled(false);
+            repository.addHotel(hotel, Collections.singletonList(room), hotelId -> {
+                if (!isAdded()) {
+                    return;
+                }
+                if (hotelId == null || hotelId == -1) {
+                    saveButton.setEnabled(true);
+                    Toast.makeText(getContext(), "Error: hotel NOT saved to database", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                Toast.makeText(getContext(), R.string.save_success, Toast.LENGTH_SHORT).show();
+                onSaved(hotelId.intValue());
+            });
         }
+    }
 
+    private void onSaved(int hotelId) {
         if (listener != null) {
-            listener.onHotelSaved();
+            listener.onHotelSaved(hotelId);
         }
 
         closeFragment();
@@ -316,12 +343,4 @@ public class HotelFormFragment extends Fragment {
             getFragmentManager().beginTransaction().remove(this).commit();
         }
     }
-
-    @Override
-    public void onDestroy() {
-        super.onDestroy();
-        if (dbHelper != null) {
-            dbHelper.close();
-        }
-    }
 }
@@ -17,11 +17,10 @@ import android.widget.Toast;
 import androidx.fragment.app.Fragment;
 
 import com.android.volley.Request;
-import com.android.volley.RequestQueue;
 import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
 import com.example.hotelbooking.R;
 import com.example.hotelbooking.network.ApiConfig;
+import com.example.hotelbooking.network.NetworkClient;
 import com.example.hotelbooking.network.NetworkHotel;
 
 import org.json.JSONException;
@@ -44,7 +43,7 @@ public class NetworkHotelFormFragment extends Fragment {
 
     private NetworkHotel editingHotel;
     private OnHotelSavedListener listener;
-    private RequestQueue requestQueue;
+    private NetworkClient networkClient;
 
     /**
      * Callback interface for when hotel is saved
@@ -84,8 +83,8 @@ public class NetworkHotelFormFragment extends Fragment {
                              Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_network_hotel_form, container, false);
 
-        // Initialize Volley request queue
-        requestQueue = Volley.newRequestQueue(getContext());
+        // Requests go through the app-wide Volley queue
+        networkClient = NetworkClient.getInstance(requireContext());
 
         initializeViews(view);
         setupRatingSpinner();
@@ -248,8 +247,9 @@ public class NetworkHotelFormFragment extends Fragment {
                     }
             );
 
-            // Add request to queue
-            requestQueue.add(request);
+            // Tagged so that onDestroy can cancel it on the shared queue
+            request.setTag(this);
+            networkClient.add(request);
 
         } catch (JSONException e) {
             e.printStackTrace();
@@ -269,8 +269,8 @@ public class NetworkHotelFormFragment extends Fragment {
     public void onDestroy() {
         super.onDestroy();
         // Cancel any pending requests
-        if (requestQueue != null) {
-            requestQueue.cancelAll(this);
+        if (networkClient != null) {
+            networkClient.cancelAll(this);
         }
     }
 }
\ No newline at end of file
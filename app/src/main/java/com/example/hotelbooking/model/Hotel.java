@@ -2,6 +2,8 @@ package com.example.hotelbooking.model;
 
 // 1. ADDED NECESSARY IMPORTS
 import android.util.Base64;
+import com.example.hotelbooking.util.DateUtils;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -13,10 +15,11 @@ public class Hotel {
     private String location;
     private int rating;
     private double price;
-    private String checkInDate;
+    private int checkInDay = DateUtils.NO_DATE; // Epoch day, see DateUtils
     private boolean available;
     private String roomType;
-    private byte[] image; // For local database (BLOB)
+    private byte[] image; // Full image bytes, only loaded for single-hotel reads
+    private String imageKey; // Key of the image in the local ImageStore
     private String imageUrl; // For fetching from server URL
 
     // Default Constructor
@@ -25,25 +28,25 @@ public class Hotel {
 
     // Constructor without id (for creating new hotels)
     public Hotel(String name, String location, int rating, double price,
-                 String checkInDate, boolean available, String roomType) {
+                 int checkInDay, boolean available, String roomType) {
         this.name = name;
         this.location = location;
         this.rating = rating;
         this.price = price;
-        this.checkInDate = checkInDate;
+        this.checkInDay = checkInDay;
         this.available = available;
         this.roomType = roomType;
     }
 
     // Constructor with id (for hotels retrieved from the database)
     public Hotel(int id, String name, String location, int rating, double price,
-                 String checkInDate, boolean available, String roomType) {
+                 int checkInDay, boolean available, String roomType) {
         this.id = id;
         this.name = name;
         this.location = location;
         this.rating = rating;
         this.price = price;
-        this.checkInDate = checkInDate;
+        this.checkInDay = checkInDay;
         this.available = available;
         this.roomType = roomType;
     }
@@ -89,12 +92,12 @@ public class Hotel {
         this.price = price;
     }
 
-    public String getCheckInDate() {
-        return checkInDate;
+    public int getCheckInDay() {
+        return checkInDay;
     }
 
-    public void setCheckInDate(String checkInDate) {
-        this.checkInDate = checkInDate;
+    public void setCheckInDay(int checkInDay) {
+        this.checkInDay = checkInDay;
     }
 
     public boolean isAvailable() {
@@ -121,6 +124,14 @@ public class Hotel {
         this.image = image;
     }
 
+    public String getImageKey() {
+        return imageKey;
+    }
+
+    public void setImageKey(String imageKey) {
+        this.imageKey = imageKey;
+    }
+
     public String getImageUrl() {
         return imageUrl;
     }
@@ -140,7 +151,8 @@ public class Hotel {
         jsonBody.put("location", getLocation());
         jsonBody.put("rating", getRating());
         jsonBody.put("price", getPrice());
-        jsonBody.put("checkInDate", getCheckInDate());
+        // Dates travel as ISO text; the server has no notion of epoch days
+        jsonBody.put("checkInDate", DateUtils.formatIso(getCheckInDay()));
         jsonBody.put("available", isAvailable());
         jsonBody.put("roomType", getRoomType());
 
@@ -163,10 +175,11 @@ public class Hotel {
                 ", location='" + location + '\'' +
                 ", rating=" + rating +
                 ", price=" + price +
-                ", checkInDate='" + checkInDate + '\'' +
+                ", checkInDay='" + DateUtils.formatIso(checkInDay) + '\'' +
                 ", available=" + available +
                 ", roomType='" + roomType + '\'' +
                 ", hasImage=" + (image != null && image.length > 0) +
+                ", imageKey='" + imageKey + '\'' +
                 ", imageUrl='" + imageUrl + '\'' +
                 '}';
     }
@@ -0,0 +1,52 @@
+package com.example.hotelbooking.model;
+
+/**
+ * Read-only projection of a hotel with just the columns list screens display.
+ * The image is only referenced (URL or ImageStore key), never loaded.
+ */
+public class HotelSummary {
+    private final int id;
+    private final String name;
+    private final String location;
+    private final int rating;
+    private final double price;
+    private final String imageUrl;
+    private final String imageKey;
+
+    public HotelSummary(int id, String name, String location, int rating, double price,
+                        String imageUrl, String imageKey) {
+        this.id = id;
+        this.name = name;
+        this.location = location;
+        this.rating = rating;
+        this.price = price;
+        this.imageUrl = imageUrl;
+        this.imageKey = imageKey;
+    }
+
+    // --- Getters ---
+    public int getId() { return id; }
+
+    public String getName() { return name; }
+
+    public String getLocation() { return location; }
+
+    public int getRating() { return rating; }
+
+    public double getPrice() { return price; }
+
+    public String getImageUrl() { return imageUrl; }
+
+    public String getImageKey() { return imageKey; }
+
+    @Override
+    public String toString() {
+        return "HotelSummary{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", location='" + location + '\'' +
+                ", rating=" + rating +
+                ", price=" + price +
+                '}';
+    }
+}
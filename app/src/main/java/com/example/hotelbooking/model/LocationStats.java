@@ -0,0 +1,34 @@
+package com.example.hotelbooking.model;
+
+/**
+ * Aggregate of the hotels in one location, kept up to date by the database on every
+ * write instead of being computed from the hotels table when read.
+ */
+public class LocationStats {
+    private final String location;
+    private final int hotelCount;
+    private final int availableCount;
+    private final double minPrice;
+
+    public LocationStats(String location, int hotelCount, int availableCount, double minPrice) {
+        this.location = location;
+        this.hotelCount = hotelCount;
+        this.availableCount = availableCount;
+        this.minPrice = minPrice;
+    }
+
+    public String getLocation() { return location; }
+    public int getHotelCount() { return hotelCount; }
+    public int getAvailableCount() { return availableCount; }
+    public double getMinPrice() { return minPrice; }
+
+    @Override
+    public String toString() {
+        return "LocationStats{" +
+                "location='" + location + '\'' +
+                ", hotelCount=" + hotelCount +
+                ", availableCount=" + availableCount +
+                ", minPrice=" + minPrice +
+                '}';
+    }
+}
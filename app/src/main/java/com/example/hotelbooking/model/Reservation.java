@@ -0,0 +1,90 @@
+package com.example.hotelbooking.model;
+
+import com.example.hotelbooking.util.DateUtils;
+
+/**
+ * A stay in one room. Days are epoch days (see DateUtils); the check-out day is
+ * exclusive, so a stay ending on a day and another starting on it do not overlap.
+ */
+public class Reservation {
+    private int id;
+    private int roomId;
+    private int checkInDay;
+    private int checkOutDay;
+    private String guestName;
+
+    public Reservation() {
+    }
+
+    // Constructor without id (for new bookings)
+    public Reservation(int roomId, int checkInDay, int checkOutDay, String guestName) {
+        this.roomId = roomId;
+        this.checkInDay = checkInDay;
+        this.checkOutDay = checkOutDay;
+        this.guestName = guestName;
+    }
+
+    // Constructor with id (for reservations retrieved from the database)
+    public Reservation(int id, int roomId, int checkInDay, int checkOutDay, String guestName) {
+        this.id = id;
+        this.roomId = roomId;
+        this.checkInDay = checkInDay;
+        this.checkOutDay = checkOutDay;
+        this.guestName = guestName;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(int roomId) {
+        this.roomId = roomId;
+    }
+
+    public int getCheckInDay() {
+        return checkInDay;
+    }
+
+    public void setCheckInDay(int checkInDay) {
+        this.checkInDay = checkInDay;
+    }
+
+    public int getCheckOutDay() {
+        return checkOutDay;
+    }
+
+    public void setCheckOutDay(int checkOutDay) {
+        this.checkOutDay = checkOutDay;
+    }
+
+    public String getGuestName() {
+        return guestName;
+    }
+
+    public void setGuestName(String guestName) {
+        this.guestName = guestName;
+    }
+
+    public int getNights() {
+        return checkOutDay - checkInDay;
+    }
+
+    @Override
+    public String toString() {
+        return "Reservation{" +
+                "id=" + id +
+                ", roomId=" + roomId +
+                ", checkIn=" + DateUtils.formatIso(checkInDay) +
+                ", checkOut=" + DateUtils.formatIso(checkOutDay) +
+                ", guestName='" + guestName + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.hotelbooking.model;
+
+/**
+ * Aggregate of one hotel's rooms, computed by SQLite instead of loading every room.
+ */
+public class RoomStats {
+    private final int hotelId;
+    private final int roomCount;
+    private final int minCapacity;
+    private final double maxAdditionalPrice;
+
+    public RoomStats(int hotelId, int roomCount, int minCapacity, double maxAdditionalPrice) {
+        this.hotelId = hotelId;
+        this.roomCount = roomCount;
+        this.minCapacity = minCapacity;
+        this.maxAdditionalPrice = maxAdditionalPrice;
+    }
+
+    public int getHotelId() { return hotelId; }
+    public int getRoomCount() { return roomCount; }
+    public int getMinCapacity() { return minCapacity; }
+    public double getMaxAdditionalPrice() { return maxAdditionalPrice; }
+
+    @Override
+    public String toString() {
+        return "RoomStats{" +
+                "hotelId=" + hotelId +
+                ", roomCount=" + roomCount +
+                ", minCapacity=" + minCapacity +
+                ", maxAdditionalPrice=" + maxAdditionalPrice +
+                '}';
+    }
+}
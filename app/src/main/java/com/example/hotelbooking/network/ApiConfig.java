@@ -31,6 +31,28 @@ public class ApiConfig {
     // URL for getting all rooms (GET) and creating a new one (POST)
     public static final String ROOMS_ENDPOINT = BASE_URL + "/rooms";
 
+    // --- Request stack (see NetworkClient) ---
+    // Volley dispatcher threads shared by every screen
+    public static final int NETWORK_THREAD_POOL_SIZE = 4;
+    // Upper bound of the shared response cache on disk
+    public static final int HTTP_CACHE_SIZE_BYTES = 10 * 1024 * 1024;
+    // Idle keep-alive connections to the server kept open, and for how long
+    public static final int MAX_IDLE_CONNECTIONS = 4;
+    public static final long KEEP_ALIVE_MINUTES = 5;
+
+    // --- Hotel list pagination (see HotelPageDownloader) ---
+    // Hotels asked for per page, and how many pages download at the same time
+    public static final int HOTELS_PAGE_SIZE = 500;
+    public static final int MAX_PAGES_IN_FLIGHT = 3;
+
+    // --- Compression (see GzipJsonObjectRequest) ---
+    // Responses need no setting: OkHttp asks for gzip and unzips it before Volley reads it.
+    // Gzipped request bodies need a backend that decodes Content-Encoding: gzip, which
+    // Flask does not do by itself, so they stay off until the server does.
+    public static final boolean GZIP_REQUEST_BODIES = false;
+    // Below this a body fits in a packet or two and compressing it gains nothing
+    public static final int GZIP_MIN_REQUEST_BYTES = 1024;
+
 
     /**
      * Constructs the URL for a specific hotel (GET, PUT, DELETE).
@@ -41,6 +63,17 @@ public class ApiConfig {
         return HOTELS_ENDPOINT + "/" + hotelId;
     }
 
+    /**
+     * Constructs the URL for one page of the hotel list. Servers that do not paginate
+     * ignore the parameters and return the whole list.
+     * @param offset The number of hotels to skip.
+     * @param limit The page size.
+     * @return The complete URL (e.g., http://.../api/hotels?offset=500&limit=500)
+     */
+    public static String getHotelsPageUrl(int offset, int limit) {
+        return HOTELS_ENDPOINT + "?offset=" + offset + "&limit=" + limit;
+    }
+
     /**
      * Constructs the URL to get all rooms for a specific hotel.
      * @param hotelId The ID of the hotel.
@@ -0,0 +1,66 @@
+package com.example.hotelbooking.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+/**
+ * Counts how the shared HTTP client got its connections. Every call acquires one;
+ * those that did not first open a new one came out of the keep-alive pool. Screens
+ * log the totals once a sync is done rather than after every call.
+ */
+public final class ConnectionMetrics extends EventListener {
+
+    private final AtomicInteger acquired = new AtomicInteger();
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    ConnectionMetrics() {
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        opened.incrementAndGet();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        acquired.incrementAndGet();
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        failed.incrementAndGet();
+    }
+
+    /**
+     * @return the number of new connections opened to a server.
+     */
+    public int getOpened() {
+        return opened.get();
+    }
+
+    /**
+     * @return the number of calls that were served on a pooled connection.
+     */
+    public int getReused() {
+        // A connection is acquired right after it is opened, so the difference is the pool hits
+        return Math.max(0, acquired.get() - opened.get());
+    }
+
+    public int getFailedCalls() {
+        return failed.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionMetrics{opened=" + getOpened() + ", reused=" + getReused()
+                + ", failedCalls=" + getFailedCalls() + '}';
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.hotelbooking.network;
+
+import android.util.Log;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Response;
+import com.android.volley.toolbox.JsonObjectRequest;
+
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link JsonObjectRequest} that sends its body gzipped, with Content-Encoding: gzip,
+ * when {@link ApiConfig#GZIP_REQUEST_BODIES} is on. Hotel JSON with a base64 image is
+ * mostly text and shrinks several times over. Bodies under
+ * {@link ApiConfig#GZIP_MIN_REQUEST_BYTES}, or that do not get smaller, go out as they are.
+ */
+public class GzipJsonObjectRequest extends JsonObjectRequest {
+
+    private static final String TAG = "GzipJsonObjectRequest";
+
+    private final boolean gzipAllowed;
+    // Encoded once on first use, which is on a network thread, and reused by retries
+    private boolean encoded;
+    private boolean gzipped;
+    private byte[] body;
+
+    public GzipJsonObjectRequest(int method, String url, JSONObject jsonRequest,
+                                 Response.Listener<JSONObject> listener, Response.ErrorListener errorListener) {
+        this(method, url, jsonRequest, ApiConfig.GZIP_REQUEST_BODIES, listener, errorListener);
+    }
+
+    GzipJsonObjectRequest(int method, String url, JSONObject jsonRequest, boolean gzipAllowed,
+                          Response.Listener<JSONObject> listener, Response.ErrorListener errorListener) {
+        super(method, url, jsonRequest, listener, errorListener);
+        this.gzipAllowed = gzipAllowed;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() throws AuthFailureError {
+        Map<String, String> headers = super.getHeaders();
+        if (!encode()) {
+            return headers;
+        }
+        Map<String, String> withEncoding = new HashMap<>(headers);
+        withEncoding.put("Content-Encoding", "gzip");
+        return withEncoding;
+    }
+
+    @Override
+    public byte[] getBody() {
+        encode();
+        return body;
+    }
+
+    /**
+     * @return whether the body is sent gzipped.
+     */
+    private synchronized boolean encode() {
+        if (encoded) {
+            return gzipped;
+        }
+        encoded = true;
+        body = super.getBody();
+        if (!gzipAllowed || body == null || body.length < ApiConfig.GZIP_MIN_REQUEST_BYTES) {
+            return false;
+        }
+        try {
+            byte[] compressed = gzip(body);
+            if (compressed.length < body.length) {
+                body = compressed;
+                gzipped = true;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to gzip request body, sending it uncompressed", e);
+        }
+        return gzipped;
+    }
+
+    static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(data);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.hotelbooking.network;
+
+import android.util.Base64;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.util.DateUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads hotels in the JSON shape of {@link ApiConfig#HOTELS_ENDPOINT} token by token,
+ * so only the hotel being read and the current batch are ever on the heap.
+ */
+final class HotelJson {
+
+    private static final String TAG = "HotelJson";
+
+    private HotelJson() {
+    }
+
+    /**
+     * What a response held: the number of hotels read, and for a page of a paginated
+     * list the total number of hotels on the server, or -1 for a complete list, and the
+     * version of the list the page was cut from, or null if the server sent none.
+     */
+    static final class ListInfo {
+        final int count;
+        final int total;
+        final String version;
+
+        ListInfo(int count, int total, String version) {
+            this.count = count;
+            this.total = total;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Reads a top-level array of hotels, or an object holding the array under
+     * "records" (and "total" and "version" if it is one page of a longer list), and hands the hotels
+     * over in batches of up to batchSize. Every batch is a new list, so the handler
+     * may keep it.
+     */
+    static ListInfo readHotels(Reader in, int batchSize, HotelStreamRequest.BatchHandler handler) throws Exception {
+        JsonReader reader = new JsonReader(in);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return new ListInfo(readArray(reader, batchSize, handler), -1, null);
+        }
+        // {"success": true, "records": [...]}, plus "total": N and "version": V when paginated
+        int count = -1;
+        int total = -1;
+        String version = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("records".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                count = readArray(reader, batchSize, handler);
+            } else if ("total".equals(name) && reader.peek() == JsonToken.NUMBER) {
+                total = reader.nextInt();
+            } else if ("version".equals(name)
+                    && (reader.peek() == JsonToken.STRING || reader.peek() == JsonToken.NUMBER)) {
+                version = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (count < 0) {
+            // Reading it as an empty list would make the sync delete every local hotel
+            throw new IOException("No hotel records in the response");
+        }
+        return new ListInfo(count, total, version);
+    }
+
+    private static int readArray(JsonReader reader, int batchSize, HotelStreamRequest.BatchHandler handler)
+            throws Exception {
+        int count = 0;
+        List<Hotel> batch = new ArrayList<>(batchSize);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            batch.add(read(reader));
+            count++;
+            if (batch.size() == batchSize) {
+                handler.onBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        reader.endArray();
+        if (!batch.isEmpty()) {
+            handler.onBatch(batch);
+        }
+        return count;
+    }
+
+    /**
+     * Reads one hotel object. Missing optional fields get the defaults the server's
+     * other clients assume; a hotel without name, location or price is an error.
+     */
+    static Hotel read(JsonReader reader) throws IOException {
+        int id = 0;
+        String name = null;
+        String location = null;
+        int rating = 3;
+        double price = Double.NaN;
+        int checkInDay = DateUtils.NO_DATE;
+        boolean available = true;
+        String roomType = "Standard";
+        String imageUrl = null;
+        String imageData = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (field) {
+                case "id":
+                    id = reader.nextInt();
+                    break;
+                case "name":
+                    name = reader.nextString();
+                    break;
+                case "location":
+                    location = reader.nextString();
+                    break;
+                case "rating":
+                    rating = reader.nextInt();
+                    break;
+                case "price":
+                    price = reader.nextDouble();
+                    break;
+                case "check_in_date":
+                    checkInDay = DateUtils.parse(reader.nextString());
+                    break;
+                case "available":
+                    // Some servers send the flag as a string
+                    available = reader.peek() == JsonToken.STRING
+                            ? Boolean.parseBoolean(reader.nextString())
+                            : reader.nextBoolean();
+                    break;
+                case "room_type":
+                    roomType = reader.nextString();
+                    break;
+                case "image_url":
+                    imageUrl = reader.nextString();
+                    break;
+                case "image":
+                    imageData = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (name == null || location == null || Double.isNaN(price)) {
+            throw new IOException("Hotel " + id + " has no name, location or price");
+        }
+        Hotel hotel = new Hotel(id, name, location, rating, price, checkInDay, available, roomType);
+        setImage(hotel, imageUrl, imageData);
+        return hotel;
+    }
+
+    /**
+     * Uses the image URL if the server sent one, else decodes an inline base64 image.
+     */
+    private static void setImage(Hotel hotel, String imageUrl, String imageData) {
+        if (imageUrl != null && !imageUrl.isEmpty() && imageUrl.startsWith("http")) {
+            hotel.setImageUrl(imageUrl);
+        } else if (imageData != null && !imageData.isEmpty()) {
+            try {
+                // Handle Base64 strings, removing the data URI prefix if present
+                if (imageData.contains(",")) {
+                    imageData = imageData.substring(imageData.indexOf(",") + 1);
+                }
+                hotel.setImage(Base64.decode(imageData, Base64.DEFAULT));
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "Invalid Base64 string from server for image.", e);
+            }
+        }
+    }
+}
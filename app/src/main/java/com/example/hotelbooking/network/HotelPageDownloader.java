@@ -0,0 +1,191 @@
+package com.example.hotelbooking.network;
+
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Downloads the hotel list page by page when the server paginates, so a large catalogue
+ * syncs in bounded memory and its first rows reach the database early.
+ * <p>
+ * The first page is requested as {@code ?offset=0&limit=N}, conditionally. A server
+ * that paginates answers {@code {"records": [...], "total": T}}; the remaining pages
+ * are then fetched with up to {@link ApiConfig#MAX_PAGES_IN_FLIGHT} downloading at
+ * once, each streamed into the batch handler while the next ones arrive. A server that
+ * ignores the parameters answers with the whole list, which completes the download
+ * in one response as before.
+ * <p>
+ * Offsets rather than cursors, because only offsets let pages be requested before the
+ * previous one arrived. Offsets shift when the list changes between pages, so a server
+ * that paginates should also send {@code "version": V}, which changes whenever the list
+ * does. Every page must carry the first page's version and total, else the download
+ * fails. Without a version a deletion and an insertion between two pages go unnoticed,
+ * so such a download is not {@link HotelStreamRequest.Result#isComplete() complete} and
+ * the sync must not delete the local hotels it did not see.
+ */
+public class HotelPageDownloader {
+
+    private static final String TAG = "HotelPageDownloader";
+
+    public interface ProgressListener {
+        /**
+         * Called on the main thread after each page.
+         */
+        void onProgress(int hotelsRead, int total);
+    }
+
+    private final ValidatorStore validatorStore;
+    private final HotelStreamRequest.BatchHandler batchHandler;
+    private final ProgressListener progressListener;
+    private final HotelStreamRequest.Listener listener;
+    private final HotelStreamRequest.ErrorListener errorListener;
+    private final List<HotelStreamRequest> inFlight = new ArrayList<>();
+    private int pageSize = ApiConfig.HOTELS_PAGE_SIZE;
+    private int maxInFlight = ApiConfig.MAX_PAGES_IN_FLIGHT;
+    private String baseUrl; // null for ApiConfig's endpoint
+    private OkHttpClient httpClient;
+
+    // Only touched on the main thread, where every request reports back
+    private int total;
+    private String version;
+    private int pagesRead;
+    private int nextOffset;
+    private int hotelsRead;
+    private boolean finished;
+
+    /**
+     * @param progressListener may be null.
+     * @param listener called on the main thread once every page was handled. The result
+     *                 carries validators only when the server sent the whole list at once,
+     *                 and is only complete if the pages came from one version of the list.
+     */
+    public HotelPageDownloader(ValidatorStore validatorStore, HotelStreamRequest.BatchHandler batchHandler,
+                               ProgressListener progressListener, HotelStreamRequest.Listener listener,
+                               HotelStreamRequest.ErrorListener errorListener) {
+        this.validatorStore = validatorStore;
+        this.batchHandler = batchHandler;
+        this.progressListener = progressListener;
+        this.listener = listener;
+        this.errorListener = errorListener;
+    }
+
+    // For tests against a local server
+    HotelPageDownloader setBaseUrl(String baseUrl, int pageSize, int maxInFlight) {
+        this.baseUrl = baseUrl;
+        this.pageSize = pageSize;
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    public void start(NetworkClient client) {
+        start(client.getHttpClient());
+    }
+
+    void start(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+        HotelStreamRequest firstPage = new HotelStreamRequest(pageUrl(0), validatorStore, batchHandler,
+                this::onFirstPage, this::onPageFailed);
+        inFlight.add(firstPage);
+        firstPage.start(httpClient);
+    }
+
+    /**
+     * Stops every page download. No listener is called afterwards.
+     */
+    public void cancel() {
+        finished = true;
+        for (HotelStreamRequest request : inFlight) {
+            request.cancel();
+        }
+        inFlight.clear();
+    }
+
+    private void onFirstPage(HotelStreamRequest.Result result) {
+        inFlight.clear();
+        if (finished) {
+            return;
+        }
+        if (result.isNotModified() || result.getTotal() < 0) {
+            // Not paginated: the response was the whole list
+            finish(result);
+            return;
+        }
+        total = result.getTotal();
+        version = result.getVersion();
+        pagesRead = 1;
+        hotelsRead = result.getHotelCount();
+        nextOffset = pageSize;
+        Log.d(TAG, "Paginated list of " + total + " hotels, version " + version);
+        reportProgress();
+        fetchMorePages();
+    }
+
+    private void fetchMorePages() {
+        while (!finished && inFlight.size() < maxInFlight && nextOffset < total) {
+            int offset = nextOffset;
+            nextOffset += pageSize;
+            HotelStreamRequest[] self = new HotelStreamRequest[1];
+            self[0] = new HotelStreamRequest(pageUrl(offset), null, batchHandler,
+                    result -> onPage(self[0], offset, result), this::onPageFailed);
+            inFlight.add(self[0]);
+            self[0].start(httpClient);
+        }
+        if (!finished && inFlight.isEmpty()) {
+            // A versioned list, or one that fit in a single page, is one consistent snapshot
+            boolean complete = version != null || (pagesRead == 1 && hotelsRead == total);
+            // Validators of the first page do not cover the others, so none are kept
+            finish(new HotelStreamRequest.Result(false, hotelsRead, total, version, complete,
+                    new Validators(pageUrl(0), null, null)));
+        }
+    }
+
+    private void onPage(HotelStreamRequest request, int offset, HotelStreamRequest.Result result) {
+        inFlight.remove(request);
+        if (finished) {
+            return;
+        }
+        int expected = Math.min(pageSize, total - offset);
+        if (result.getTotal() != total || result.getHotelCount() != expected
+                || !TextUtils.equals(result.getVersion(), version)) {
+            onPageFailed(new IOException("Hotel list changed during the download: page at " + offset
+                    + " has " + result.getHotelCount() + " of " + result.getTotal() + " hotels of version "
+                    + result.getVersion() + ", expected " + expected + " of " + total + " of version " + version));
+            return;
+        }
+        pagesRead++;
+        hotelsRead += result.getHotelCount();
+        reportProgress();
+        fetchMorePages();
+    }
+
+    private void onPageFailed(Exception error) {
+        if (finished) {
+            return;
+        }
+        cancel();
+        errorListener.onError(error);
+    }
+
+    private void finish(HotelStreamRequest.Result result) {
+        finished = true;
+        listener.onComplete(result);
+    }
+
+    private void reportProgress() {
+        if (progressListener != null) {
+            progressListener.onProgress(hotelsRead, total);
+        }
+    }
+
+    private String pageUrl(int offset) {
+        if (baseUrl == null) {
+            return ApiConfig.getHotelsPageUrl(offset, pageSize);
+        }
+        return baseUrl + "?offset=" + offset + "&limit=" + pageSize;
+    }
+}
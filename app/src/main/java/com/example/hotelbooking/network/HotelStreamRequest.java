@@ -0,0 +1,195 @@
+package com.example.hotelbooking.network;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.hotelbooking.model.Hotel;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Downloads the hotel list and parses it while it arrives, handing the hotels over in
+ * batches instead of buffering the body, building a JSON tree and then a full list.
+ * Volley always reads a body into one byte array, so this runs on the shared OkHttp
+ * client directly and still uses its pooled connections.
+ * <p>
+ * Given a {@link ValidatorStore} the request is conditional: the validators stored for
+ * the URL are sent, and a 304 completes without any batch. The caller stores the new
+ * validators once the batches are in the database.
+ */
+public class HotelStreamRequest {
+
+    private static final String TAG = "HotelStreamRequest";
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    public interface BatchHandler {
+        /**
+         * Called on the download thread. Blocking here slows the download down to the
+         * pace of the consumer, which keeps memory flat.
+         */
+        void onBatch(List<Hotel> batch) throws Exception;
+    }
+
+    public interface Listener {
+        void onComplete(Result result);
+    }
+
+    public interface ErrorListener {
+        void onError(Exception error);
+    }
+
+    public static final class Result {
+        private final boolean notModified;
+        private final int hotelCount;
+        private final int total;
+        private final String version;
+        private final boolean complete;
+        private final Validators validators;
+
+        Result(boolean notModified, int hotelCount, int total, String version, boolean complete,
+               Validators validators) {
+            this.notModified = notModified;
+            this.hotelCount = hotelCount;
+            this.total = total;
+            this.version = version;
+            this.complete = complete;
+            this.validators = validators;
+        }
+
+        public boolean isNotModified() { return notModified; }
+        public int getHotelCount() { return hotelCount; }
+
+        /**
+         * @return the number of hotels on the server if the response was one page of
+         * a paginated list, else -1.
+         */
+        public int getTotal() { return total; }
+
+        /**
+         * @return the list version a paginated server sent with the page, or null.
+         */
+        public String getVersion() { return version; }
+
+        /**
+         * @return true if the hotels are the whole server list as of one moment, so local
+         * hotels missing from them were removed on the server and may be deleted.
+         */
+        public boolean isComplete() { return complete; }
+
+        public Validators getValidators() { return validators; }
+    }
+
+    private final String url;
+    private final ValidatorStore validatorStore;
+    private final BatchHandler batchHandler;
+    private final Listener listener;
+    private final ErrorListener errorListener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private Call call;
+    private boolean canceled;
+
+    /**
+     * @param validatorStore the stored validators to send, or null for an unconditional GET.
+     * @param listener called on the main thread after the last batch was handled.
+     * @param errorListener called on the main thread if the download or a batch failed.
+     */
+    public HotelStreamRequest(String url, ValidatorStore validatorStore, BatchHandler batchHandler,
+                              Listener listener, ErrorListener errorListener) {
+        this.url = url;
+        this.validatorStore = validatorStore;
+        this.batchHandler = batchHandler;
+        this.listener = listener;
+        this.errorListener = errorListener;
+    }
+
+    public HotelStreamRequest setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public void start(NetworkClient client) {
+        start(client.getHttpClient());
+    }
+
+    // Package-private so tests can run it on a client of their own
+    void start(OkHttpClient httpClient) {
+        // Runs the blocking call on OkHttp's own threads, as enqueue() would
+        httpClient.dispatcher().executorService().execute(() -> run(httpClient));
+    }
+
+    /**
+     * Stops the download. No listener is called afterwards, but batches already handed
+     * over stay handed over.
+     */
+    public synchronized void cancel() {
+        canceled = true;
+        if (call != null) {
+            call.cancel();
+        }
+    }
+
+    private void run(OkHttpClient httpClient) {
+        try {
+            HttpUrl httpUrl = HttpUrl.get(url);
+            Request.Builder request = new Request.Builder().url(httpUrl);
+            if (validatorStore != null) {
+                // Read here rather than on the main thread, as the store may still be loading from disk
+                validatorStore.get(httpUrl.toString()).addTo(request);
+            }
+            Call newCall = httpClient.newCall(request.build());
+            synchronized (this) {
+                if (canceled) {
+                    return;
+                }
+                call = newCall;
+            }
+            try (Response response = newCall.execute()) {
+                Validators validators = Validators.of(response);
+                if (response.code() == 304) {
+                    deliver(new Result(true, 0, -1, null, true, validators));
+                    return;
+                }
+                ResponseBody body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    throw new IOException("Server responded with status " + response.code());
+                }
+                HotelJson.ListInfo list = HotelJson.readHotels(body.charStream(), batchSize, batchHandler);
+                // A single page is only the whole list if the server did not paginate
+                deliver(new Result(false, list.count, list.total, list.version, list.total < 0, validators));
+            }
+        } catch (Exception e) {
+            if (isCanceled()) {
+                return;
+            }
+            Log.e(TAG, "Error while trying to download hotels from " + url, e);
+            mainHandler.post(() -> {
+                if (!isCanceled()) {
+                    errorListener.onError(e);
+                }
+            });
+        }
+    }
+
+    private void deliver(Result result) {
+        mainHandler.post(() -> {
+            if (!isCanceled()) {
+                listener.onComplete(result);
+            }
+        });
+    }
+
+    private synchronized boolean isCanceled() {
+        return canceled;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.hotelbooking.network;
+
+import android.content.Context;
+
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.DiskBasedCache;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+/**
+ * The app's single Volley request queue. Every screen shares its dispatcher threads,
+ * its size-bounded disk cache and a pool of keep-alive connections to
+ * {@link ApiConfig#SERVER_URL}, so only the first request after a pause pays for
+ * a new TCP connection. The pool sizes are set in {@link ApiConfig}.
+ * <p>
+ * OkHttp sends Accept-Encoding: gzip and unzips the responses itself, so Volley, its
+ * cache and {@link HotelStreamRequest} only ever see plain bodies. Setting
+ * Accept-Encoding on a request would turn that off.
+ */
+public final class NetworkClient {
+
+    // The directory Volley.newRequestQueue used, so responses cached before are kept
+    private static final String CACHE_DIR = "volley";
+
+    private static NetworkClient instance;
+
+    private final OkHttpClient httpClient;
+    private final RequestQueue requestQueue;
+    private final ConnectionMetrics connectionMetrics = new ConnectionMetrics();
+
+    private NetworkClient(Context context) {
+        httpClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(ApiConfig.MAX_IDLE_CONNECTIONS,
+                        ApiConfig.KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .eventListener(connectionMetrics)
+                .build();
+        // The cache reads its index on Volley's cache thread, not here
+        File cacheDir = new File(context.getCacheDir(), CACHE_DIR);
+        requestQueue = new RequestQueue(new DiskBasedCache(cacheDir, ApiConfig.HTTP_CACHE_SIZE_BYTES),
+                new BasicNetwork(new OkHttpStack(httpClient)), ApiConfig.NETWORK_THREAD_POOL_SIZE);
+        requestQueue.start();
+    }
+
+    public static synchronized NetworkClient getInstance(Context context) {
+        if (instance == null) {
+            instance = new NetworkClient(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Queues a request. Screens tag their requests and cancel the tag when they go
+     * away; the queue itself lives as long as the process.
+     */
+    public <T> Request<T> add(Request<T> request) {
+        return requestQueue.add(request);
+    }
+
+    public void cancelAll(Object tag) {
+        requestQueue.cancelAll(tag);
+    }
+
+    // For requests that read the body as it arrives, which Volley cannot do
+    OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public ConnectionMetrics getConnectionMetrics() {
+        return connectionMetrics;
+    }
+}
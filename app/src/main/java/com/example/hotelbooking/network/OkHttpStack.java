@@ -0,0 +1,128 @@
+package com.example.hotelbooking.network;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Header;
+import com.android.volley.Request;
+import com.android.volley.toolbox.BaseHttpStack;
+import com.android.volley.toolbox.HttpResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Runs Volley requests on an OkHttp client so they share its connection pool. Volley
+ * reads and closes the returned body stream, which hands the connection back to the
+ * pool for the next request.
+ */
+final class OkHttpStack extends BaseHttpStack {
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final OkHttpClient client;
+
+    OkHttpStack(OkHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public HttpResponse executeRequest(Request<?> request, Map<String, String> additionalHeaders)
+            throws IOException, AuthFailureError {
+        // Derived clients share the pool and dispatcher; only the timeouts differ
+        int timeoutMs = request.getTimeoutMs();
+        OkHttpClient callClient = client.newBuilder()
+                .connectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .writeTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+
+        okhttp3.Request.Builder builder = new okhttp3.Request.Builder().url(request.getUrl());
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+        for (Map.Entry<String, String> header : additionalHeaders.entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+        setMethodAndBody(builder, request);
+
+        Response response = callClient.newCall(builder.build()).execute();
+        List<Header> headers = toVolleyHeaders(response.headers());
+        ResponseBody body = response.body();
+        if (body == null || !hasResponseBody(request.getMethod(), response.code())) {
+            // Nothing for Volley to read, so release the connection here
+            response.close();
+            return new HttpResponse(response.code(), headers);
+        }
+        long contentLength = body.contentLength();
+        return new HttpResponse(response.code(), headers,
+                contentLength > Integer.MAX_VALUE ? -1 : (int) contentLength, body.byteStream());
+    }
+
+    // Same method handling as Volley's HurlStack
+    private static void setMethodAndBody(okhttp3.Request.Builder builder, Request<?> request)
+            throws AuthFailureError {
+        switch (request.getMethod()) {
+            case Request.Method.DEPRECATED_GET_OR_POST:
+                byte[] postBody = request.getBody();
+                if (postBody != null) {
+                    builder.post(createBody(request, postBody));
+                }
+                break;
+            case Request.Method.GET:
+                builder.get();
+                break;
+            case Request.Method.DELETE:
+                builder.delete();
+                break;
+            case Request.Method.POST:
+                builder.post(createBody(request, request.getBody()));
+                break;
+            case Request.Method.PUT:
+                builder.put(createBody(request, request.getBody()));
+                break;
+            case Request.Method.HEAD:
+                builder.head();
+                break;
+            case Request.Method.OPTIONS:
+                builder.method("OPTIONS", null);
+                break;
+            case Request.Method.TRACE:
+                builder.method("TRACE", null);
+                break;
+            case Request.Method.PATCH:
+                builder.patch(createBody(request, request.getBody()));
+                break;
+            default:
+                throw new IllegalStateException("Unknown method type.");
+        }
+    }
+
+    private static RequestBody createBody(Request<?> request, byte[] body) {
+        return RequestBody.create(body != null ? body : EMPTY_BODY,
+                MediaType.parse(request.getBodyContentType()));
+    }
+
+    private static boolean hasResponseBody(int method, int code) {
+        return method != Request.Method.HEAD
+                && !(100 <= code && code < 200)
+                && code != 204
+                && code != 304;
+    }
+
+    private static List<Header> toVolleyHeaders(Headers headers) {
+        List<Header> result = new ArrayList<>(headers.size());
+        for (int i = 0; i < headers.size(); i++) {
+            result.add(new Header(headers.name(i), headers.value(i)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.hotelbooking.network;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Keeps the validators of the last response whose content reached the local database,
+ * per URL, in SharedPreferences. They are only stored after the sync succeeded, so a
+ * 304 always means the local copy already holds what the server has.
+ */
+public final class ValidatorStore {
+
+    private static final String PREFS_NAME = "http_validators";
+    private static final String ETAG_SUFFIX = "|etag";
+    private static final String LAST_MODIFIED_SUFFIX = "|last_modified";
+
+    private final SharedPreferences prefs;
+
+    public ValidatorStore(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Reads from disk on first use, so call it off the main thread.
+     */
+    public Validators get(String url) {
+        return new Validators(url, prefs.getString(url + ETAG_SUFFIX, null),
+                prefs.getString(url + LAST_MODIFIED_SUFFIX, null));
+    }
+
+    /**
+     * Stores the validators for the URL they came from. Empty validators remove the
+     * stored ones, so the next request downloads in full.
+     */
+    public void put(Validators validators) {
+        String url = validators.getUrl();
+        prefs.edit()
+                .putString(url + ETAG_SUFFIX, validators.getEtag())
+                .putString(url + LAST_MODIFIED_SUFFIX, validators.getLastModified())
+                .apply();
+    }
+
+    /**
+     * Makes the next request for the URL download the full body again.
+     */
+    public void remove(String url) {
+        prefs.edit()
+                .remove(url + ETAG_SUFFIX)
+                .remove(url + LAST_MODIFIED_SUFFIX)
+                .apply();
+    }
+}
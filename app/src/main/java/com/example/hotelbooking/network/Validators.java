@@ -0,0 +1,52 @@
+package com.example.hotelbooking.network;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * The ETag and Last-Modified values a server sent with a response. Sent back as
+ * If-None-Match and If-Modified-Since, they let the server answer 304 Not Modified
+ * instead of the whole body when nothing changed.
+ */
+public final class Validators {
+
+    private final String url;
+    private final String etag;
+    private final String lastModified;
+
+    Validators(String url, String etag, String lastModified) {
+        this.url = url;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    static Validators of(Response response) {
+        return new Validators(response.request().url().toString(),
+                response.header("ETag"), response.header("Last-Modified"));
+    }
+
+    /**
+     * @return the URL of the response the validators came with.
+     */
+    public String getUrl() { return url; }
+    public String getEtag() { return etag; }
+    public String getLastModified() { return lastModified; }
+
+    public boolean isEmpty() {
+        return etag == null && lastModified == null;
+    }
+
+    void addTo(Request.Builder request) {
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Validators{url=" + url + ", etag=" + etag + ", lastModified=" + lastModified + '}';
+    }
+}
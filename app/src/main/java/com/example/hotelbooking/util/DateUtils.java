@@ -0,0 +1,137 @@
+package com.example.hotelbooking.util;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Converts between calendar dates and epoch days (days since 1970-01-01), the form in
+ * which dates are stored and compared. Text only exists at the edges: the screens show
+ * {@link #formatDisplay} and the server exchanges {@link #formatIso}.
+ * <p>
+ * All conversions use UTC so a day number never shifts with the device time zone.
+ * SimpleDateFormat is not thread-safe, so each thread keeps its own instances.
+ */
+public final class DateUtils {
+
+    /** Stored as NULL; marks a hotel without a check-in date. */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static final String DISPLAY_PATTERN = "EEE dd MMM yyyy";
+    private static final String ISO_PATTERN = "yyyy-MM-dd";
+
+    private static final ThreadLocal<SimpleDateFormat> DISPLAY_FORMAT =
+            formatPerThread(DISPLAY_PATTERN, Locale.getDefault());
+    // Older builds stored display strings in whatever the device language was; English is the usual one
+    private static final ThreadLocal<SimpleDateFormat> DISPLAY_FORMAT_US =
+            formatPerThread(DISPLAY_PATTERN, Locale.US);
+    private static final ThreadLocal<SimpleDateFormat> ISO_FORMAT = formatPerThread(ISO_PATTERN, Locale.US);
+
+    private DateUtils() {
+    }
+
+    /**
+     * @param month zero-based, as in {@link Calendar#MONTH} and DatePickerDialog.
+     */
+    public static int toEpochDay(int year, int month, int dayOfMonth) {
+        Calendar calendar = Calendar.getInstance(UTC);
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth);
+        return fromMillis(calendar.getTimeInMillis());
+    }
+
+    /**
+     * @return the epoch day of the calendar's date, read in the calendar's own time zone.
+     */
+    public static int toEpochDay(Calendar calendar) {
+        return toEpochDay(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH),
+                calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * @return a UTC calendar on the given day, e.g. to preset a DatePickerDialog.
+     */
+    public static Calendar toCalendar(int epochDay) {
+        Calendar calendar = Calendar.getInstance(UTC);
+        calendar.setTimeInMillis(epochDay * MILLIS_PER_DAY);
+        return calendar;
+    }
+
+    public static int today() {
+        return toEpochDay(Calendar.getInstance());
+    }
+
+    /**
+     * @return e.g. "Mon 01 Jan 2024" in the device language, or null for {@link #NO_DATE}.
+     */
+    public static String formatDisplay(int epochDay) {
+        return epochDay == NO_DATE ? null : DISPLAY_FORMAT.get().format(toDate(epochDay));
+    }
+
+    /**
+     * @return e.g. "2024-01-01", or null for {@link #NO_DATE}.
+     */
+    public static String formatIso(int epochDay) {
+        return epochDay == NO_DATE ? null : ISO_FORMAT.get().format(toDate(epochDay));
+    }
+
+    /**
+     * Parses an ISO date or a display string, as sent by the server or stored by older
+     * versions of the app.
+     * @return the epoch day, or {@link #NO_DATE} if the text is empty or not a date.
+     */
+    public static int parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return NO_DATE;
+        }
+        String trimmed = text.trim();
+        Date date = tryParse(ISO_FORMAT.get(), trimmed);
+        if (date == null) {
+            date = tryParse(DISPLAY_FORMAT.get(), trimmed);
+        }
+        if (date == null) {
+            date = tryParse(DISPLAY_FORMAT_US.get(), trimmed);
+        }
+        return date != null ? fromMillis(date.getTime()) : NO_DATE;
+    }
+
+    private static Date tryParse(SimpleDateFormat format, String text) {
+        try {
+            return format.parse(text);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static Date toDate(int epochDay) {
+        return new Date(epochDay * MILLIS_PER_DAY);
+    }
+
+    private static int fromMillis(long utcMillis) {
+        // Rounds down for dates before 1970 too
+        long days = utcMillis / MILLIS_PER_DAY;
+        if (utcMillis % MILLIS_PER_DAY < 0) {
+            days--;
+        }
+        return (int) days;
+    }
+
+    // ThreadLocal.withInitial() needs API 26
+    private static ThreadLocal<SimpleDateFormat> formatPerThread(String pattern, Locale locale) {
+        return new ThreadLocal<SimpleDateFormat>() {
+            @Override
+            protected SimpleDateFormat initialValue() {
+                SimpleDateFormat format = new SimpleDateFormat(pattern, locale);
+                format.setTimeZone(UTC);
+                format.setLenient(false);
+                return format;
+            }
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.hotelbooking.database;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AvailabilityBitmapTest {
+
+    private static final int START = 19723; // 2024-01-01
+
+    @Test
+    public void stayIsFreeUnlessOneOfItsNightsIsBooked() {
+        long[] bits = new long[AvailabilityBitmap.WORDS];
+        AvailabilityBitmap.markBooked(bits, 0, START, START + 10, START + 13);
+
+        assertFalse(stay(9, 11).isFree(bits, 0));
+        assertFalse(stay(12, 20).isFree(bits, 0));
+        // Check-out day is not a booked night
+        assertTrue(stay(13, 15).isFree(bits, 0));
+        assertTrue(stay(5, 10).isFree(bits, 0));
+    }
+
+    @Test
+    public void staysCrossingWordBoundariesAreChecked() {
+        long[] bits = new long[AvailabilityBitmap.WORDS];
+        AvailabilityBitmap.markBooked(bits, 0, START, START + 63, START + 65);
+
+        assertFalse(stay(60, 64).isFree(bits, 0));
+        assertFalse(stay(64, 70).isFree(bits, 0));
+        assertTrue(stay(65, 130).isFree(bits, 0));
+        assertTrue(stay(0, 63).isFree(bits, 0));
+    }
+
+    @Test
+    public void roomsSharingAnArrayKeepTheirOwnBits() {
+        long[] bits = new long[3 * AvailabilityBitmap.WORDS];
+        AvailabilityBitmap.markBooked(bits, AvailabilityBitmap.WORDS, START, START + 1, START + 2);
+
+        assertTrue(stay(1, 2).isFree(bits, 0));
+        assertFalse(stay(1, 2).isFree(bits, AvailabilityBitmap.WORDS));
+        assertTrue(stay(1, 2).isFree(bits, 2 * AvailabilityBitmap.WORDS));
+    }
+
+    @Test
+    public void nightsOutsideTheWindowAreNotRecorded() {
+        long[] bits = new long[AvailabilityBitmap.WORDS];
+        AvailabilityBitmap.markBooked(bits, 0, START, START - 5, START + 2);
+        AvailabilityBitmap.markBooked(bits, 0, START, START + 360, START + 400);
+
+        assertFalse(stay(0, 1).isFree(bits, 0));
+        assertTrue(stay(2, 360).isFree(bits, 0));
+        assertFalse(stay(364, 365).isFree(bits, 0));
+        assertFalse(AvailabilityBitmap.covers(START, START + 364, START + 366));
+        assertFalse(AvailabilityBitmap.covers(START, START - 1, START + 1));
+    }
+
+    @Test
+    public void shiftMovesNightsToTheLaterWindow() {
+        for (int days : new int[]{1, 63, 64, 100, 364}) {
+            long[] bits = new long[AvailabilityBitmap.WORDS];
+            AvailabilityBitmap.markBooked(bits, 0, START, START + 364, START + 365);
+            AvailabilityBitmap.markBooked(bits, 0, START, START, START + 1);
+
+            AvailabilityBitmap.shift(bits, 0, START, START + days);
+
+            long[] expected = new long[AvailabilityBitmap.WORDS];
+            AvailabilityBitmap.markBooked(expected, 0, START + days, START + 364, START + 365);
+            assertArrayEquals("shift by " + days, expected, bits);
+        }
+    }
+
+    @Test
+    public void shiftPastTheWholeWindowClearsIt() {
+        long[] bits = new long[AvailabilityBitmap.WORDS];
+        AvailabilityBitmap.markBooked(bits, 0, START, START, START + 365);
+        AvailabilityBitmap.shift(bits, 0, START, START + 1000);
+        assertArrayEquals(new long[AvailabilityBitmap.WORDS], bits);
+    }
+
+    @Test
+    public void bytesRoundTrip() {
+        long[] bits = new long[2 * AvailabilityBitmap.WORDS];
+        AvailabilityBitmap.markBooked(bits, AvailabilityBitmap.WORDS, START, START + 3, START + 300);
+        byte[] blob = AvailabilityBitmap.toBytes(bits, AvailabilityBitmap.WORDS);
+        assertEquals(AvailabilityBitmap.BYTES, blob.length);
+
+        long[] read = new long[AvailabilityBitmap.WORDS];
+        assertTrue(AvailabilityBitmap.fromBytes(blob, read, 0));
+        for (int i = 0; i < AvailabilityBitmap.WORDS; i++) {
+            assertEquals(bits[AvailabilityBitmap.WORDS + i], read[i]);
+        }
+        assertFalse(AvailabilityBitmap.fromBytes(new byte[3], read, 0));
+        assertFalse(AvailabilityBitmap.fromBytes(null, read, 0));
+    }
+
+    private static AvailabilityBitmap.Stay stay(int fromOffset, int toOffset) {
+        return new AvailabilityBitmap.Stay(START, START + fromOffset, START + toOffset);
+    }
+}
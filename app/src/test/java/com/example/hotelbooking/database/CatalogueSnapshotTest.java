@@ -0,0 +1,50 @@
+package com.example.hotelbooking.database;
+
+import com.example.hotelbooking.model.Hotel;
+import com.example.hotelbooking.util.DateUtils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CatalogueSnapshotTest {
+
+    @Test
+    public void hotelsRoundTrip() throws IOException {
+        Hotel withImage = new Hotel(7, "Lakeside Inn", "Kigali", 4, 120.5, 19723, true, "Suite");
+        withImage.setImageUrl("http://example.com/7.jpg");
+        Hotel undated = new Hotel(8, "H\u00f4tel \u00c9t\u00e9", "Singapore", 2, 90, DateUtils.NO_DATE, false, "Standard");
+
+        List<Hotel> read = CatalogueSnapshot.read(new ByteArrayInputStream(write(Arrays.asList(withImage, undated))));
+
+        assertEquals(2, read.size());
+        assertEquals(withImage.toString(), read.get(0).toString());
+        assertEquals("http://example.com/7.jpg", read.get(0).getImageUrl());
+        assertEquals(undated.toString(), read.get(1).toString());
+        assertEquals(DateUtils.NO_DATE, read.get(1).getCheckInDay());
+        assertNull(read.get(1).getImageUrl());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        CatalogueSnapshot.read(new ByteArrayInputStream("[{\"id\": 1}]".getBytes("UTF-8")));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedSnapshots() throws IOException {
+        byte[] snapshot = write(Arrays.asList(new Hotel(1, "A", "Kigali", 3, 50, 19723, true, "Suite")));
+        CatalogueSnapshot.read(new ByteArrayInputStream(Arrays.copyOf(snapshot, snapshot.length - 4)));
+    }
+
+    private static byte[] write(List<Hotel> hotels) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CatalogueSnapshot.write(hotels, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.hotelbooking.util;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class DateUtilsTest {
+
+    @Test
+    public void epochDaysCountFromNineteenSeventy() {
+        assertEquals(0, DateUtils.toEpochDay(1970, Calendar.JANUARY, 1));
+        assertEquals(19723, DateUtils.toEpochDay(2024, Calendar.JANUARY, 1));
+        assertEquals(-1, DateUtils.toEpochDay(1969, Calendar.DECEMBER, 31));
+    }
+
+    @Test
+    public void isoTextRoundTrips() {
+        int day = DateUtils.toEpochDay(2024, Calendar.FEBRUARY, 29);
+        assertEquals("2024-02-29", DateUtils.formatIso(day));
+        assertEquals(day, DateUtils.parse("2024-02-29"));
+    }
+
+    @Test
+    public void parsesDisplayStringsOfOlderVersions() {
+        assertEquals(19723, DateUtils.parse("Mon 01 Jan 2024"));
+    }
+
+    @Test
+    public void localCalendarKeepsItsDateInAnyTimeZone() {
+        // Just before midnight east of UTC is still the previous day in UTC
+        Calendar tokyo = Calendar.getInstance(TimeZone.getTimeZone("Asia/Tokyo"), Locale.US);
+        tokyo.clear();
+        tokyo.set(2024, Calendar.JANUARY, 1, 0, 30);
+        assertEquals(19723, DateUtils.toEpochDay(tokyo));
+    }
+
+    @Test
+    public void missingOrInvalidTextIsNoDate() {
+        assertEquals(DateUtils.NO_DATE, DateUtils.parse(null));
+        assertEquals(DateUtils.NO_DATE, DateUtils.parse(" "));
+        assertEquals(DateUtils.NO_DATE, DateUtils.parse("soon"));
+        assertNull(DateUtils.formatIso(DateUtils.NO_DATE));
+    }
+}